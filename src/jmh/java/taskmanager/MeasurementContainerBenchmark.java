@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+
+package taskmanager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The operations on a full {@link MeasurementContainer} that are made for every measurement in every update, and the
+ * range iteration made by the graphs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class MeasurementContainerBenchmark {
+	@Param({"60", "3600"})
+	public int size;
+
+	private MeasurementContainer<Long> source;
+	private MeasurementContainer<Long> target;
+	private long value;
+
+	@Setup
+	public void setup() {
+		source = new MeasurementContainer<>(size, 0L);
+		target = new MeasurementContainer<>(size, 0L);
+		for (int i = 0; i < size; i++) {
+			source.addValue(nextValue());
+		}
+		target.copyFrom(source);
+	}
+
+	private long nextValue() {
+		// Runs of equal values, like an idle process, mixed with changing values
+		value++;
+		return ((value & 8) == 0) ? value * 31 : 0;
+	}
+
+	@Benchmark
+	public void addValue() {
+		source.addValue(nextValue());
+	}
+
+	@Benchmark
+	public void addValueAndCopyDelta() {
+		source.addValue(nextValue());
+		target.copyDelta(source);
+	}
+
+	@Benchmark
+	public MeasurementContainer<Long> copyFrom() {
+		target.copyFrom(source);
+		return target;
+	}
+
+	@Benchmark
+	public void rangeIteration(Blackhole blackhole) {
+		long sum = 0;
+		Iterator<Long> iterator = source.getRangeIterator(0, source.size() - 1);
+		while (iterator.hasNext()) {
+			sum += iterator.next();
+		}
+		blackhole.consume(sum);
+	}
+}
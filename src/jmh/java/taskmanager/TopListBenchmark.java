@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+
+package taskmanager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import taskmanager.data.Process;
+import taskmanager.data.TopList;
+import taskmanager.ui.performance.MeasurementAveragerForTopList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The selection of the CPU and memory top lists in every update, and the averaging of top lists when a graph
+ * shows more than one update per step.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class TopListBenchmark {
+	private static final int TOP_LIST_SIZE = 3;
+
+	@Param({"500", "5000", "50000"})
+	public int processCount;
+
+	private List<Process> processes;
+	private TopListSelector selector;
+	private TopListSelector.Metric cpuMetric;
+	private TopListSelector.Metric memoryMetric;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(1);
+		processes = new ArrayList<>();
+		for (int i = 0; i < processCount; i++) {
+			Process process = new Process(i, i + 1);
+			process.cpuUsage.addValue((long) random.nextInt(1000));
+			process.privateWorkingSet.addValue((long) random.nextInt(1 << 30));
+			processes.add(process);
+		}
+
+		selector = new TopListSelector();
+		cpuMetric = selector.addMetric(p -> p.cpuUsage.newest());
+		memoryMetric = selector.addMetric(p -> p.privateWorkingSet.newest());
+	}
+
+	@Benchmark
+	public TopList select() {
+		selector.select(processes, TOP_LIST_SIZE);
+		cpuMetric.result();
+		return memoryMetric.result();
+	}
+
+	@Benchmark
+	public TopList averageOf(Averaging averaging) {
+		return MeasurementAveragerForTopList.averageOf(averaging.topLists);
+	}
+
+
+	@State(Scope.Thread)
+	public static class Averaging {
+		private static final int BUSY_PROCESSES = 10;
+
+		@Param({"2", "60"})
+		public int stepSize;
+
+		private List<TopList> topLists;
+
+		@Setup
+		public void setup() {
+			// Consecutive top lists mostly share processes, so they are made from a small set of busy processes
+			Random random = new Random(1);
+			Process[] busy = new Process[BUSY_PROCESSES];
+			for (int i = 0; i < busy.length; i++) {
+				busy[i] = new Process(i, i + 1);
+			}
+
+			topLists = new ArrayList<>();
+			for (int i = 0; i < stepSize; i++) {
+				TopList topList = new TopList(TOP_LIST_SIZE);
+				for (int j = 0; j < TOP_LIST_SIZE; j++) {
+					topList.entries[j] = new TopList.Entry(random.nextInt(1000), busy[(i + j) % busy.length]);
+				}
+				topLists.add(topList);
+			}
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+
+package taskmanager.data;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The copy from the collector's information to a snapshot in every update. Before each copy all processes get a new
+ * measurement and a few are replaced, like in a collector tick. With <code>toView</code> the copy goes to a view like the
+ * one of the user interface, which only shares the measurements.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class SystemInformationBenchmark {
+	private static final int CHURN_PER_TICK = 10;
+
+	@Param({"500", "5000", "50000"})
+	public int processCount;
+
+	@Param({"false", "true"})
+	public boolean toView;
+
+	private SystemInformation collected;
+	private SystemInformation snapshot;
+	private Random random;
+	private long nextUniqueId;
+
+	@Setup
+	public void setup() {
+		random = new Random(1);
+		collected = new SystemInformation();
+		snapshot = toView ? SystemInformation.createView() : new SystemInformation();
+		for (int i = 0; i < processCount; i++) {
+			collected.addProcess(createProcess());
+		}
+		tick();
+		snapshot.copyFrom(collected);
+	}
+
+	@Setup(Level.Invocation)
+	public void tick() {
+		for (Process process : collected.processes) {
+			process.cpuUsage.addValue((long) random.nextInt(1000));
+			process.privateWorkingSet.addValue((long) random.nextInt(1 << 30));
+		}
+		for (int i = 0; i < CHURN_PER_TICK; i++) {
+			Process removed = collected.processes.get(random.nextInt(collected.processes.size()));
+			collected.removeProcessesIf(p -> p == removed);
+			collected.addProcess(createProcess());
+		}
+		collected.generation++;
+	}
+
+	private Process createProcess() {
+		Process process = new Process(nextUniqueId, nextUniqueId + 1);
+		process.fileName = "process-" + nextUniqueId;
+		process.commandLine = "/usr/bin/process-" + nextUniqueId;
+		nextUniqueId++;
+		return process;
+	}
+
+	@Benchmark
+	public SystemInformation copyFrom() {
+		snapshot.copyFrom(collected);
+		return snapshot;
+	}
+}
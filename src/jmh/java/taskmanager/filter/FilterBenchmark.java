@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+
+package taskmanager.filter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import taskmanager.data.Process;
+import taskmanager.data.Status;
+import taskmanager.filter.FilterCompiler.Tag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiling the text in the filter field, which happens on every key press, and applying the compiled filter to all
+ * processes, which happens in every update. The last query mixes numerical and text filters over long command lines.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class FilterBenchmark {
+	private static final String[] NAMES = {"bash", "java", "python3", "postgres", "nginx", "sshd", "chrome", "node"};
+
+	@Param({"java", "cpu: >1 mem: >100m", "name: post user: root cmd: --config stat: r",
+			"cmd: --config user: root stat: R cpu: >5 mem: >800m"})
+	public String text;
+
+	@Param({"5000", "20000"})
+	public int processCount;
+
+	private FilterCompiler compiler;
+	private Filter filter;
+	private List<Process> processes;
+
+	@Setup
+	public void setup() {
+		compiler = new FilterCompiler();
+		filter = compiler.compile(text, Tag.ProcessName).filter;
+
+		Random random = new Random(1);
+		processes = new ArrayList<>();
+		for (int i = 0; i < processCount; i++) {
+			Process process = new Process(i, i + 1);
+			process.fileName = NAMES[random.nextInt(NAMES.length)];
+			StringBuilder commandLine = new StringBuilder("/usr/bin/").append(process.fileName);
+			for (int j = 0; j < 12; j++) {
+				commandLine.append(" -Dproperty.").append(j).append("=/opt/app/lib/value");
+			}
+			process.commandLine = commandLine.append(random.nextBoolean() ? " --config /etc/app.conf" : "").toString();
+			process.userName = random.nextBoolean() ? "root" : "user";
+			process.status = random.nextBoolean() ? Status.Running : Status.Sleeping;
+			process.cpuUsage.addValue((long) random.nextInt(100));
+			process.privateWorkingSet.addValue((long) random.nextInt(1 << 30));
+			processes.add(process);
+		}
+	}
+
+	@Benchmark
+	public FilterCompiler.CompiledFilter compile() {
+		return compiler.compile(text, Tag.ProcessName);
+	}
+
+	@Benchmark
+	public void apply(Blackhole blackhole) {
+		int matches = 0;
+		for (Process process : processes) {
+			if (filter.apply(process)) {
+				matches++;
+			}
+		}
+		blackhole.consume(matches);
+	}
+}
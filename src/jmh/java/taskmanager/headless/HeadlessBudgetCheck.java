@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.headless;
+
+import taskmanager.data.SystemInformation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the headless collection and checks the startup time, the average CPU usage and the resident memory against
+ * the budget documented in {@link HeadlessTaskManager}. The numbers are those of the whole JVM, so it runs in its own
+ * one with <code>-Xmx64m</code> (<code>./gradlew headlessBudget</code>). The measured duration in seconds can be given
+ * as the first argument (default 60). Exits with status 1 if the budget is exceeded.
+ */
+public class HeadlessBudgetCheck {
+	private static final int WARMUP_SECONDS = 10;
+
+	public static void main(String[] args) throws ExecutionException, InterruptedException, IOException {
+		int seconds = (args.length > 0) ? Integer.parseInt(args[0]) : 60;
+
+		AtomicInteger updates = new AtomicInteger();
+		HeadlessTaskManager taskManager = new HeadlessTaskManager(Collections.singletonList(new InformationSink() {
+			@Override
+			public void update(SystemInformation systemInformation) {
+				updates.incrementAndGet();
+			}
+		}));
+
+		long startTime = System.nanoTime();
+		taskManager.start();
+		long startupMillis = (System.nanoTime() - startTime) / 1_000_000;
+
+		double cpuPercent;
+		int measuredUpdates;
+		long rssMb;
+		try {
+			Thread.sleep(WARMUP_SECONDS * 1000L);
+			Duration cpuStart = cpuTime();
+			long measureStart = System.nanoTime();
+			int updatesStart = updates.get();
+			Thread.sleep(seconds * 1000L);
+			cpuPercent = 100.0 * (cpuTime().minus(cpuStart).toNanos()) / (System.nanoTime() - measureStart);
+			measuredUpdates = updates.get() - updatesStart;
+			rssMb = residentMemoryKb() / 1024;
+		} finally {
+			taskManager.stop();
+		}
+
+		boolean passed = measuredUpdates > 0;
+		System.out.println(measuredUpdates + " updates in " + seconds + " s");
+		passed &= check("Startup", startupMillis, HeadlessTaskManager.STARTUP_BUDGET_MILLIS, "ms");
+		passed &= check("CPU", cpuPercent, HeadlessTaskManager.CPU_BUDGET_PERCENT, "%");
+		if (rssMb >= 0) {
+			passed &= check("RSS", rssMb, HeadlessTaskManager.RSS_BUDGET_MB, "MB");
+		}
+
+		System.exit(passed ? 0 : 1);
+	}
+
+	private static boolean check(String name, double value, double budget, String unit) {
+		boolean passed = value <= budget;
+		System.out.printf("%-8s %8.2f %s (budget %.2f %s) %s%n", name, value, unit, budget, unit, passed ? "OK" : "EXCEEDED");
+		return passed;
+	}
+
+	private static Duration cpuTime() {
+		return ProcessHandle.current().info().totalCpuDuration().orElse(Duration.ZERO);
+	}
+
+	private static long residentMemoryKb() throws IOException {
+		Path status = Paths.get("/proc/self/status");
+		if (!Files.exists(status)) {
+			return -1;
+		}
+		for (String line : Files.readAllLines(status)) {
+			if (line.startsWith("VmRSS:")) {
+				return Long.parseLong(line.substring("VmRSS:".length()).replace("kB", "").trim());
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.headless;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import taskmanager.MeasurementFactory;
+import taskmanager.Measurements;
+import taskmanager.data.Disk;
+import taskmanager.data.Network;
+import taskmanager.data.Process;
+import taskmanager.data.SystemInformation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The metrics endpoint under load: one thread keeps updating the sink with new values for all processes while the
+ * others scrape it concurrently. The sample mode reports the latency percentiles of both.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Group)
+public class OpenMetricsSinkBenchmark {
+	private static final byte[] EOF = "# EOF\n".getBytes(StandardCharsets.US_ASCII);
+
+	@Param({"2000"})
+	public int processCount;
+
+	private SystemInformation systemInformation;
+	private OpenMetricsSink sink;
+	private URL url;
+	private Random random;
+
+	@Setup
+	public void setup() throws IOException {
+		random = new Random(1);
+		systemInformation = createSystemInformation();
+		sink = new OpenMetricsSink("127.0.0.1", 0, 10);
+		sink.start(systemInformation);
+		url = new URL("http://127.0.0.1:" + sink.getPort() + "/metrics");
+	}
+
+	@TearDown
+	public void tearDown() {
+		sink.close();
+	}
+
+	@Benchmark
+	@Group("endpoint")
+	@GroupThreads(1)
+	public void update() {
+		randomize();
+		sink.update(systemInformation);
+	}
+
+	@Benchmark
+	@Group("endpoint")
+	@GroupThreads(7)
+	public int scrape() throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setRequestProperty("Accept", "application/openmetrics-text; version=1.0.0");
+		byte[] body;
+		try (InputStream in = connection.getInputStream()) {
+			body = in.readAllBytes();
+		}
+
+		// A torn or truncated response would not end with the terminator
+		for (int i = 0; i < EOF.length; i++) {
+			if (body.length < EOF.length || body[body.length - EOF.length + i] != EOF[i]) {
+				throw new IllegalStateException("Scraped an incomplete response!");
+			}
+		}
+		return body.length;
+	}
+
+	private SystemInformation createSystemInformation() {
+		SystemInformation systemInformation = new SystemInformation();
+		systemInformation.physicalMemoryTotal = 16L << 30;
+		systemInformation.cpuUsagePerCore = MeasurementFactory.createArray(8);
+		for (int i = 0; i < systemInformation.cpuUsagePerCore.length; i++) {
+			systemInformation.cpuUsagePerCore[i] = MeasurementFactory.createShort((short) 0);
+		}
+		systemInformation.disks = new Disk[2];
+		for (int i = 0; i < systemInformation.disks.length; i++) {
+			systemInformation.disks[i] = new Disk();
+			systemInformation.disks[i].index = i;
+			systemInformation.disks[i].name = "/mnt/disk" + i;
+		}
+		systemInformation.networks = new Network[2];
+		for (int i = 0; i < systemInformation.networks.length; i++) {
+			systemInformation.networks[i] = new Network();
+			systemInformation.networks[i].name = "eth" + i;
+		}
+		for (int i = 0; i < processCount; i++) {
+			Process process = new Process(i, i + 1);
+			process.fileName = "process \"" + i + "\"";
+			systemInformation.addProcess(process);
+		}
+		systemInformation.totalProcesses = processCount;
+		systemInformation.totalThreads = processCount * 4;
+		return systemInformation;
+	}
+
+	private void randomize() {
+		systemInformation.memoryUsed.addValue((long) (random.nextDouble() * systemInformation.physicalMemoryTotal));
+		systemInformation.cpuUsageTotal.addValue((short) random.nextInt(10000));
+		for (Measurements<Short> core : systemInformation.cpuUsagePerCore) {
+			core.addValue((short) random.nextInt(10000));
+		}
+		for (Disk disk : systemInformation.disks) {
+			disk.readRate.addValue((long) random.nextInt(1 << 24));
+			disk.writeRate.addValue((long) random.nextInt(1 << 24));
+			disk.activeFraction.addValue(random.nextDouble());
+			disk.ioQueueLength.addValue((long) random.nextInt(8));
+		}
+		for (Network network : systemInformation.networks) {
+			network.inRate.addValue((long) random.nextInt(1 << 20));
+			network.outRate.addValue((long) random.nextInt(1 << 20));
+		}
+		for (Process process : systemInformation.processes) {
+			process.cpuUsage.addValue((long) random.nextInt(10000));
+			process.privateWorkingSet.addValue((long) random.nextInt(1 << 30));
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.platform.linux;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import taskmanager.CollectionSchedule.Source;
+import taskmanager.data.SystemInformation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One update of the Linux collector against a synthetic proc tree (see {@link SyntheticProcTree}), where every tick
+ * replaces 1 % of the processes and 10 % of them use CPU. The update is repeated until its process scan has been
+ * added, the changes to the tree are not timed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class LinuxCollectorBenchmark {
+	private static final double CHURN_FRACTION = 0.01;
+	private static final double ACTIVE_FRACTION = 0.1;
+
+	@Param({"1000", "10000", "100000"})
+	public int processCount;
+
+	private SyntheticProcTree tree;
+	private LinuxInformationLoader loader;
+	private SystemInformation systemInformation;
+
+	@Setup
+	public void setup() throws IOException {
+		tree = new SyntheticProcTree(Files.createTempDirectory("proc"), Runtime.getRuntime().availableProcessors(), 1);
+		tree.create(processCount);
+		loader = new LinuxInformationLoader(tree.getRoot().toString());
+		systemInformation = new SystemInformation();
+		loader.init(systemInformation);
+	}
+
+	@Setup(Level.Invocation)
+	public void tick() throws IOException {
+		tree.tick((int) (processCount * CHURN_FRACTION), ACTIVE_FRACTION);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		loader.close();
+		tree.delete();
+		if (systemInformation.totalProcesses != processCount) {
+			throw new IllegalStateException("Collected " + systemInformation.totalProcesses + " processes, expected " + processCount + "!");
+		}
+	}
+
+	@Benchmark
+	public int update() {
+		// The processes are scanned in the background, keep updating until the scan has been added
+		long scanTimestamp = systemInformation.sampleTimestamps[Source.Processes.ordinal()];
+		do {
+			loader.update(systemInformation);
+		} while (systemInformation.sampleTimestamps[Source.Processes.ordinal()] == scanTimestamp);
+		return systemInformation.totalProcesses;
+	}
+}
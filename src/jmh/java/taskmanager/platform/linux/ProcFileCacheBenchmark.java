@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.platform.linux;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import oshi.util.FileUtil;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading /proc/[pid]/stat and statm of every process on this machine, once by opening, reading and closing the files
+ * and once through the cached handles in {@link ProcFileCache}. One operation is one tick over all processes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class ProcFileCacheBenchmark {
+	private long[] pids;
+	private ProcFileCache cache;
+
+	@Setup
+	public void setup() {
+		List<Long> processIds = new ArrayList<>();
+		File[] files = new File("/proc").listFiles(f -> f.isDirectory() && f.getName().matches("[0-9]+"));
+		if (files != null) {
+			for (File file : files) {
+				processIds.add(Long.parseLong(file.getName()));
+			}
+		}
+		pids = processIds.stream().mapToLong(Long::longValue).toArray();
+		cache = new ProcFileCache("/proc", 10000);
+	}
+
+	@TearDown
+	public void tearDown() {
+		cache.clear();
+	}
+
+	@Benchmark
+	public void openReadClose(Blackhole blackhole) {
+		for (long pid : pids) {
+			blackhole.consume(FileUtil.getStringFromFile("/proc/" + pid + "/stat"));
+			blackhole.consume(FileUtil.getStringFromFile("/proc/" + pid + "/statm"));
+		}
+	}
+
+	@Benchmark
+	public void cached(Blackhole blackhole) {
+		for (long pid : pids) {
+			blackhole.consume(cache.read(pid, ProcFileCache.STAT));
+			blackhole.consume(cache.read(pid, ProcFileCache.STATM));
+		}
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.platform.linux;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One update of the per-process collection for a number of workers. Every process in /proc is added
+ * <code>copies</code> times to simulate a machine with many processes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class ProcessCollectorBenchmark {
+	@Param({"1", "2", "4", "8"})
+	public int workers;
+
+	@Param({"100"})
+	public int copies;
+
+	private ProcessCollector collector;
+	private List<ProcessSample> samples;
+
+	@Setup
+	public void setup() {
+		samples = new ArrayList<>();
+		File[] files = new File("/proc").listFiles(f -> f.isDirectory() && f.getName().matches("[0-9]+"));
+		if (files != null) {
+			for (int i = 0; i < copies; i++) {
+				for (File file : files) {
+					samples.add(new ProcessSample(Long.parseLong(file.getName())));
+				}
+			}
+		}
+		collector = new ProcessCollector("/proc", workers);
+		collector.setMaxOpenHandles(10000);
+	}
+
+	@TearDown
+	public void tearDown() {
+		collector.shutdown();
+	}
+
+	@Benchmark
+	public int update() {
+		return collector.update(samples, 0, 4096);
+	}
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.platform.linux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Writes a synthetic proc tree that the Linux collector can read instead of /proc (see the <code>procPath</code>
+ * config). Each process has stat, status, statm, cmdline and comm files next to the system-wide stat and loadavg,
+ * and every tick replaces some processes with new ones and lets the CPU time of some processes grow. The files are
+ * rewritten in place so that the file handles kept open by the collector see the new content, like they do in /proc.
+ * <p>
+ * Arguments of main: root directory, number of processes (default 1000), processes replaced per tick (default 10),
+ * and the tick interval in milliseconds (default 1000).
+ */
+public class SyntheticProcTree {
+	private static final int TICKS_PER_SECOND = 100; // USER_HZ
+	private static final long PAGE_SIZE = 4096;
+	private static final String[] NAMES = {"bash", "java", "python3", "postgres", "nginx", "sshd", "kworker/0:1",
+			"systemd-journal", "node", "chrome (renderer)", "Web Content", "dockerd"};
+
+	private final Path root;
+	private final int cores;
+	private final Random random;
+	private final List<SyntheticProcess> processes;
+	private final long[][] coreTicks;
+	private long nextPid;
+	private long uptimeTicks;
+	private long contextSwitches;
+	private long processesCreated;
+
+	public SyntheticProcTree(Path root, int cores, long seed) {
+		this.root = root;
+		this.cores = cores;
+		this.random = new Random(seed);
+		this.processes = new ArrayList<>();
+		this.coreTicks = new long[cores][4]; // user, nice, system, idle
+		this.nextPid = 1;
+		this.uptimeTicks = 1000L * TICKS_PER_SECOND;
+	}
+
+	public Path getRoot() {
+		return root;
+	}
+
+	public int getProcessCount() {
+		return processes.size();
+	}
+
+	/**
+	 * Writes the system files and the given number of processes.
+	 */
+	public void create(int processCount) throws IOException {
+		Files.createDirectories(root.resolve("sys/fs"));
+		Files.createDirectories(root.resolve("self"));
+		copyOrWrite(Paths.get("/proc/self/limits"), root.resolve("self/limits"),
+				"Max open files            1024                 4096                 files\n");
+		copyOrWrite(Paths.get("/proc/sys/fs/file-nr"), root.resolve("sys/fs/file-nr"), "2048\t0\t9223372036854775807\n");
+		writeMemInfo();
+
+		for (int i = 0; i < processCount; i++) {
+			spawn();
+		}
+		writeStat();
+	}
+
+	/**
+	 * Advances the tree by one second: replaces <code>churn</code> processes and lets the given fraction of the
+	 * processes use some CPU time.
+	 */
+	public void tick(int churn, double activeFraction) throws IOException {
+		for (int i = 0; i < churn && !processes.isEmpty(); i++) {
+			int index = random.nextInt(processes.size());
+			SyntheticProcess process = processes.get(index);
+			processes.set(index, processes.get(processes.size() - 1));
+			processes.remove(processes.size() - 1);
+			delete(process);
+		}
+		for (int i = 0; i < churn; i++) {
+			spawn();
+		}
+
+		uptimeTicks += TICKS_PER_SECOND;
+		int active = (int) (processes.size() * activeFraction);
+		for (int i = 0; i < active; i++) {
+			SyntheticProcess process = processes.get(random.nextInt(processes.size()));
+			process.userTime += random.nextInt(10);
+			process.systemTime += random.nextInt(3);
+			process.residentPages = Math.max(1, process.residentPages + random.nextInt(65) - 32);
+			writeProcessStat(process);
+			writeStatm(process);
+		}
+		writeStat();
+	}
+
+	/**
+	 * Removes the whole tree.
+	 */
+	public void delete() throws IOException {
+		if (Files.exists(root)) {
+			try (Stream<Path> paths = Files.walk(root)) {
+				paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+			}
+		}
+	}
+
+	private void spawn() throws IOException {
+		SyntheticProcess process = new SyntheticProcess();
+		process.pid = nextPid++;
+		process.name = NAMES[random.nextInt(NAMES.length)];
+		process.threads = 1 + random.nextInt(8);
+		process.startTime = uptimeTicks;
+		process.residentPages = 100 + random.nextInt(10000);
+		process.sharedPages = random.nextInt(100);
+		processes.add(process);
+		processesCreated++;
+
+		Path directory = root.resolve(Long.toString(process.pid));
+		Files.createDirectories(directory);
+		write(directory.resolve("comm"), process.name + "\n");
+		write(directory.resolve("cmdline"), "/usr/bin/" + process.name + "\0--id\0" + process.pid + "\0");
+		write(directory.resolve("status"), "Name:\t" + process.name + "\nUmask:\t0022\nState:\tS (sleeping)\n" +
+				"Tgid:\t" + process.pid + "\nPid:\t" + process.pid + "\nPPid:\t1\nUid:\t0\t0\t0\t0\nGid:\t0\t0\t0\t0\n" +
+				"Threads:\t" + process.threads + "\n");
+		writeProcessStat(process);
+		writeStatm(process);
+	}
+
+	private void delete(SyntheticProcess process) throws IOException {
+		Path directory = root.resolve(Long.toString(process.pid));
+		for (String file : new String[]{"comm", "cmdline", "status", "stat", "statm"}) {
+			Files.deleteIfExists(directory.resolve(file));
+		}
+		Files.deleteIfExists(directory);
+	}
+
+	private void writeProcessStat(SyntheticProcess process) throws IOException {
+		StringBuilder stat = new StringBuilder(256);
+		stat.append(process.pid).append(" (").append(process.name).append(") S 1 ").append(process.pid).append(' ')
+				.append(process.pid).append(" 0 -1 4194560 100 0 0 0 ")
+				.append(process.userTime).append(' ').append(process.systemTime).append(" 0 0 20 0 ")
+				.append(process.threads).append(" 0 ").append(process.startTime).append(' ')
+				.append(process.residentPages * PAGE_SIZE * 4).append(' ').append(process.residentPages);
+		for (int i = 25; i <= 52; i++) {
+			stat.append(" 0");
+		}
+		write(root.resolve(process.pid + "/stat"), stat.append('\n').toString());
+	}
+
+	private void writeStatm(SyntheticProcess process) throws IOException {
+		write(root.resolve(process.pid + "/statm"), (process.residentPages * 4) + " " + process.residentPages + " " +
+				process.sharedPages + " 10 0 " + process.residentPages + " 0\n");
+	}
+
+	private void writeStat() throws IOException {
+		long[] total = new long[4];
+		for (long[] ticks : coreTicks) {
+			int busy = random.nextInt(TICKS_PER_SECOND + 1);
+			ticks[0] += busy * 3 / 4;
+			ticks[2] += busy - busy * 3 / 4;
+			ticks[3] += TICKS_PER_SECOND - busy;
+			for (int i = 0; i < total.length; i++) {
+				total[i] += ticks[i];
+			}
+		}
+		contextSwitches += processes.size() * 10L;
+
+		StringBuilder stat = new StringBuilder();
+		appendCpuLine(stat, "cpu ", total);
+		for (int i = 0; i < cores; i++) {
+			appendCpuLine(stat, "cpu" + i + " ", coreTicks[i]);
+		}
+		stat.append("intr 0\nctxt ").append(contextSwitches).append("\nbtime 0\nprocesses ").append(processesCreated)
+				.append("\nprocs_running ").append(1 + random.nextInt(cores)).append("\nprocs_blocked 0\n");
+		write(root.resolve("stat"), stat.toString());
+
+		long threads = 0;
+		for (SyntheticProcess process : processes) {
+			threads += process.threads;
+		}
+		write(root.resolve("loadavg"), "0.20 0.18 0.12 1/" + threads + " " + (nextPid - 1) + "\n");
+	}
+
+	private static void appendCpuLine(StringBuilder stat, String name, long[] ticks) {
+		stat.append(name).append(ticks[0]).append(' ').append(ticks[1]).append(' ').append(ticks[2]).append(' ')
+				.append(ticks[3]).append(" 0 0 0 0 0 0\n");
+	}
+
+	private void writeMemInfo() throws IOException {
+		write(root.resolve("meminfo"), "MemTotal:       16384000 kB\nMemFree:         4096000 kB\n" +
+				"MemAvailable:    8192000 kB\nBuffers:          256000 kB\nCached:          3072000 kB\n" +
+				"SwapCached:            0 kB\nShmem:            128000 kB\nSReclaimable:     512000 kB\n" +
+				"SwapTotal:       2048000 kB\nSwapFree:        2048000 kB\n");
+	}
+
+	private static void copyOrWrite(Path source, Path target, String fallback) throws IOException {
+		if (Files.isReadable(source)) {
+			// Files in /proc report a size that has nothing to do with their content, so read until the end
+			try (InputStream in = Files.newInputStream(source)) {
+				write(target, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+			}
+		} else {
+			write(target, fallback);
+		}
+	}
+
+	private static void write(Path file, String content) throws IOException {
+		// Truncates and rewrites the same file, a replaced file would not be seen through already open handles
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 1) {
+			System.out.println("Usage: SyntheticProcTree <root> [processes] [churn] [interval ms]");
+			return;
+		}
+		int processCount = (args.length > 1) ? Integer.parseInt(args[1]) : 1000;
+		int churn = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+		long interval = (args.length > 3) ? Long.parseLong(args[3]) : 1000;
+
+		SyntheticProcTree tree = new SyntheticProcTree(Paths.get(args[0]), Runtime.getRuntime().availableProcessors(), 1);
+		tree.delete();
+		tree.create(processCount);
+		System.out.println("Created " + processCount + " processes in " + tree.getRoot() + ", ticking every " + interval + " ms");
+		while (true) {
+			Thread.sleep(interval);
+			tree.tick(churn, 0.1);
+		}
+	}
+
+	private static class SyntheticProcess {
+		private long pid;
+		private String name;
+		private int threads;
+		private long startTime;
+		private long userTime;
+		private long systemTime;
+		private long residentPages;
+		private long sharedPages;
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.recording;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import taskmanager.MeasurementFactory;
+import taskmanager.data.Disk;
+import taskmanager.data.Network;
+import taskmanager.data.Process;
+import taskmanager.data.Status;
+import taskmanager.data.SystemInformation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a whole recording as fast as possible, once with only the collector side of every tick (reading the tick
+ * and selecting the top lists) and once also copying every tick to a snapshot that is sorted like the process list.
+ * A synthetic recording is written unless <code>recording</code> points to one made with the
+ * <code>recordingFile</code> config.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class ReplayBenchmark {
+	private static final int TICKS = 60;
+
+	@Param({""})
+	public String recording;
+
+	@Param({"1000", "10000"})
+	public int processCount;
+
+	private Path file;
+	private boolean isSynthetic;
+
+	@Setup
+	public void setup() throws IOException {
+		isSynthetic = recording.isEmpty();
+		if (isSynthetic) {
+			file = Files.createTempFile("replay", ".rec");
+			writeSyntheticRecording(file);
+		} else {
+			file = Paths.get(recording);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		if (isSynthetic) {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Benchmark
+	public int load() {
+		ReplayInformationLoader loader = new ReplayInformationLoader(file, 0);
+		SystemInformation collected = new SystemInformation();
+		loader.init(collected);
+		while (!loader.isFinished()) {
+			loader.update(collected);
+			collected.generation++;
+		}
+		loader.close();
+		return collected.processes.size();
+	}
+
+	@Benchmark
+	public int loadCopyAndSort() {
+		ReplayInformationLoader loader = new ReplayInformationLoader(file, 0);
+		SystemInformation collected = new SystemInformation();
+		SystemInformation snapshot = new SystemInformation();
+		Process.CpuUsageComparator comparator = new Process.CpuUsageComparator();
+		loader.init(collected);
+		while (!loader.isFinished()) {
+			loader.update(collected);
+			collected.generation++;
+			snapshot.copyFrom(collected);
+			snapshot.processes.sort(comparator);
+		}
+		loader.close();
+		return snapshot.processes.size();
+	}
+
+	/**
+	 * Records ticks where every process gets new values and one percent of the processes are replaced.
+	 */
+	private void writeSyntheticRecording(Path file) throws IOException {
+		Random random = new Random(1);
+		SystemInformation systemInformation = new SystemInformation();
+		systemInformation.physicalMemoryTotal = 16L << 30;
+		systemInformation.physicalMemoryTotalInstalled = systemInformation.physicalMemoryTotal;
+		systemInformation.logicalProcessorCount = 8;
+		systemInformation.physicalProcessorCount = 4;
+		systemInformation.pageSize = 4096;
+		systemInformation.userName = "user";
+		systemInformation.cpuUsagePerCore = MeasurementFactory.createArray(systemInformation.logicalProcessorCount);
+		for (int i = 0; i < systemInformation.cpuUsagePerCore.length; i++) {
+			systemInformation.cpuUsagePerCore[i] = MeasurementFactory.createShort((short) 0);
+		}
+		systemInformation.disks = new Disk[] {new Disk()};
+		systemInformation.disks[0].name = "/";
+		systemInformation.networks = new Network[] {new Network()};
+		systemInformation.networks[0].name = "eth0";
+
+		long nextId = 0;
+		for (; nextId < processCount; nextId++) {
+			systemInformation.addProcess(createProcess(nextId));
+		}
+
+		SessionRecorder recorder = new SessionRecorder(file);
+		int churn = Math.max(1, processCount / 100);
+		for (int tick = 0; tick < TICKS; tick++) {
+			systemInformation.uptime = tick;
+			systemInformation.memoryUsed.addValue((long) (random.nextDouble() * systemInformation.physicalMemoryTotal));
+			systemInformation.cpuUsageTotal.addValue((short) random.nextInt(10000));
+			for (int i = 0; i < systemInformation.cpuUsagePerCore.length; i++) {
+				systemInformation.cpuUsagePerCore[i].addValue((short) random.nextInt(10000));
+			}
+			for (Process process : systemInformation.processes) {
+				process.cpuUsage.addValue((long) random.nextInt(10000));
+				process.cpuTime.addValue(process.cpuTime.newest() + random.nextInt(100));
+				process.privateWorkingSet.addValue((long) random.nextInt(1 << 30));
+			}
+			systemInformation.totalProcesses = systemInformation.processes.size();
+			systemInformation.totalThreads = systemInformation.totalProcesses * 4;
+			recorder.record(systemInformation);
+
+			long oldest = nextId - processCount + churn;
+			systemInformation.removeProcessesIf(process -> process.uniqueId < oldest);
+			for (int i = 0; i < churn; i++, nextId++) {
+				systemInformation.addProcess(createProcess(nextId));
+			}
+		}
+		recorder.close();
+	}
+
+	private static Process createProcess(long uniqueId) {
+		Process process = new Process(uniqueId, uniqueId + 1);
+		process.fileName = "process" + uniqueId;
+		process.filePath = "/usr/bin/process" + uniqueId;
+		process.commandLine = "/usr/bin/process" + uniqueId + " --flag";
+		process.userName = "user";
+		process.status = Status.Running;
+		return process;
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+
+package taskmanager.ui.details;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import taskmanager.data.Process;
+import taskmanager.data.SystemInformation;
+
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The process table update in every tick, with the table in a fixed size viewport, alone and followed by painting the
+ * viewport into an image. Before each update all processes get new values, a few are replaced and the list is sorted,
+ * like in {@link taskmanager.ui.TaskManager}. Runs headless on the benchmark thread, nothing is shown so the table is
+ * not touched by the EDT.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class ProcessTableUpdateBenchmark {
+	private static final int CHURN_PER_TICK = 10;
+
+	@Param({"1000", "5000", "20000"})
+	public int processCount;
+
+	private SystemInformation systemInformation;
+	private ProcessTable table;
+	private JScrollPane scrollPane;
+	private BufferedImage image;
+	private Callback callback;
+	private Random random;
+	private long nextUniqueId;
+
+	@Setup
+	public void setup() {
+		random = new Random(1);
+		systemInformation = new SystemInformation();
+		systemInformation.physicalMemoryTotal = 16L << 30;
+		for (int i = 0; i < processCount; i++) {
+			systemInformation.addProcess(createProcess());
+		}
+
+		callback = new Callback();
+		table = new ProcessTable(callback, systemInformation, false);
+		scrollPane = new JScrollPane(table);
+		scrollPane.setSize(1000, 600);
+		scrollPane.doLayout();
+		scrollPane.getViewport().doLayout();
+		image = new BufferedImage(1000, 600, BufferedImage.TYPE_INT_RGB);
+	}
+
+	@Setup(Level.Invocation)
+	public void tick() {
+		for (Process process : systemInformation.processes) {
+			process.cpuUsage.addValue((long) random.nextInt(1000));
+			process.privateWorkingSet.addValue((long) random.nextInt(1 << 30));
+		}
+		for (int i = 0; i < CHURN_PER_TICK; i++) {
+			Process removed = systemInformation.processes.get(random.nextInt(systemInformation.processes.size()));
+			systemInformation.removeProcessesIf(p -> p == removed);
+			systemInformation.addProcess(createProcess());
+		}
+		systemInformation.processes.sort(callback.comparator);
+	}
+
+	private Process createProcess() {
+		Process process = new Process(nextUniqueId, nextUniqueId + 1);
+		process.fileName = "process-" + nextUniqueId;
+		process.userName = "user" + random.nextInt(5);
+		process.commandLine = "/usr/bin/process-" + nextUniqueId + " --flag";
+		nextUniqueId++;
+		return process;
+	}
+
+	@Benchmark
+	public void update() {
+		table.update();
+	}
+
+	@Benchmark
+	public void updateAndPaint() {
+		table.update();
+		Graphics2D g = image.createGraphics();
+		scrollPane.paint(g);
+		g.dispose();
+	}
+
+
+	// The table uses the callback as the parent of its dialogs, so it must be a component
+	private static class Callback extends JPanel implements ProcessDetailsCallback {
+		private Comparator<Process> comparator = new Process.IdComparator();
+
+		@Override
+		public void openDialog(Process process) {
+		}
+
+		@Override
+		public void setComparator(Comparator<Process> comparator, boolean isDeadList) {
+			if (!isDeadList) {
+				this.comparator = comparator;
+			}
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+
+
+package taskmanager.ui.performance;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import taskmanager.LongMeasurementBuffer;
+import taskmanager.MeasurementContainer;
+import taskmanager.MeasurementFactory;
+import taskmanager.Measurements;
+import taskmanager.ui.TextUtils.ValueType;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paints a graph showing a 24 hour history sampled at 10 Hz, for both storages and decimations at different panel
+ * widths. A new sample is added before every frame, as when the graph scrolls.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class GraphRenderingBenchmark {
+	private static final int SAMPLES = 24 * 60 * 60 * 10;
+	private static final int HEIGHT = 200;
+
+	@Param({MeasurementFactory.STORAGE_CONTAINER, MeasurementFactory.STORAGE_BUFFER})
+	public String storage;
+
+	@Param({GraphPanel.DECIMATION_AVERAGE, GraphPanel.DECIMATION_M4})
+	public String decimation;
+
+	@Param({"400", "1600"})
+	public int width;
+
+	private Random random;
+	private Measurements<Long> measurements;
+	private GraphPanel panel;
+	private BufferedImage image;
+
+	@Setup
+	public void setup() {
+		random = new Random(1);
+		if (storage.equals(MeasurementFactory.STORAGE_BUFFER)) {
+			measurements = new LongMeasurementBuffer(SAMPLES, 0);
+		} else {
+			measurements = new MeasurementContainer<>(SAMPLES, 0L);
+		}
+		for (int i = 0; i < SAMPLES; i++) {
+			measurements.addValue(nextValue());
+		}
+
+		panel = new GraphPanel(GraphType.Cpu, ValueType.Percentage, false);
+		panel.addGraph(measurements);
+		panel.setDataIndexInterval(0, SAMPLES - 1);
+		panel.setMaxDatapointValue(1000);
+		panel.setDecimation(decimation);
+		panel.setSize(width, HEIGHT);
+		image = new BufferedImage(width, HEIGHT, BufferedImage.TYPE_INT_RGB);
+	}
+
+	@Benchmark
+	public BufferedImage frame() {
+		measurements.addValue(nextValue());
+		panel.newDatapoint();
+
+		Graphics2D g = image.createGraphics();
+		panel.paint(g);
+		g.dispose();
+		return image;
+	}
+
+	private long nextValue() {
+		// Mostly idle with rare short spikes, which the averaging hides at this zoom level
+		if (random.nextInt(5000) == 0) {
+			return 1000;
+		}
+		return random.nextInt(100);
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+
+
+package taskmanager.ui.performance.cpu;
+
+import config.Config;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import taskmanager.LongMeasurementBuffer;
+import taskmanager.ui.TextUtils.ValueType;
+import taskmanager.ui.performance.GraphPanel;
+import taskmanager.ui.performance.GraphType;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One update of many small graphs following the newest minute, as in the per-core CPU view, with and without the
+ * render cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class CoreGraphsBenchmark {
+	private static final int CORES = 128;
+
+	@Param({"false", "true"})
+	public String renderCache;
+
+	private Random random;
+	private LongMeasurementBuffer[] measurements;
+	private GraphPanel[] panels;
+	private BufferedImage image;
+
+	@Setup
+	public void setup() {
+		Config.put(Config.KEY_GRAPH_RENDER_CACHE, renderCache);
+
+		random = new Random(1);
+		measurements = new LongMeasurementBuffer[CORES];
+		panels = new GraphPanel[CORES];
+		for (int i = 0; i < CORES; i++) {
+			measurements[i] = new LongMeasurementBuffer(3600, 0);
+			panels[i] = new GraphPanel(GraphType.Cpu, ValueType.Percentage, false);
+			panels[i].addGraph(measurements[i]);
+			panels[i].setMaxDatapointValue(1000);
+			panels[i].setSize(110, 60);
+		}
+		image = new BufferedImage(110, 60, BufferedImage.TYPE_INT_RGB);
+	}
+
+	@Benchmark
+	public BufferedImage frame() {
+		for (int i = 0; i < CORES; i++) {
+			measurements[i].addValue((long) random.nextInt(1000));
+			panels[i].newDatapoint();
+
+			Graphics2D g = image.createGraphics();
+			panels[i].paint(g);
+			g.dispose();
+		}
+		return image;
+	}
+}
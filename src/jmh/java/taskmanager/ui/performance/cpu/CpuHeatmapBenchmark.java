@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+
+
+package taskmanager.ui.performance.cpu;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import taskmanager.MeasurementContainer;
+import taskmanager.MeasurementFactory;
+import taskmanager.Measurements;
+import taskmanager.ShortMeasurementBuffer;
+import taskmanager.data.SystemInformation;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paints the heatmap of many cores with a full history in view, both for a new sample, which only draws the newest
+ * column, and for a zoom, which draws every column again as on the first paint or a resize.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class CpuHeatmapBenchmark {
+	private static final int SAMPLES = 3600;
+	private static final int WIDTH = 640;
+	private static final int HEIGHT = 360;
+
+	@Param({MeasurementFactory.STORAGE_CONTAINER, MeasurementFactory.STORAGE_BUFFER})
+	public String storage;
+
+	@Param({"256"})
+	public int cores;
+
+	private Random random;
+	private Measurements<Short>[] measurements;
+	private BenchmarkHeatmapPanel panel;
+	private BufferedImage image;
+	private boolean zoomedIn;
+
+	@Setup
+	public void setup() {
+		random = new Random(1);
+		measurements = MeasurementFactory.createArray(cores);
+		for (int i = 0; i < cores; i++) {
+			if (storage.equals(MeasurementFactory.STORAGE_BUFFER)) {
+				measurements[i] = new ShortMeasurementBuffer(SAMPLES, (short) 0);
+			} else {
+				measurements[i] = new MeasurementContainer<>(SAMPLES, (short) 0);
+			}
+			for (int j = 0; j < SAMPLES; j++) {
+				measurements[i].addValue((short) random.nextInt(1000));
+			}
+		}
+
+		SystemInformation systemInformation = new SystemInformation();
+		systemInformation.logicalProcessorCount = cores;
+		systemInformation.cpuUsagePerCore = measurements;
+		panel = new BenchmarkHeatmapPanel(systemInformation);
+		panel.setMaxDatapointValue(1000);
+		panel.setSize(WIDTH, HEIGHT);
+		panel.zoom(0, SAMPLES - 1);
+		image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		paint();
+	}
+
+	@Benchmark
+	public BufferedImage tick() {
+		for (int i = 0; i < cores; i++) {
+			measurements[i].addValue((short) random.nextInt(1000));
+		}
+		panel.newDatapoint();
+		return paint();
+	}
+
+	@Benchmark
+	public BufferedImage zoom() {
+		zoomedIn = !zoomedIn;
+		panel.zoom(zoomedIn ? SAMPLES / 2 : 0, SAMPLES - 1);
+		return paint();
+	}
+
+	private BufferedImage paint() {
+		Graphics2D g = image.createGraphics();
+		panel.paint(g);
+		g.dispose();
+		return image;
+	}
+
+
+	private static class BenchmarkHeatmapPanel extends CpuHeatmapPanel {
+		BenchmarkHeatmapPanel(SystemInformation systemInformation) {
+			super(systemInformation);
+		}
+
+		void zoom(int start, int end) {
+			setDataIndexInterval(start, end);
+		}
+	}
+}
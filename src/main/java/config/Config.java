@@ -57,7 +57,33 @@ public class Config {
 	public static final String KEY_UPDATE_RATE = "updateRate";
 	public static final String KEY_MAXIMUM_MEASURMENT_BUFFER_SIZE = "maximumMeasurementBufferSize";
 	public static final String KEY_GRAPH_MAX_PIXELS_PER_SEGMENT = "maxPixelsPerSegment";
+	public static final String KEY_GRAPH_DECIMATION = "graphDecimation";
+	public static final String KEY_GRAPH_RENDER_CACHE = "graphRenderCache";
+	public static final String KEY_CPU_HEATMAP_CORES = "cpuHeatmapCores";
 	public static final String KEY_METRIC_TOP_LIST_SIZE = "metricTopListSize";
+	public static final String KEY_MEASUREMENT_STORAGE = "measurementStorage";
+	public static final String KEY_TIERED_PROCESS_HISTORY = "tieredProcessHistory";
+	public static final String KEY_TIERED_HISTORY_HOURS = "tieredHistoryHours";
+	public static final String KEY_COLLECTION_PARALLELISM = "collectionParallelism";
+	public static final String KEY_PROC_PATH = "procPath";
+	public static final String KEY_UI_FRAME_BUDGET = "uiFrameBudget";
+
+	// Milliseconds between the samples of each source, rounded to whole updates. 0 samples in every update
+	public static final String KEY_SAMPLE_INTERVAL_CPU = "sampleIntervalCpu";
+	public static final String KEY_SAMPLE_INTERVAL_MEMORY = "sampleIntervalMemory";
+	public static final String KEY_SAMPLE_INTERVAL_NETWORKS = "sampleIntervalNetworks";
+	public static final String KEY_SAMPLE_INTERVAL_DISKS = "sampleIntervalDisks";
+	public static final String KEY_SAMPLE_INTERVAL_GPUS = "sampleIntervalGpus";
+	public static final String KEY_SAMPLE_INTERVAL_PROCESSES = "sampleIntervalProcesses";
+
+	public static final String KEY_METRICS_ENDPOINT = "metricsEndpoint";
+	public static final String KEY_METRICS_ADDRESS = "metricsAddress";
+	public static final String KEY_METRICS_PORT = "metricsPort";
+	public static final String KEY_METRICS_TOP_PROCESSES = "metricsTopProcesses";
+
+	public static final String KEY_RECORDING_FILE = "recordingFile";
+	public static final String KEY_REPLAY_FILE = "replayFile";
+	public static final String KEY_REPLAY_SPEED = "replaySpeed";
 
 	public static final String KEY_LINK_TIMELINES = "linkTimelines";
 
@@ -133,7 +159,29 @@ public class Config {
 		PROPERTIES.put(KEY_UPDATE_RATE, "1.0");
 		PROPERTIES.put(KEY_MAXIMUM_MEASURMENT_BUFFER_SIZE, "3600");
 		PROPERTIES.put(KEY_GRAPH_MAX_PIXELS_PER_SEGMENT, "2");
+		PROPERTIES.put(KEY_GRAPH_DECIMATION, "average");
+		PROPERTIES.put(KEY_GRAPH_RENDER_CACHE, "true");
+		PROPERTIES.put(KEY_CPU_HEATMAP_CORES, "64");
 		PROPERTIES.put(KEY_METRIC_TOP_LIST_SIZE, "3");
+		PROPERTIES.put(KEY_MEASUREMENT_STORAGE, "buffer");
+		PROPERTIES.put(KEY_TIERED_PROCESS_HISTORY, "false");
+		PROPERTIES.put(KEY_TIERED_HISTORY_HOURS, "24");
+		PROPERTIES.put(KEY_COLLECTION_PARALLELISM, "1");
+		PROPERTIES.put(KEY_PROC_PATH, "/proc");
+		PROPERTIES.put(KEY_UI_FRAME_BUDGET, "0");
+		PROPERTIES.put(KEY_SAMPLE_INTERVAL_CPU, "0");
+		PROPERTIES.put(KEY_SAMPLE_INTERVAL_MEMORY, "0");
+		PROPERTIES.put(KEY_SAMPLE_INTERVAL_NETWORKS, "0");
+		PROPERTIES.put(KEY_SAMPLE_INTERVAL_DISKS, "0");
+		PROPERTIES.put(KEY_SAMPLE_INTERVAL_GPUS, "0");
+		PROPERTIES.put(KEY_SAMPLE_INTERVAL_PROCESSES, "0");
+		PROPERTIES.put(KEY_METRICS_ENDPOINT, "false");
+		PROPERTIES.put(KEY_METRICS_ADDRESS, "127.0.0.1");
+		PROPERTIES.put(KEY_METRICS_PORT, "9119");
+		PROPERTIES.put(KEY_METRICS_TOP_PROCESSES, "10");
+		PROPERTIES.put(KEY_RECORDING_FILE, "");
+		PROPERTIES.put(KEY_REPLAY_FILE, "");
+		PROPERTIES.put(KEY_REPLAY_SPEED, "1.0");
 		PROPERTIES.put(KEY_LINK_TIMELINES, "true");
 		PROPERTIES.put(KEY_ALWAYS_ON_TOP, "false");
 		PROPERTIES.put(KEY_MINIMIZE_TO_TRAY, "false");
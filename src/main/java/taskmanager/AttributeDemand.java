@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager;
+
+import taskmanager.data.ProcessAttribute;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps track of which lazily loaded process attributes are currently needed. Each source (e.g. a table or a dialog)
+ * declares the attributes it needs, and the information loaders only load the union of them.
+ */
+public class AttributeDemand {
+	private static final Map<Object, Set<ProcessAttribute>> DEMANDS = new HashMap<>();
+	private static volatile int demandedMask;
+
+	public static void set(Object source, Set<ProcessAttribute> attributes) {
+		synchronized (DEMANDS) {
+			Set<ProcessAttribute> copy = EnumSet.noneOf(ProcessAttribute.class);
+			copy.addAll(attributes);
+			DEMANDS.put(source, copy);
+			updateMask();
+		}
+	}
+
+	public static void remove(Object source) {
+		synchronized (DEMANDS) {
+			DEMANDS.remove(source);
+			updateMask();
+		}
+	}
+
+	public static boolean isDemanded(ProcessAttribute attribute) {
+		return (demandedMask & attribute.mask) != 0;
+	}
+
+	/**
+	 * @return A bit mask of all demanded attributes, see {@link ProcessAttribute#mask}.
+	 */
+	public static int getDemandedMask() {
+		return demandedMask;
+	}
+
+	private static void updateMask() {
+		int mask = 0;
+		for (Set<ProcessAttribute> attributes : DEMANDS.values()) {
+			for (ProcessAttribute attribute : attributes) {
+				mask |= attribute.mask;
+			}
+		}
+		demandedMask = mask;
+	}
+}
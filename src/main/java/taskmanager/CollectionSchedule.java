@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+
+package taskmanager;
+
+import config.Config;
+
+/**
+ * Decides which sources are sampled in an update. Each source has its own sample interval in the config, which is
+ * rounded to a whole number of updates (at least one) so that all measurements keep exactly one value per update:
+ * in the updates where a source is not sampled its previous values are repeated.
+ */
+public class CollectionSchedule {
+	public enum Source {
+		Cpu(Config.KEY_SAMPLE_INTERVAL_CPU),
+		Memory(Config.KEY_SAMPLE_INTERVAL_MEMORY),
+		Networks(Config.KEY_SAMPLE_INTERVAL_NETWORKS),
+		Disks(Config.KEY_SAMPLE_INTERVAL_DISKS),
+		Gpus(Config.KEY_SAMPLE_INTERVAL_GPUS),
+		Processes(Config.KEY_SAMPLE_INTERVAL_PROCESSES);
+
+		public final String configKey;
+
+		Source(String configKey) {
+			this.configKey = configKey;
+		}
+	}
+
+	private static final Source[] SOURCES = Source.values();
+
+	private final int[] cadences;
+	private final long[] lastSampled;
+	private final boolean[] due;
+	private final int[] elapsedUpdates;
+	private long update;
+
+	public CollectionSchedule() {
+		cadences = new int[SOURCES.length];
+		lastSampled = new long[SOURCES.length];
+		due = new boolean[SOURCES.length];
+		elapsedUpdates = new int[SOURCES.length];
+		update = -1;
+	}
+
+	/**
+	 * Starts a new update and decides which sources are due in it, the cadences are recomputed from the config in case
+	 * it has changed.
+	 * @param updateInterval The time between two updates in milliseconds.
+	 */
+	public void nextUpdate(long updateInterval) {
+		update++;
+		for (Source source : SOURCES) {
+			long interval = Config.getInt(source.configKey);
+			int i = source.ordinal();
+			cadences[i] = (int) Math.max(1, Math.round(interval / (double) Math.max(1, updateInterval)));
+			elapsedUpdates[i] = (int) Math.max(1, update - lastSampled[i]);
+			due[i] = update == 0 || update - lastSampled[i] >= cadences[i];
+		}
+
+		// The CPU usage of processes is relative to the total CPU time since their previous sample, so the total is
+		// always sampled along with them
+		if (due[Source.Processes.ordinal()]) {
+			due[Source.Cpu.ordinal()] = true;
+		}
+
+		for (int i = 0; i < SOURCES.length; i++) {
+			if (due[i]) {
+				lastSampled[i] = update;
+			}
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the source should be sampled in the current update, always the case in the first.
+	 */
+	public boolean isDue(Source source) {
+		return due[source.ordinal()];
+	}
+
+	/**
+	 * @return The number of updates since the source was previously sampled, rates measured over that time should be
+	 * divided by this to get the rate per update.
+	 */
+	public int getElapsedUpdates(Source source) {
+		return elapsedUpdates[source.ordinal()];
+	}
+
+	public int getCadence(Source source) {
+		return cadences[source.ordinal()];
+	}
+}
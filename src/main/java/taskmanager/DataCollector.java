@@ -16,34 +16,70 @@ import config.Config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import taskmanager.data.SystemInformation;
+import taskmanager.headless.InformationSink;
 import taskmanager.platform.linux.LinuxInformationLoader;
 import taskmanager.platform.win32.WindowsInformationLoader;
+import taskmanager.recording.ReplayInformationLoader;
+import taskmanager.recording.SessionRecorder;
 
-import javax.swing.SwingUtilities;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DataCollector extends Thread {
 	private static final Logger LOGGER = LoggerFactory.getLogger(DataCollector.class);
 
+	private static final int SNAPSHOT_INDEX_MASK = 0b011;
+	private static final int SNAPSHOT_UNREAD = 0b100;
+
 	private final InformationUpdateCallback uiCallback;
 
 	private final SystemInformation systemInformationPrivate;
-	private final SystemInformation systemInformationShared;
-	private boolean isTransferLocked;
+
+	/* Triple buffered snapshots: the collector fills the write snapshot while the consumer reads the read snapshot,
+	 * and the two are exchanged with the published one (index and unread flag in publishedSnapshot) without locks. */
+	private final SystemInformation[] snapshots;
+	private final AtomicInteger publishedSnapshot;
+	private int writeSnapshot;
+	private int readSnapshot;
+	private volatile long generation;
 
 	private final InformationLoader loader;
+	private final List<InformationSink> sinks;
+	private SessionRecorder recorder;
 
 	private int numDataFetches = 0;
 	private long totalDataFetchTime = 0;
+	private long skippedUpdates = 0;
 
 	public DataCollector(InformationUpdateCallback uiCallback) {
+		this(uiCallback, createInformationLoader());
+
+		String recordingFile = Config.get(Config.KEY_RECORDING_FILE);
+		if (!recordingFile.isEmpty()) {
+			recorder = new SessionRecorder(Paths.get(recordingFile));
+		}
+	}
+
+	public DataCollector(InformationUpdateCallback uiCallback, InformationLoader loader) {
 		this.uiCallback = uiCallback;
 		this.systemInformationPrivate = new SystemInformation();
-		this.systemInformationShared = new SystemInformation();
-		this.loader = createInformationLoader();
+		this.snapshots = new SystemInformation[]{new SystemInformation(), new SystemInformation(), new SystemInformation()};
+		this.publishedSnapshot = new AtomicInteger(0);
+		this.writeSnapshot = 1;
+		this.readSnapshot = 2;
+		this.loader = loader;
+		this.sinks = new ArrayList<>();
 	}
 
-	private InformationLoader createInformationLoader() {
-		if (Platform.isWindows()) {
+	private static InformationLoader createInformationLoader() {
+		String replayFile = Config.get(Config.KEY_REPLAY_FILE);
+		if (!replayFile.isEmpty()) {
+			return new ReplayInformationLoader(Paths.get(replayFile), Config.getFloat(Config.KEY_REPLAY_SPEED));
+		} else if (Platform.isWindows()) {
 			return new WindowsInformationLoader();
 		} else if (Platform.isLinux()) {
 			return new LinuxInformationLoader();
@@ -52,21 +88,33 @@ public class DataCollector extends Thread {
 		}
 	}
 
-	public synchronized void lockTransfer() {
-		while (isTransferLocked) {
-			try {
-				wait();
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
+	/**
+	 * Takes the most recently published snapshot. The returned snapshot must not be modified and is only valid until
+	 * the next call to this method, which should always be made from the same thread.
+	 * @return The newest snapshot, or <code>null</code> if no new snapshot has been published since the last call.
+	 */
+	public SystemInformation takeSnapshot() {
+		if ((publishedSnapshot.get() & SNAPSHOT_UNREAD) == 0) {
+			return null;
 		}
 
-		isTransferLocked = true;
+		readSnapshot = publishedSnapshot.getAndSet(readSnapshot) & SNAPSHOT_INDEX_MASK;
+		return snapshots[readSnapshot];
 	}
 
-	public synchronized void unlockTransfer() {
-		isTransferLocked = false;
-		notifyAll();
+	/**
+	 * @return The generation of the most recently published snapshot. Increases by one for every data collection.
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Adds a sink that is updated on the collector thread after every collection, with the snapshot that was just
+	 * published. Must be called before the collector is started.
+	 */
+	public void addSink(InformationSink sink) {
+		sinks.add(sink);
 	}
 
 	public SystemInformation init() {
@@ -74,12 +122,14 @@ public class DataCollector extends Thread {
 		// TODO This adds an extra measurement which causes the first two to have a time difference of 0 sec.
 		//  Is this bad? Could be a good thing since the first measurements are 0 or incorrect?
 		updateSystemInformation();
-		return systemInformationShared;
+		return takeSnapshot();
 	}
 
 	@Override
 	public void run() {
 		try {
+			// Updates start at fixed deadlines so the period does not drift with the duration of each update
+			long nextUpdate = System.nanoTime();
 			do {
 				long startTime = System.currentTimeMillis();
 				updateSystemInformation();
@@ -91,27 +141,82 @@ public class DataCollector extends Thread {
 							delta, String.format("%.1f", totalDataFetchTime / (float) numDataFetches), numDataFetches);
 				}
 
+				long interval = TimeUnit.MILLISECONDS.toNanos(loader.getUpdateInterval());
+				nextUpdate += interval;
+				long behind = System.nanoTime() - nextUpdate;
+				if (interval <= 0) {
+					nextUpdate = System.nanoTime();
+				} else if (behind > interval) {
+					// Skip the updates that were missed instead of running them back to back
+					nextUpdate += behind / interval * interval;
+					skippedUpdates += behind / interval;
+					LOGGER.debug("Data collection is behind, skipped {} update(s) in total", skippedUpdates);
+				}
+
 				try {
-					Thread.sleep(Math.max(0, (long) (1000 / Config.getFloat(Config.KEY_UPDATE_RATE) - delta)));
+					TimeUnit.NANOSECONDS.sleep(nextUpdate - System.nanoTime());
 				} catch (InterruptedException ignored) {
 				}
 			} while (!uiCallback.hasTerminated());
 		} catch (Throwable e) {
 			LOGGER.error("Unexpected error during data collection", e);
 			uiCallback.dataCollectorFailed();
+		} finally {
+			stopRecording();
+			loader.close();
 		}
 	}
 
 	private void updateSystemInformation() {
 		loader.update(systemInformationPrivate);
-		lockTransfer();
-		systemInformationShared.copyFrom(systemInformationPrivate);
-		unlockTransfer();
+		systemInformationPrivate.generation++;
+		record();
+
+		// The write snapshot may be a few generations old, copyFrom only copies what has changed since then
+		SystemInformation snapshot = snapshots[writeSnapshot];
+		snapshot.copyFrom(systemInformationPrivate);
+		writeSnapshot = publishedSnapshot.getAndSet(writeSnapshot | SNAPSHOT_UNREAD) & SNAPSHOT_INDEX_MASK;
+		generation = snapshot.generation;
+
+		// The published snapshot is only written again by this thread, so it can be read here while it is taken
+		updateSinks(snapshot);
+	}
+
+	private void updateSinks(SystemInformation snapshot) {
+		for (InformationSink sink : sinks) {
+			try {
+				sink.update(snapshot);
+			} catch (RuntimeException e) {
+				LOGGER.error("The sink {} failed", sink.getClass().getName(), e);
+			}
+		}
+	}
+
+	private void record() {
+		if (recorder != null) {
+			try {
+				recorder.record(systemInformationPrivate);
+			} catch (IOException e) {
+				LOGGER.error("Failed to record the collected data, stopping the recording", e);
+				stopRecording();
+			}
+		}
+	}
+
+	private void stopRecording() {
+		if (recorder != null) {
+			try {
+				recorder.close();
+			} catch (IOException e) {
+				LOGGER.warn("Failed to close the recording", e);
+			}
+			recorder = null;
+		}
 	}
 
 	private void updateUi() {
-		if (systemInformationShared.processes.size() > 0) {
-			uiCallback.update(systemInformationShared);
+		if (systemInformationPrivate.processes.size() > 0) {
+			uiCallback.update();
 		}
 	}
 }
\ No newline at end of file
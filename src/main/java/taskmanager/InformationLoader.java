@@ -17,6 +17,7 @@ import oshi.hardware.GraphicsCard;
 import oshi.hardware.HWDiskStore;
 import oshi.hardware.HWPartition;
 import oshi.hardware.NetworkIF;
+import taskmanager.CollectionSchedule.Source;
 import taskmanager.data.Process;
 import taskmanager.data.Status;
 import taskmanager.data.SystemInformation;
@@ -24,14 +25,12 @@ import taskmanager.data.Disk;
 import taskmanager.data.Gpu;
 import taskmanager.data.Gpu.Type;
 import taskmanager.data.Network;
-import taskmanager.data.TopList;
 import taskmanager.platform.common.NvidiaGpuLoader;
 
 import java.net.SocketException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.ListIterator;
-import java.util.Set;
+import java.util.function.LongPredicate;
 
 public abstract class InformationLoader {
 	private SystemInfo systemInfoLoader;
@@ -46,7 +45,19 @@ public abstract class InformationLoader {
 
 	private int numberOfUpdates;
 
-	@SuppressWarnings("unchecked")
+	protected final CollectionSchedule schedule;
+
+	protected final TopListSelector topListSelector;
+	private final TopListSelector.Metric cpuTopListMetric;
+	private final TopListSelector.Metric memoryTopListMetric;
+
+	public InformationLoader() {
+		schedule = new CollectionSchedule();
+		topListSelector = new TopListSelector();
+		cpuTopListMetric = topListSelector.addMetric(p -> p.cpuUsage.newest());
+		memoryTopListMetric = topListSelector.addMetric(p -> p.privateWorkingSet.newest());
+	}
+
 	public void init(SystemInformation systemInformation) {
 		systemInfoLoader = new SystemInfo();
 		nvidiaGpuLoader = new NvidiaGpuLoader();
@@ -57,9 +68,9 @@ public abstract class InformationLoader {
 		systemInformation.pageSize = systemInfoLoader.getHardware().getMemory().getPageSize();
 		systemInformation.bootTime = System.currentTimeMillis() - systemInfoLoader.getOperatingSystem().getSystemUptime() * 1000; // TODO this is incorrect when you take hibernation into account!
 
-		systemInformation.cpuUsagePerCore = new MeasurementContainer[systemInformation.logicalProcessorCount];
+		systemInformation.cpuUsagePerCore = MeasurementFactory.createArray(systemInformation.logicalProcessorCount);
 		for (int i = 0; i < systemInformation.cpuUsagePerCore.length; i++) {
-			systemInformation.cpuUsagePerCore[i] = new MeasurementContainer<>((short) 0);
+			systemInformation.cpuUsagePerCore[i] = MeasurementFactory.createShort((short) 0);
 		}
 
 		initNetworkInterfaces(systemInformation);
@@ -127,7 +138,7 @@ public abstract class InformationLoader {
 			Gpu gpu = new Gpu();
 			gpu.index = i;
 			gpu.name = gpus.get(i).getName();
-			gpu.deviceId = Integer.decode(gpus.get(i).getDeviceId());
+			gpu.deviceId = parseDeviceId(gpus.get(i).getDeviceId());
 			gpu.vendor = gpus.get(i).getVendor();
 			gpu.totalMemory = gpus.get(i).getVRam();
 
@@ -146,11 +157,92 @@ public abstract class InformationLoader {
 		}
 	}
 
+	private static int parseDeviceId(String deviceId) {
+		try {
+			return Integer.decode(deviceId);
+		} catch (NumberFormatException e) {
+			return -1; // OSHI reports "unknown" when the device id can't be read, e.g. on virtual machines
+		}
+	}
+
+	/**
+	 * Samples the sources that are due according to {@link #schedule} and repeats the previous values of the others,
+	 * so every measurement still gets exactly one value per update.
+	 */
 	public void update(SystemInformation systemInformation) {
-		systemInformation.uptime = System.currentTimeMillis() - systemInformation.bootTime;
-		systemInformation.memoryUsed.addValue(systemInformation.physicalMemoryTotal - systemInfoLoader.getHardware().getMemory().getAvailable());
+		long time = System.currentTimeMillis();
+		schedule.nextUpdate(getUpdateInterval());
+		for (Source source : Source.values()) {
+			// Sources sampled in the background are timestamped when their sample arrives
+			if (!isSampledInBackground(source) && schedule.isDue(source)) {
+				systemInformation.sampleTimestamps[source.ordinal()] = time;
+			}
+		}
+
+		systemInformation.uptime = time - systemInformation.bootTime;
+		if (schedule.isDue(Source.Memory)) {
+			systemInformation.memoryUsed.addValue(systemInformation.physicalMemoryTotal - systemInfoLoader.getHardware().getMemory().getAvailable());
+		} else {
+			repeat(systemInformation.memoryUsed);
+		}
+
+		if (schedule.isDue(Source.Cpu)) {
+			updateCpuUsage(systemInformation, schedule.getElapsedUpdates(Source.Cpu));
+		} else {
+			repeatCpuUsage(systemInformation);
+		}
+		removeExpiredDeadProcesses(systemInformation);
+
+		if (schedule.isDue(Source.Networks)) {
+			updateNetworkInterfaces(systemInformation, schedule.getElapsedUpdates(Source.Networks));
+		} else {
+			repeatNetworkInterfaces(systemInformation);
+		}
+		if (schedule.isDue(Source.Disks)) {
+			updateDisks(systemInformation, schedule.getElapsedUpdates(Source.Disks));
+		} else {
+			repeatDisks(systemInformation);
+		}
+
+		nvidiaGpuLoader.update(systemInformation, schedule.isDue(Source.Gpus));
+
+		if (numberOfUpdates > 0) {
+			updateTopLists(systemInformation);
+		}
+
+		numberOfUpdates++;
+	}
 
-		// Update the CPU usage
+	/**
+	 * Releases the resources held by the loader, called by the collector thread when it exits.
+	 */
+	public void close() {
+	}
+
+	/**
+	 * @return <code>true</code> if the source is sampled on another thread, its values are then added by the first
+	 * update after the sample finishes.
+	 */
+	protected boolean isSampledInBackground(Source source) {
+		return source == Source.Gpus;
+	}
+
+	/**
+	 * @return The time in milliseconds from the start of one update to the start of the next.
+	 */
+	public long getUpdateInterval() {
+		return (long) (1000 / Config.getFloat(Config.KEY_UPDATE_RATE));
+	}
+
+	protected void removeExpiredDeadProcesses(SystemInformation systemInformation) {
+		final int deadKeepTime = Config.getInt(Config.KEY_DEAD_PROCESS_KEEP_TIME) * 1000;
+		systemInformation.removeDeadProcessesIf(process -> System.currentTimeMillis() - process.deathTimestamp > deadKeepTime);
+	}
+
+	/**
+	 * @param elapsedUpdates The number of updates since the CPU was previously sampled.
+	 */
+	protected void updateCpuUsage(SystemInformation systemInformation, int elapsedUpdates) {
 		double[] loadPerCore;
 		if (lastCpuLoadTicksPerCore == null) {
 			loadPerCore = new double[systemInformation.cpuUsagePerCore.length];
@@ -170,33 +262,50 @@ public abstract class InformationLoader {
 
 		lastCpuLoadTicksPerCore = systemInfoLoader.getHardware().getProcessor().getProcessorCpuLoadTicks();
 		lastCpuLoadTicks = systemInfoLoader.getHardware().getProcessor().getSystemCpuLoadTicks();
+	}
 
-		final int deadKeepTime = Config.getInt(Config.KEY_DEAD_PROCESS_KEEP_TIME) * 1000;
-		systemInformation.deadProcesses.removeIf(process -> System.currentTimeMillis() - process.deathTimestamp > deadKeepTime);
-
-		updateNetworkInterfaces(systemInformation);
-		updateDisks(systemInformation);
-
-		nvidiaGpuLoader.update(systemInformation);
+	protected void repeatCpuUsage(SystemInformation systemInformation) {
+		for (Measurements<Short> coreUsage : systemInformation.cpuUsagePerCore) {
+			repeat(coreUsage);
+		}
+		repeat(systemInformation.cpuUsageTotal);
+	}
 
-		if (numberOfUpdates > 0) {
-			updateTopLists(systemInformation);
+	/**
+	 * Repeats the previous values of the processes that are still alive, for updates where they are not sampled.
+	 */
+	protected void repeatProcesses(SystemInformation systemInformation) {
+		for (Process process : systemInformation.processes) {
+			if (process.status != Status.Dead) {
+				repeat(process.cpuUsage);
+				repeat(process.cpuTime);
+				repeat(process.privateWorkingSet);
+			}
 		}
+	}
 
-		numberOfUpdates++;
+	protected static <T> void repeat(Measurements<T> measurements) {
+		measurements.addValue(measurements.newest());
 	}
 
-	private void updateNetworkInterfaces(SystemInformation systemInformation) {
+	private void updateNetworkInterfaces(SystemInformation systemInformation, int elapsedUpdates) {
 		for (int i = 0; i < networkInterfaces.size(); i++) {
 			long received = networkInterfaces.get(i).getBytesRecv();
 			long sent = networkInterfaces.get(i).getBytesSent();
 			networkInterfaces.get(i).updateAttributes();
-			systemInformation.networks[i].inRate.addValue(networkInterfaces.get(i).getBytesRecv() - received);
-			systemInformation.networks[i].outRate.addValue(networkInterfaces.get(i).getBytesSent() - sent);
+			systemInformation.networks[i].inRate.addValue((networkInterfaces.get(i).getBytesRecv() - received) / elapsedUpdates);
+			systemInformation.networks[i].outRate.addValue((networkInterfaces.get(i).getBytesSent() - sent) / elapsedUpdates);
+		}
+	}
+
+	private void repeatNetworkInterfaces(SystemInformation systemInformation) {
+		for (Network network : systemInformation.networks) {
+			repeat(network.inRate);
+			repeat(network.outRate);
 		}
 	}
 
-	private void updateDisks(SystemInformation systemInformation) {
+	private void updateDisks(SystemInformation systemInformation, int elapsedUpdates) {
 		int i = 0;
 		for (HWDiskStore disk : disks) {
 			if (disk.getPartitions().size() > 0) {
@@ -214,8 +323,8 @@ public abstract class InformationLoader {
 
 				if (diskExists) {
 					systemInformation.disks[i].activeFraction.addValue(Math.max(0, (a2 - a1) / (double) (t2 - t1)));
-					systemInformation.disks[i].writeRate.addValue(w2 - w1);
-					systemInformation.disks[i].readRate.addValue(r2 - r1);
+					systemInformation.disks[i].writeRate.addValue((w2 - w1) / elapsedUpdates);
+					systemInformation.disks[i].readRate.addValue((r2 - r1) / elapsedUpdates);
 					systemInformation.disks[i].ioQueueLength.addValue(disk.getCurrentQueueLength());
 				}
 
@@ -224,41 +333,38 @@ public abstract class InformationLoader {
 		}
 	}
 
-	private void updateTopLists(SystemInformation systemInformation) {
-		final int topListSize = Config.getInt(Config.KEY_METRIC_TOP_LIST_SIZE);
-
-		// Cpu
-		systemInformation.processes.sort((p1, p2) -> (int) (p2.cpuUsage.newest() - p1.cpuUsage.newest()));
-		TopList cpuTopList = TopList.of(p -> p.cpuUsage.newest(), systemInformation.processes, topListSize);
-		systemInformation.cpuTopList.addValue(cpuTopList);
-
-		// Memory
-		systemInformation.processes.sort((p1, p2) -> signum(p2.privateWorkingSet.newest() - p1.privateWorkingSet.newest()));
-		TopList memoryTopList = TopList.of(p -> p.privateWorkingSet.newest(), systemInformation.processes, topListSize);
-		systemInformation.memoryUsedTopList.addValue(memoryTopList);
+	private void repeatDisks(SystemInformation systemInformation) {
+		for (Disk disk : systemInformation.disks) {
+			repeat(disk.activeFraction);
+			repeat(disk.writeRate);
+			repeat(disk.readRate);
+			repeat(disk.ioQueueLength);
+		}
 	}
 
-	private static int signum(long value) {
-		if (value > 0) {
-			return 1;
-		} else if (value < 0) {
-			return -1;
-		}
-		return 0;
+	/**
+	 * Selects the top lists of all metrics registered in {@link #topListSelector} in one pass, subclasses that register
+	 * additional metrics should call this and then read their results.
+	 */
+	protected void updateTopLists(SystemInformation systemInformation) {
+		topListSelector.select(systemInformation.processes, Config.getInt(Config.KEY_METRIC_TOP_LIST_SIZE));
+		systemInformation.cpuTopList.addValue(cpuTopListMetric.result());
+		systemInformation.memoryUsedTopList.addValue(memoryTopListMetric.result());
 	}
 
-	protected void updateDeadProcesses(SystemInformation systemInformation, Set<Long> processIds) {
-		ListIterator<Process> itr = systemInformation.processes.listIterator();
-		while (itr.hasNext()) {
-			Process process = itr.next();
-			if (!processIds.contains(process.id)) {
-				if (!systemInformation.deadProcesses.contains(process)) {
-					process.status = Status.Dead;
-					process.deathTimestamp = System.currentTimeMillis();
-					systemInformation.deadProcesses.add(process);
-				} else {
-					itr.remove();
-				}
+	/**
+	 * Marks the processes that are no longer alive according to the predicate (given a PID) as dead.
+	 */
+	protected void updateDeadProcesses(SystemInformation systemInformation, LongPredicate isAlive) {
+		// Processes that died during the previous update have been visible as dead for one update, remove them now
+		systemInformation.removeProcessesIf(process -> !isAlive.test(process.id) &&
+				systemInformation.getDeadProcessByUniqueId(process.uniqueId) != null);
+
+		for (Process process : systemInformation.processes) {
+			if (!isAlive.test(process.id)) {
+				process.status = Status.Dead;
+				process.deathTimestamp = System.currentTimeMillis();
+				systemInformation.addDeadProcess(process);
 			}
 		}
 	}
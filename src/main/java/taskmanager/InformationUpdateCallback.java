@@ -11,10 +11,8 @@
 
 package taskmanager;
 
-import taskmanager.data.SystemInformation;
-
 public interface InformationUpdateCallback {
-	void update(SystemInformation systemInformation);
+	void update();
 	void dataCollectorFailed();
 	boolean hasTerminated();
 }
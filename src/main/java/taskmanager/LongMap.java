@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map with primitive long keys, avoids boxing the keys on every lookup. Null values are not
+ * allowed since they mark empty slots.
+ */
+public class LongMap<V> {
+	private static final float LOAD_FACTOR = 0.5f;
+
+	private long[] keys;
+	private Object[] values;
+	private int mask;
+	private int size;
+
+	public LongMap() {
+		this(16);
+	}
+
+	public LongMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+		keys = new long[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		int idx = indexOf(key);
+		while (values[idx] != null) {
+			if (keys[idx] == key) {
+				return (V) values[idx];
+			}
+			idx = (idx + 1) & mask;
+		}
+		return null;
+	}
+
+	public boolean containsKey(long key) {
+		return get(key) != null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value) {
+		if (value == null)
+			throw new IllegalArgumentException("Null values are not supported!");
+
+		int idx = indexOf(key);
+		while (values[idx] != null) {
+			if (keys[idx] == key) {
+				V old = (V) values[idx];
+				values[idx] = value;
+				return old;
+			}
+			idx = (idx + 1) & mask;
+		}
+
+		keys[idx] = key;
+		values[idx] = value;
+		if (++size > keys.length * LOAD_FACTOR) {
+			resize(keys.length * 2);
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V remove(long key) {
+		int idx = indexOf(key);
+		while (values[idx] != null) {
+			if (keys[idx] == key) {
+				V old = (V) values[idx];
+				removeAt(idx);
+				return old;
+			}
+			idx = (idx + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the mapping for the key only if it currently maps to the given value (compared by identity).
+	 */
+	public boolean remove(long key, V value) {
+		int idx = indexOf(key);
+		while (values[idx] != null) {
+			if (keys[idx] == key) {
+				if (values[idx] == value) {
+					removeAt(idx);
+					return true;
+				}
+				return false;
+			}
+			idx = (idx + 1) & mask;
+		}
+		return false;
+	}
+
+	public void clear() {
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	private void removeAt(int idx) {
+		values[idx] = null;
+		size--;
+
+		// Shift back the following entries in the probe sequence so that lookups never hit a premature gap
+		int gap = idx;
+		int current = (idx + 1) & mask;
+		while (values[current] != null) {
+			int home = indexOf(keys[current]);
+			if (((current - home) & mask) >= ((current - gap) & mask)) {
+				keys[gap] = keys[current];
+				values[gap] = values[current];
+				values[current] = null;
+				gap = current;
+			}
+			current = (current + 1) & mask;
+		}
+	}
+
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		keys = new long[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] != null) {
+				int idx = indexOf(oldKeys[i]);
+				while (values[idx] != null) {
+					idx = (idx + 1) & mask;
+				}
+				keys[idx] = oldKeys[i];
+				values[idx] = oldValues[i];
+			}
+		}
+	}
+
+	private int indexOf(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+package taskmanager;
+
+import java.util.Iterator;
+
+public class LongMeasurementBuffer extends MeasurementBuffer<Long> {
+	private long[] values;
+
+	public LongMeasurementBuffer(long defaultValue) {
+		super(defaultValue);
+		values = new long[capacity()];
+	}
+
+	public LongMeasurementBuffer(int size, long defaultValue) {
+		super(size, defaultValue);
+		values = new long[capacity()];
+	}
+
+	@Override
+	protected long get(int position) {
+		return values[position];
+	}
+
+	@Override
+	protected void set(int position, long value) {
+		values[position] = value;
+	}
+
+	@Override
+	protected void allocate(int newCapacity, int firstTime, int lastTime) {
+		long[] newValues = new long[newCapacity];
+		for (int t = firstTime; t < lastTime; t++) {
+			newValues[positionOf(t, newCapacity)] = values[positionOf(t, values.length)];
+		}
+		values = newValues;
+	}
+
+	@Override
+	protected void copySamples(MeasurementBuffer<Long> other, int firstTime, int lastTime) {
+		long[] otherValues = ((LongMeasurementBuffer) other).values;
+		for (int t = firstTime; t < lastTime; t++) {
+			values[positionOf(t, values.length)] = otherValues[positionOf(t, otherValues.length)];
+		}
+	}
+
+	@Override
+	public synchronized void addValue(Long value) {
+		addLong(value);
+	}
+
+	@Override
+	public Long newest() {
+		return newestAsLong();
+	}
+
+	@Override
+	public Long oldest() {
+		return oldestAsLong();
+	}
+
+	@Override
+	public Long max() {
+		return maxAsLong();
+	}
+
+	@Override
+	public Long min() {
+		return minAsLong();
+	}
+
+	@Override
+	public Long max(int startIndex, int endIndex) {
+		return maxAsLong(startIndex, endIndex);
+	}
+
+	@Override
+	public Long min(int startIndex, int endIndex) {
+		return minAsLong(startIndex, endIndex);
+	}
+
+	@Override
+	public Iterator<Long> getRangeIterator(int startIndex, int endIndex) {
+		return getLongRangeIterator(startIndex, endIndex);
+	}
+}
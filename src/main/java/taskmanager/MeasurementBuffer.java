@@ -0,0 +1,472 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager;
+
+import config.Config;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Stores measurements in a primitive circular buffer instead of a linked list of boxed values. The buffer starts small
+ * and grows up to the full size as measurements are added, so short-lived processes don't pay for a full history.
+ */
+public abstract class MeasurementBuffer<T> implements Measurements<T>, PrimitiveMeasurements, RangeSums {
+	private static final int INITIAL_CAPACITY = 16;
+	private static final int MIN_TREE_QUERY_LENGTH = 64;
+
+	protected final int size;
+	protected final long defaultValue;
+
+	private int capacity;
+	private int time;
+
+	// Monotone queues with the times of the samples that can still become the max/min, created on the first query
+	private TimeQueue maxQueue;
+	private TimeQueue minQueue;
+
+	// Cumulative sums of all samples up to and including the time at the same position, created on the first sum query
+	private long[] sums;
+
+	// Segment trees over the positions for max/min queries of long ranges, created on the first such query
+	private long[] maxTree;
+	private long[] minTree;
+
+	protected MeasurementBuffer(long defaultValue) {
+		this((int) (Config.getInt(Config.KEY_MAXIMUM_MEASURMENT_BUFFER_SIZE) * Config.getFloat(Config.KEY_UPDATE_RATE)), defaultValue);
+	}
+
+	protected MeasurementBuffer(int size, long defaultValue) {
+		this.size = size;
+		this.defaultValue = defaultValue;
+		this.capacity = Math.min(size, INITIAL_CAPACITY);
+	}
+
+	protected abstract long get(int position);
+	protected abstract void set(int position, long value);
+
+	/**
+	 * Replaces the backing array with a larger one, keeping the samples with the times [firstTime, lastTime).
+	 */
+	protected abstract void allocate(int newCapacity, int firstTime, int lastTime);
+
+	/**
+	 * Copies the samples with the times [firstTime, lastTime) from the other buffer.
+	 */
+	protected abstract void copySamples(MeasurementBuffer<T> other, int firstTime, int lastTime);
+
+	protected static int positionOf(int time, int capacity) {
+		return time % capacity;
+	}
+
+	protected int capacity() {
+		return capacity;
+	}
+
+	@SuppressWarnings("unchecked")
+	private MeasurementBuffer<T> checkCompatible(Measurements<T> otherRaw) {
+		if (otherRaw == null || otherRaw.getClass() != getClass())
+			throw new IllegalArgumentException("Argument must be a " + getClass().getSimpleName() + "!");
+
+		if (otherRaw.size() != size())
+			throw new IllegalArgumentException("Sizes must be equal!");
+
+		return (MeasurementBuffer<T>) otherRaw;
+	}
+
+	@Override
+	public synchronized void copyFrom(Measurements<T> otherRaw) {
+		MeasurementBuffer<T> other = checkCompatible(otherRaw);
+		synchronized (other) {
+			ensureCapacity(other.capacity);
+			int first = Math.max(0, other.time - Math.min(size, other.capacity));
+			copySamples(other, first, other.time);
+			time = other.time;
+
+			maxQueue = null;
+			minQueue = null;
+			sums = null;
+			maxTree = null;
+			minTree = null;
+		}
+	}
+
+	@Override
+	public synchronized void copyDelta(Measurements<T> otherRaw) {
+		MeasurementBuffer<T> other = checkCompatible(otherRaw);
+		synchronized (other) {
+			if (other.time < time || other.time - time >= size) {
+				copyFrom(other);
+				return;
+			}
+
+			ensureCapacity(other.capacity);
+			copySamples(other, time, other.time);
+			for (int t = time; t < other.time; t++) {
+				enqueue(t);
+			}
+			time = other.time;
+			prune();
+		}
+	}
+
+	protected void addLong(long value) {
+		if (time == capacity && capacity < size) {
+			ensureCapacity(Math.min(size, capacity * 2));
+		}
+		set(positionOf(time, capacity), value);
+		enqueue(time);
+		time += 1;
+		prune();
+	}
+
+	private void enqueue(int t) {
+		long value = get(positionOf(t, capacity));
+		if (sums != null) {
+			long previous = (t == 0) ? 0 : sums[positionOf(t - 1, capacity)];
+			sums[positionOf(t, capacity)] = previous + value;
+		}
+		if (maxTree != null) {
+			updateTree(maxTree, positionOf(t, capacity), value, 1);
+		}
+		if (minTree != null) {
+			updateTree(minTree, positionOf(t, capacity), value, -1);
+		}
+		if (maxQueue != null) {
+			while (!maxQueue.isEmpty() && get(positionOf(maxQueue.peekLast(), capacity)) <= value) {
+				maxQueue.pollLast();
+			}
+			maxQueue.addLast(t);
+		}
+		if (minQueue != null) {
+			while (!minQueue.isEmpty() && get(positionOf(minQueue.peekLast(), capacity)) >= value) {
+				minQueue.pollLast();
+			}
+			minQueue.addLast(t);
+		}
+	}
+
+	private void prune() {
+		int oldestTime = time - size;
+		while (maxQueue != null && !maxQueue.isEmpty() && maxQueue.peekFirst() < oldestTime) {
+			maxQueue.pollFirst();
+		}
+		while (minQueue != null && !minQueue.isEmpty() && minQueue.peekFirst() < oldestTime) {
+			minQueue.pollFirst();
+		}
+	}
+
+	private void ensureCapacity(int newCapacity) {
+		if (newCapacity > capacity) {
+			int first = Math.max(0, time - capacity);
+			allocate(newCapacity, first, time);
+			capacity = newCapacity;
+			sums = null;
+			maxTree = null;
+			minTree = null;
+		}
+	}
+
+	/**
+	 * @return The value at the given index, where 0 is the oldest and size() - 1 the newest measurement.
+	 */
+	protected long valueAt(int index) {
+		int t = time - size + index;
+		if (t < 0 || t < time - capacity) {
+			return defaultValue;
+		}
+		return get(positionOf(t, capacity));
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public synchronized int realSize() {
+		return Math.min(time, capacity);
+	}
+
+	@Override
+	public synchronized long newestAsLong() {
+		return valueAt(size - 1);
+	}
+
+	@Override
+	public synchronized long oldestAsLong() {
+		return valueAt(0);
+	}
+
+	@Override
+	public synchronized long maxAsLong() {
+		return extremeInRange(0, size - 1, 1);
+	}
+
+	@Override
+	public synchronized long minAsLong() {
+		return extremeInRange(0, size - 1, -1);
+	}
+
+	@Override
+	public synchronized long maxAsLong(int startIndex, int endIndex) {
+		return extremeInRange(startIndex, endIndex, 1);
+	}
+
+	@Override
+	public synchronized long minAsLong(int startIndex, int endIndex) {
+		return extremeInRange(startIndex, endIndex, -1);
+	}
+
+	private long extremeInRange(int startIndex, int endIndex, int sign) {
+		if (startIndex < 0 || startIndex >= size || endIndex < startIndex || endIndex >= size)
+			throw new IllegalArgumentException("Indices out of range: [" + startIndex + ", " + endIndex + "], size: " + size);
+
+		int startTime = time - size + startIndex;
+		int endTime = time - size + endIndex;
+		boolean includesDefault = startTime < 0;
+
+		long result = includesDefault ? defaultValue : (sign > 0 ? Long.MIN_VALUE : Long.MAX_VALUE);
+		if (endTime == time - 1) {
+			// Ranges ending at the newest value can use the monotone queue, the first sample inside the range
+			TimeQueue queue = (sign > 0) ? maxQueue() : minQueue();
+			for (int i = 0; i < queue.size(); i++) {
+				int t = queue.get(i);
+				if (t >= startTime) {
+					long value = get(positionOf(t, capacity));
+					return (sign > 0) ? Math.max(result, value) : Math.min(result, value);
+				}
+			}
+			return result;
+		}
+
+		startTime = Math.max(0, startTime);
+		if (endTime - startTime + 1 >= MIN_TREE_QUERY_LENGTH) {
+			long[] tree = (sign > 0) ? maxTree() : minTree();
+			int startPosition = positionOf(startTime, capacity);
+			int endPosition = positionOf(endTime, capacity);
+			if (startPosition <= endPosition) {
+				return extreme(result, queryTree(tree, startPosition, endPosition, sign), sign);
+			}
+			result = extreme(result, queryTree(tree, startPosition, capacity - 1, sign), sign);
+			return extreme(result, queryTree(tree, 0, endPosition, sign), sign);
+		}
+
+		for (int t = startTime; t <= endTime; t++) {
+			result = extreme(result, get(positionOf(t, capacity)), sign);
+		}
+		return result;
+	}
+
+	private static long extreme(long a, long b, int sign) {
+		return (sign > 0) ? Math.max(a, b) : Math.min(a, b);
+	}
+
+	private long[] maxTree() {
+		if (maxTree == null) {
+			maxTree = buildTree(1);
+		}
+		return maxTree;
+	}
+
+	private long[] minTree() {
+		if (minTree == null) {
+			minTree = buildTree(-1);
+		}
+		return minTree;
+	}
+
+	/**
+	 * Builds a bottom-up segment tree with the leaves for the positions at [capacity, 2 * capacity).
+	 */
+	private long[] buildTree(int sign) {
+		long[] tree = new long[2 * capacity];
+		for (int position = 0; position < capacity; position++) {
+			tree[capacity + position] = get(position);
+		}
+		for (int i = capacity - 1; i > 0; i--) {
+			tree[i] = extreme(tree[2 * i], tree[2 * i + 1], sign);
+		}
+		return tree;
+	}
+
+	private void updateTree(long[] tree, int position, long value, int sign) {
+		int i = capacity + position;
+		tree[i] = value;
+		for (i /= 2; i > 0; i /= 2) {
+			tree[i] = extreme(tree[2 * i], tree[2 * i + 1], sign);
+		}
+	}
+
+	private long queryTree(long[] tree, int startPosition, int endPosition, int sign) {
+		long result = (sign > 0) ? Long.MIN_VALUE : Long.MAX_VALUE;
+		for (int l = startPosition + capacity, r = endPosition + capacity + 1; l < r; l /= 2, r /= 2) {
+			if ((l & 1) == 1) {
+				result = extreme(result, tree[l++], sign);
+			}
+			if ((r & 1) == 1) {
+				result = extreme(result, tree[--r], sign);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public synchronized long sumAsLong(int startIndex, int endIndex) {
+		if (startIndex < 0 || startIndex >= size || endIndex < startIndex || endIndex >= size)
+			throw new IllegalArgumentException("Indices out of range: [" + startIndex + ", " + endIndex + "], size: " + size);
+
+		int startTime = time - size + startIndex;
+		int endTime = time - size + endIndex;
+
+		long result = 0;
+		if (startTime < 0) {
+			result += defaultValue * (Math.min(endTime, -1) - startTime + 1);
+			startTime = 0;
+		}
+		if (startTime <= endTime) {
+			long[] sums = sums();
+			result += sums[positionOf(endTime, capacity)];
+			if (startTime > 0 && startTime > time - capacity) {
+				result -= sums[positionOf(startTime - 1, capacity)];
+			} else if (startTime > 0) {
+				// The cumulative sum before the oldest stored sample has been overwritten, derive it from the sample
+				result -= sums[positionOf(startTime, capacity)] - get(positionOf(startTime, capacity));
+			}
+		}
+		return result;
+	}
+
+	private long[] sums() {
+		if (sums == null) {
+			// The samples before the oldest stored one are unknown, but only differences of cumulative sums are used
+			sums = new long[capacity];
+			long sum = 0;
+			for (int t = Math.max(0, time - capacity); t < time; t++) {
+				sum += get(positionOf(t, capacity));
+				sums[positionOf(t, capacity)] = sum;
+			}
+		}
+		return sums;
+	}
+
+	private TimeQueue maxQueue() {
+		if (maxQueue == null) {
+			maxQueue = new TimeQueue();
+			rebuild(maxQueue, 1);
+		}
+		return maxQueue;
+	}
+
+	private TimeQueue minQueue() {
+		if (minQueue == null) {
+			minQueue = new TimeQueue();
+			rebuild(minQueue, -1);
+		}
+		return minQueue;
+	}
+
+	private void rebuild(TimeQueue queue, int sign) {
+		for (int t = Math.max(0, time - size); t < time; t++) {
+			long value = get(positionOf(t, capacity));
+			while (!queue.isEmpty() && sign * Long.compare(get(positionOf(queue.peekLast(), capacity)), value) <= 0) {
+				queue.pollLast();
+			}
+			queue.addLast(t);
+		}
+	}
+
+	@Override
+	public PrimitiveIterator.OfLong getLongRangeIterator(int startIndex, int endIndex) {
+		if (startIndex < 0 || startIndex >= size || endIndex < startIndex || endIndex >= size)
+			throw new IllegalArgumentException("Indices out of range: [" + startIndex + ", " + endIndex + "], size: " + size);
+		return new LongIterator(startIndex, endIndex);
+	}
+
+
+	private class LongIterator implements PrimitiveIterator.OfLong {
+		private final int end;
+		private int index;
+
+		LongIterator(int start, int end) {
+			this.end = end;
+			this.index = start;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index <= end;
+		}
+
+		@Override
+		public long nextLong() {
+			if (!hasNext())
+				throw new NoSuchElementException("The iterator is empty!");
+
+			long value;
+			synchronized (MeasurementBuffer.this) {
+				value = valueAt(index);
+			}
+			index += 1;
+			return value;
+		}
+	}
+
+
+	private static class TimeQueue {
+		private int[] times = new int[8];
+		private int head;
+		private int count;
+
+		boolean isEmpty() {
+			return count == 0;
+		}
+
+		int size() {
+			return count;
+		}
+
+		int get(int i) {
+			return times[(head + i) & (times.length - 1)];
+		}
+
+		int peekFirst() {
+			return times[head];
+		}
+
+		int peekLast() {
+			return get(count - 1);
+		}
+
+		void pollFirst() {
+			head = (head + 1) & (times.length - 1);
+			count--;
+		}
+
+		void pollLast() {
+			count--;
+		}
+
+		void addLast(int t) {
+			if (count == times.length) {
+				int[] newTimes = new int[times.length * 2];
+				for (int i = 0; i < count; i++) {
+					newTimes[i] = get(i);
+				}
+				times = newTimes;
+				head = 0;
+			}
+			times[(head + count) & (times.length - 1)] = t;
+			count++;
+		}
+	}
+}
@@ -13,9 +13,10 @@ package taskmanager;
 
 import config.Config;
 
+import java.util.ArrayDeque;
 import java.util.Iterator;
 
-public class MeasurementContainer<T extends Comparable<T>> implements Measurements<T> {
+public class MeasurementContainer<T extends Comparable<T>> implements Measurements<T>, RangeSums {
 	private int size;
 	private T defaultValue;
 
@@ -24,6 +25,17 @@ public class MeasurementContainer<T extends Comparable<T>> implements Measuremen
 
 	private int time;
 
+	// Monotone queues of the points that can still become the max/min, created on the first max/min query
+	private ArrayDeque<Point> maxQueue;
+	private ArrayDeque<Point> minQueue;
+
+	/* Range index: the points by their sequence number in a circular array, so that the point at any time is found
+	 * with a binary search, and segment trees over the positions for max/min queries. Created on the first range
+	 * query and then kept up to date as points are added. */
+	private Object[] points;
+	private Object[] maxTree;
+	private Object[] minTree;
+
 	public MeasurementContainer(T defaultValue) {
 		this((int) (Config.getInt(Config.KEY_MAXIMUM_MEASURMENT_BUFFER_SIZE) * Config.getFloat(Config.KEY_UPDATE_RATE)), defaultValue);
 	}
@@ -57,6 +69,12 @@ public class MeasurementContainer<T extends Comparable<T>> implements Measuremen
 		}
 		newest = lastPoint;
 		time = other.time;
+
+		maxQueue = null;
+		minQueue = null;
+		points = null;
+		maxTree = null;
+		minTree = null;
 	}
 
 	@Override
@@ -87,6 +105,12 @@ public class MeasurementContainer<T extends Comparable<T>> implements Measuremen
 		if (otherCurrent == null) {
 			oldest = current;
 			newest = newNewest;
+
+			maxQueue = null;
+			minQueue = null;
+			points = null;
+			maxTree = null;
+			minTree = null;
 		} else {
 			newest.count = otherCurrent.count;
 			newest.next = current;
@@ -94,7 +118,12 @@ public class MeasurementContainer<T extends Comparable<T>> implements Measuremen
 				current.previous = newest;
 			}
 
+			for (Point point = current; point != null; point = point.next) {
+				enqueue(point);
+			}
+
 			while (oldest.constructionTime != other.oldest.constructionTime) {
+				dequeue(oldest);
 				oldest = oldest.next;
 			}
 			oldest.previous = null;
@@ -115,9 +144,12 @@ public class MeasurementContainer<T extends Comparable<T>> implements Measuremen
 		} else {
 			Point newPoint = new Point(value, time);
 			newPoint.count = 1;
+			newPoint.sequence = previous.sequence + 1;
+			newPoint.sumBefore = previous.sumBefore + longValueOf(previous.value) * previous.count;
 			newest.next = newPoint;
 			newPoint.previous = newest;
 			newest = newPoint;
+			enqueue(newPoint);
 		}
 
 		time += 1;
@@ -126,12 +158,54 @@ public class MeasurementContainer<T extends Comparable<T>> implements Measuremen
 	}
 
 	private void pruneSingle() {
-		if (time - (oldest.constructionTime + oldest.count) > size) {
+		if (time - (oldest.constructionTime + oldest.count) >= size) {
+			dequeue(oldest);
 			oldest = oldest.next;
 			oldest.previous = null;
 		}
 	}
 
+	private void enqueue(Point point) {
+		if (points != null) {
+			if (point.sequence - oldest.sequence >= points.length) {
+				// Rebuilt with a larger capacity by the next range query
+				points = null;
+				maxTree = null;
+				minTree = null;
+			} else {
+				int position = point.sequence & (points.length - 1);
+				points[position] = point;
+				if (maxTree != null) {
+					updateTree(maxTree, position, point.value, 1);
+				}
+				if (minTree != null) {
+					updateTree(minTree, position, point.value, -1);
+				}
+			}
+		}
+		if (maxQueue != null) {
+			while (!maxQueue.isEmpty() && maxQueue.peekLast().value.compareTo(point.value) <= 0) {
+				maxQueue.pollLast();
+			}
+			maxQueue.addLast(point);
+		}
+		if (minQueue != null) {
+			while (!minQueue.isEmpty() && minQueue.peekLast().value.compareTo(point.value) >= 0) {
+				minQueue.pollLast();
+			}
+			minQueue.addLast(point);
+		}
+	}
+
+	private void dequeue(Point point) {
+		if (maxQueue != null && maxQueue.peekFirst() == point) {
+			maxQueue.pollFirst();
+		}
+		if (minQueue != null && minQueue.peekFirst() == point) {
+			minQueue.pollFirst();
+		}
+	}
+
 	@Override
 	public int size() {
 		return size;
@@ -159,33 +233,210 @@ public class MeasurementContainer<T extends Comparable<T>> implements Measuremen
 	}
 
 	@Override
-	public synchronized T max() { // TODO inefficient, use a monotone queue/heap
-		T max = oldest.value;
-		Point current = oldest.next;
-		while (current != null) {
-			if (max.compareTo(current.value) < 0) {
-				max = current.value;
+	public synchronized T max() {
+		return maxQueue().peekFirst().value;
+	}
+
+	@Override
+	public synchronized T min() {
+		return minQueue().peekFirst().value;
+	}
+
+	private ArrayDeque<Point> maxQueue() {
+		if (maxQueue == null) {
+			maxQueue = buildQueue(1);
+		}
+		return maxQueue;
+	}
+
+	private ArrayDeque<Point> minQueue() {
+		if (minQueue == null) {
+			minQueue = buildQueue(-1);
+		}
+		return minQueue;
+	}
+
+	private ArrayDeque<Point> buildQueue(int sign) {
+		ArrayDeque<Point> queue = new ArrayDeque<>();
+		for (Point current = oldest; current != null; current = current.next) {
+			while (!queue.isEmpty() && sign * queue.peekLast().value.compareTo(current.value) <= 0) {
+				queue.pollLast();
 			}
-			current = current.next;
+			queue.addLast(current);
 		}
-		return max;
+		return queue;
 	}
 
 	@Override
-	public synchronized T min() { // TODO inefficient, use a monotone queue/heap
-		T min = oldest.value;
-		Point current = oldest.next;
-		while (current != null) {
-			if (min.compareTo(current.value) > 0) {
-				min = current.value;
+	public synchronized T max(int startIndex, int endIndex) {
+		return extremeInRange(startIndex, endIndex, 1);
+	}
+
+	@Override
+	public synchronized T min(int startIndex, int endIndex) {
+		return extremeInRange(startIndex, endIndex, -1);
+	}
+
+	private T extremeInRange(int startIndex, int endIndex, int sign) {
+		if (startIndex < 0 || startIndex >= size || endIndex < startIndex || endIndex >= size)
+			throw new IllegalArgumentException("Indices out of range: [" + startIndex + ", " + endIndex + "], size: " + size);
+
+		if (endIndex == size - 1) {
+			// Ranges ending at the newest value can use the monotone queue, the first point that overlaps the range
+			for (Point point : (sign > 0) ? maxQueue() : minQueue()) {
+				if (endIndexOf(point) >= startIndex) {
+					return point.value;
+				}
 			}
-			current = current.next;
 		}
-		return min;
+
+		Point first = pointAt(timeOf(startIndex));
+		Point last = pointAt(timeOf(endIndex));
+		if (first == last) {
+			return first.value;
+		}
+
+		Object[] tree = (sign > 0) ? maxTree() : minTree();
+		int mask = points.length - 1;
+		int startPosition = first.sequence & mask;
+		int endPosition = last.sequence & mask;
+		if (startPosition <= endPosition) {
+			return queryTree(tree, startPosition, endPosition, sign);
+		}
+		return extreme(queryTree(tree, startPosition, mask, sign), queryTree(tree, 0, endPosition, sign), sign);
+	}
+
+	private int timeOf(int index) {
+		return time - size + index;
+	}
+
+	/**
+	 * @return The point that holds the measurement at the given time.
+	 */
+	private Point pointAt(int t) {
+		int mask = points().length - 1;
+		int low = 0;
+		int high = newest.sequence - oldest.sequence;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (pointAtPosition((oldest.sequence + middle) & mask).constructionTime <= t) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return pointAtPosition((oldest.sequence + low) & mask);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Point pointAtPosition(int position) {
+		return (Point) points[position];
+	}
+
+	private Object[] points() {
+		if (points == null) {
+			int capacity = 16;
+			while (capacity < 2 * (newest.sequence - oldest.sequence + 1)) {
+				capacity *= 2;
+			}
+			points = new Object[capacity];
+			for (Point current = oldest; current != null; current = current.next) {
+				points[current.sequence & (capacity - 1)] = current;
+			}
+		}
+		return points;
+	}
+
+	private Object[] maxTree() {
+		if (maxTree == null) {
+			maxTree = buildTree(1);
+		}
+		return maxTree;
+	}
+
+	private Object[] minTree() {
+		if (minTree == null) {
+			minTree = buildTree(-1);
+		}
+		return minTree;
+	}
+
+	/**
+	 * Builds a bottom-up segment tree with the leaves for the positions at [capacity, 2 * capacity), positions without
+	 * a point are null.
+	 */
+	private Object[] buildTree(int sign) {
+		int capacity = points().length;
+		Object[] tree = new Object[2 * capacity];
+		for (int position = 0; position < capacity; position++) {
+			Point point = pointAtPosition(position);
+			tree[capacity + position] = (point != null) ? point.value : null;
+		}
+		for (int i = capacity - 1; i > 0; i--) {
+			tree[i] = extreme(tree[2 * i], tree[2 * i + 1], sign);
+		}
+		return tree;
+	}
+
+	private void updateTree(Object[] tree, int position, T value, int sign) {
+		int i = points.length + position;
+		tree[i] = value;
+		for (i /= 2; i > 0; i /= 2) {
+			tree[i] = extreme(tree[2 * i], tree[2 * i + 1], sign);
+		}
+	}
+
+	private T queryTree(Object[] tree, int startPosition, int endPosition, int sign) {
+		T result = null;
+		for (int l = startPosition + points.length, r = endPosition + points.length + 1; l < r; l /= 2, r /= 2) {
+			if ((l & 1) == 1) {
+				result = extreme(result, tree[l++], sign);
+			}
+			if ((r & 1) == 1) {
+				result = extreme(result, tree[--r], sign);
+			}
+		}
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	private T extreme(Object a, Object b, int sign) {
+		if (a == null || b == null) {
+			return (T) ((a == null) ? b : a);
+		}
+		return (sign * ((T) a).compareTo((T) b) >= 0) ? (T) a : (T) b;
+	}
+
+	@Override
+	public synchronized long sumAsLong(int startIndex, int endIndex) {
+		if (startIndex < 0 || startIndex >= size || endIndex < startIndex || endIndex >= size)
+			throw new IllegalArgumentException("Indices out of range: [" + startIndex + ", " + endIndex + "], size: " + size);
+		return sumBefore(timeOf(endIndex) + 1) - sumBefore(timeOf(startIndex));
+	}
+
+	/**
+	 * @return The sum of the measurements before the given time, counted from an arbitrary point.
+	 */
+	private long sumBefore(int t) {
+		Point point = pointAt(Math.min(t, time - 1));
+		return point.sumBefore + (long) (t - point.constructionTime) * longValueOf(point.value);
+	}
+
+	@Override
+	public boolean hasRangeSums() {
+		return defaultValue instanceof Long || defaultValue instanceof Integer || defaultValue instanceof Short;
+	}
+
+	private static long longValueOf(Object value) {
+		return (value instanceof Number) ? ((Number) value).longValue() : 0;
+	}
+
+	private int endIndexOf(Point point) {
+		return size - (time - point.constructionTime) + point.count - 1;
 	}
 
 	@Override
-	public Iterator<T> getRangeIterator(int startIndex, int endIndex) {
+	public synchronized Iterator<T> getRangeIterator(int startIndex, int endIndex) {
 		if (startIndex < 0 || startIndex >= size || endIndex < startIndex || endIndex >= size)
 			throw new IllegalArgumentException("Indices out of range: [" + startIndex + ", " + endIndex + "], size: " + size);
 		return new DataIterator(startIndex, endIndex);
@@ -193,34 +444,19 @@ public class MeasurementContainer<T extends Comparable<T>> implements Measuremen
 
 
 	private class DataIterator implements Iterator<T> {
-		private Point lastPoint;
-		private int start;
-		private int end;
-		private int index;
+		private final int endTime;
+		private int nextTime;
+		private Point point;
 
 		public DataIterator(int start, int end) {
-			this.start = start;
-			this.end = end;
-			index = 0;
-
-			if (isBefore(oldest)) {
-				lastPoint = new Point(defaultValue, time - size);
-				lastPoint.count = oldest.constructionTime - lastPoint.constructionTime;
-			} else {
-				Point current = oldest;
-				while (current != null) {
-					if (!isAfter(current)) {
-						lastPoint = current;
-						break;
-					}
-					current = current.next;
-				}
-			}
+			nextTime = timeOf(start);
+			endTime = timeOf(end);
+			point = pointAt(nextTime);
 		}
 
 		@Override
 		public boolean hasNext() {
-			return start + index <= end;
+			return nextTime <= endTime;
 		}
 
 		@Override
@@ -231,24 +467,16 @@ public class MeasurementContainer<T extends Comparable<T>> implements Measuremen
 			T dataPoint;
 
 			synchronized (MeasurementContainer.this) {
-				if (isAfter(lastPoint)) {
-					lastPoint = lastPoint.next;
+				while (nextTime >= point.constructionTime + point.count && point.next != null) {
+					point = point.next;
 				}
 
-				dataPoint = lastPoint.value;
+				dataPoint = point.value;
 			}
 
-			index +=1;
+			nextTime += 1;
 			return dataPoint;
 		}
-
-		private boolean isBefore(Point point) {
-			return start + index < size - (time - point.constructionTime);
-		}
-
-		private boolean isAfter(Point point) {
-			return start + index >= size - (time - point.constructionTime) + point.count;
-		}
 	}
 
 
@@ -256,6 +484,8 @@ public class MeasurementContainer<T extends Comparable<T>> implements Measuremen
 		private final T value;
 		private final int constructionTime;
 		private int count;
+		private int sequence; // Increases by one for every point, the initial point is 0
+		private long sumBefore; // Sum of the measurements in all points before this one, for numerical values
 
 		private Point next;
 		private Point previous;
@@ -269,6 +499,8 @@ public class MeasurementContainer<T extends Comparable<T>> implements Measuremen
 			this.value = other.value;
 			this.constructionTime = other.constructionTime;
 			this.count = other.count;
+			this.sequence = other.sequence;
+			this.sumBefore = other.sumBefore;
 		}
 	}
 }
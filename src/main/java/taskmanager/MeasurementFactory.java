@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+package taskmanager;
+
+import config.Config;
+
+/**
+ * Creates the measurement storages used by the data classes. The linked container compresses runs of equal values
+ * (good for idle processes), the primitive buffers store every sample without boxing (good for noisy measurements).
+ */
+public class MeasurementFactory {
+	public static final String STORAGE_CONTAINER = "container";
+	public static final String STORAGE_BUFFER = "buffer";
+
+	public static Measurements<Long> createLong(long defaultValue) {
+		if (useBuffers()) {
+			return new LongMeasurementBuffer(defaultValue);
+		}
+		return new MeasurementContainer<>(defaultValue);
+	}
+
+	/**
+	 * Creates a storage for a long history, which keeps older measurements at a lower resolution if tiered history
+	 * is enabled.
+	 */
+	public static Measurements<Long> createLongHistory(long defaultValue) {
+		if (Config.getBoolean(Config.KEY_TIERED_PROCESS_HISTORY)) {
+			return new TieredMeasurements(defaultValue);
+		}
+		return createLong(defaultValue);
+	}
+
+	public static Measurements<Short> createShort(short defaultValue) {
+		if (useBuffers()) {
+			return new ShortMeasurementBuffer(defaultValue);
+		}
+		return new MeasurementContainer<>(defaultValue);
+	}
+
+	public static <T extends Comparable<T>> Measurements<T> create(T defaultValue) {
+		return new MeasurementContainer<>(defaultValue);
+	}
+
+	/**
+	 * Wraps a storage so that copying into it shares the copied storage instead of its values, see
+	 * {@link SharedMeasurements}.
+	 */
+	public static <T> Measurements<T> share(Measurements<T> measurements) {
+		return new SharedMeasurements<>(measurements);
+	}
+
+	/**
+	 * Creates an empty array of storages, e.g. for one storage per core.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public static <T> Measurements<T>[] createArray(int length) {
+		return new Measurements[length];
+	}
+
+	private static boolean useBuffers() {
+		return STORAGE_BUFFER.equals(Config.get(Config.KEY_MEASUREMENT_STORAGE));
+	}
+}
@@ -23,6 +23,8 @@ public interface Measurements<T> {
 	T oldest();
 	T max();
 	T min();
+	T max(int startIndex, int endIndex);
+	T min(int startIndex, int endIndex);
 
 	Iterator<T> getRangeIterator(int startIndex, int endIndex);
 	int size();
@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager;
+
+import java.util.PrimitiveIterator;
+
+/**
+ * Implemented by measurement storages that can expose their values without boxing.
+ */
+public interface PrimitiveMeasurements {
+	long newestAsLong();
+	long oldestAsLong();
+	long maxAsLong();
+	long minAsLong();
+	long maxAsLong(int startIndex, int endIndex);
+	long minAsLong(int startIndex, int endIndex);
+
+	PrimitiveIterator.OfLong getLongRangeIterator(int startIndex, int endIndex);
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+
+package taskmanager;
+
+/**
+ * Implemented by measurement storages that can sum any range of their values without visiting them, using cumulative
+ * sums kept next to the values.
+ */
+public interface RangeSums {
+	/**
+	 * @return The sum of the values with the indices [startIndex, endIndex], where 0 is the oldest measurement.
+	 */
+	long sumAsLong(int startIndex, int endIndex);
+
+	/**
+	 * Wrappers around other storages can implement this interface and report here whether the wrapped storage does.
+	 */
+	default boolean hasRangeSums() {
+		return true;
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager;
+
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+
+/**
+ * Reads the values of another storage instead of keeping its own. Copying into it only points it to the copied
+ * storage, so a view of the published snapshots keeps the same measurement objects while it moves from snapshot to
+ * snapshot, without copying any values. The shared storage must not change while it is read.
+ */
+public class SharedMeasurements<T> implements Measurements<T>, PrimitiveMeasurements, RangeSums {
+	private Measurements<T> shared;
+
+	public SharedMeasurements(Measurements<T> shared) {
+		this.shared = unwrap(shared);
+	}
+
+	/**
+	 * @return The storage that is read if the given measurements are shared, otherwise the given measurements.
+	 */
+	public static <T> Measurements<T> unwrap(Measurements<T> measurements) {
+		if (measurements instanceof SharedMeasurements) {
+			return ((SharedMeasurements<T>) measurements).shared;
+		}
+		return measurements;
+	}
+
+	@Override
+	public void copyFrom(Measurements<T> other) {
+		shared = unwrap(other);
+	}
+
+	@Override
+	public void copyDelta(Measurements<T> other) {
+		shared = unwrap(other);
+	}
+
+	@Override
+	public void addValue(T value) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public T newest() {
+		return shared.newest();
+	}
+
+	@Override
+	public T oldest() {
+		return shared.oldest();
+	}
+
+	@Override
+	public T max() {
+		return shared.max();
+	}
+
+	@Override
+	public T min() {
+		return shared.min();
+	}
+
+	@Override
+	public T max(int startIndex, int endIndex) {
+		return shared.max(startIndex, endIndex);
+	}
+
+	@Override
+	public T min(int startIndex, int endIndex) {
+		return shared.min(startIndex, endIndex);
+	}
+
+	@Override
+	public Iterator<T> getRangeIterator(int startIndex, int endIndex) {
+		return shared.getRangeIterator(startIndex, endIndex);
+	}
+
+	@Override
+	public int size() {
+		return shared.size();
+	}
+
+	@Override
+	public int realSize() {
+		return shared.realSize();
+	}
+
+	/* The numeric views below fall back to unboxing when the shared storage is not primitive */
+
+	@Override
+	public long newestAsLong() {
+		if (shared instanceof PrimitiveMeasurements) {
+			return ((PrimitiveMeasurements) shared).newestAsLong();
+		}
+		return ((Number) shared.newest()).longValue();
+	}
+
+	@Override
+	public long oldestAsLong() {
+		if (shared instanceof PrimitiveMeasurements) {
+			return ((PrimitiveMeasurements) shared).oldestAsLong();
+		}
+		return ((Number) shared.oldest()).longValue();
+	}
+
+	@Override
+	public long maxAsLong() {
+		if (shared instanceof PrimitiveMeasurements) {
+			return ((PrimitiveMeasurements) shared).maxAsLong();
+		}
+		return ((Number) shared.max()).longValue();
+	}
+
+	@Override
+	public long minAsLong() {
+		if (shared instanceof PrimitiveMeasurements) {
+			return ((PrimitiveMeasurements) shared).minAsLong();
+		}
+		return ((Number) shared.min()).longValue();
+	}
+
+	@Override
+	public long maxAsLong(int startIndex, int endIndex) {
+		if (shared instanceof PrimitiveMeasurements) {
+			return ((PrimitiveMeasurements) shared).maxAsLong(startIndex, endIndex);
+		}
+		return ((Number) shared.max(startIndex, endIndex)).longValue();
+	}
+
+	@Override
+	public long minAsLong(int startIndex, int endIndex) {
+		if (shared instanceof PrimitiveMeasurements) {
+			return ((PrimitiveMeasurements) shared).minAsLong(startIndex, endIndex);
+		}
+		return ((Number) shared.min(startIndex, endIndex)).longValue();
+	}
+
+	@Override
+	public PrimitiveIterator.OfLong getLongRangeIterator(int startIndex, int endIndex) {
+		if (shared instanceof PrimitiveMeasurements) {
+			return ((PrimitiveMeasurements) shared).getLongRangeIterator(startIndex, endIndex);
+		}
+		return new UnboxingIterator(shared.getRangeIterator(startIndex, endIndex));
+	}
+
+	@Override
+	public long sumAsLong(int startIndex, int endIndex) {
+		return ((RangeSums) shared).sumAsLong(startIndex, endIndex);
+	}
+
+	@Override
+	public boolean hasRangeSums() {
+		return shared instanceof RangeSums && ((RangeSums) shared).hasRangeSums();
+	}
+
+	private static class UnboxingIterator implements PrimitiveIterator.OfLong {
+		private final Iterator<?> sourceIterator;
+
+		UnboxingIterator(Iterator<?> sourceIterator) {
+			this.sourceIterator = sourceIterator;
+		}
+
+		@Override
+		public long nextLong() {
+			return ((Number) sourceIterator.next()).longValue();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return sourceIterator.hasNext();
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+package taskmanager;
+
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+
+public class ShortMeasurementBuffer extends MeasurementBuffer<Short> {
+	private short[] values;
+
+	public ShortMeasurementBuffer(short defaultValue) {
+		super(defaultValue);
+		values = new short[capacity()];
+	}
+
+	public ShortMeasurementBuffer(int size, short defaultValue) {
+		super(size, defaultValue);
+		values = new short[capacity()];
+	}
+
+	@Override
+	protected long get(int position) {
+		return values[position];
+	}
+
+	@Override
+	protected void set(int position, long value) {
+		values[position] = (short) value;
+	}
+
+	@Override
+	protected void allocate(int newCapacity, int firstTime, int lastTime) {
+		short[] newValues = new short[newCapacity];
+		for (int t = firstTime; t < lastTime; t++) {
+			newValues[positionOf(t, newCapacity)] = values[positionOf(t, values.length)];
+		}
+		values = newValues;
+	}
+
+	@Override
+	protected void copySamples(MeasurementBuffer<Short> other, int firstTime, int lastTime) {
+		short[] otherValues = ((ShortMeasurementBuffer) other).values;
+		for (int t = firstTime; t < lastTime; t++) {
+			values[positionOf(t, values.length)] = otherValues[positionOf(t, otherValues.length)];
+		}
+	}
+
+	@Override
+	public synchronized void addValue(Short value) {
+		addLong(value);
+	}
+
+	@Override
+	public Short newest() {
+		return (short) newestAsLong();
+	}
+
+	@Override
+	public Short oldest() {
+		return (short) oldestAsLong();
+	}
+
+	@Override
+	public Short max() {
+		return (short) maxAsLong();
+	}
+
+	@Override
+	public Short min() {
+		return (short) minAsLong();
+	}
+
+	@Override
+	public Short max(int startIndex, int endIndex) {
+		return (short) maxAsLong(startIndex, endIndex);
+	}
+
+	@Override
+	public Short min(int startIndex, int endIndex) {
+		return (short) minAsLong(startIndex, endIndex);
+	}
+
+	@Override
+	public Iterator<Short> getRangeIterator(int startIndex, int endIndex) {
+		PrimitiveIterator.OfLong iterator = getLongRangeIterator(startIndex, endIndex);
+		return new Iterator<>() {
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public Short next() {
+				return (short) iterator.nextLong();
+			}
+		};
+	}
+}
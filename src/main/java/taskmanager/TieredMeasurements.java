@@ -0,0 +1,381 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager;
+
+import config.Config;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Keeps a long history at bounded memory by storing the newest measurements at full resolution and older ones as
+ * min/max/average aggregates in coarser tiers (round-robin database style). Indices span the whole history at full
+ * resolution, values from the coarser tiers are repeated for every sample they cover.
+ */
+public class TieredMeasurements implements Measurements<Long>, PrimitiveMeasurements {
+	private static final int AVG = 0;
+	private static final int MIN = 1;
+	private static final int MAX = 2;
+
+	private final int size;
+	private final long defaultValue;
+
+	private final LongMeasurementBuffer fullResolution;
+	private final Tier[] tiers; // From the finest to the coarsest
+
+	private int time;
+
+	// Receives the segment values of extremeInRange() and oldestAsLong(), which are only called while holding the lock
+	private final long[] scratchSegment = new long[1];
+
+	public TieredMeasurements(long defaultValue) {
+		this(Config.getFloat(Config.KEY_UPDATE_RATE),
+				(int) (Config.getInt(Config.KEY_MAXIMUM_MEASURMENT_BUFFER_SIZE) * Config.getFloat(Config.KEY_UPDATE_RATE)),
+				Config.getInt(Config.KEY_TIERED_HISTORY_HOURS), defaultValue);
+	}
+
+	public TieredMeasurements(float updateRate, int fullResolutionSize, int historyHours, long defaultValue) {
+		int historySamples = (int) (historyHours * 3600 * updateRate);
+		int mediumResolution = Math.max(1, Math.round(10 * updateRate));
+		int coarseResolution = Math.max(mediumResolution, Math.round(60 * updateRate));
+		int mediumSamples = Math.min(historySamples, (int) (6 * 3600 * updateRate));
+
+		this.defaultValue = defaultValue;
+		this.size = Math.max(fullResolutionSize, historySamples);
+		this.fullResolution = new LongMeasurementBuffer(Math.max(fullResolutionSize, coarseResolution), defaultValue);
+		this.tiers = new Tier[]{
+				new Tier(mediumResolution, Math.max(1, mediumSamples / mediumResolution), defaultValue),
+				new Tier(coarseResolution, Math.max(1, historySamples / coarseResolution), defaultValue)
+		};
+	}
+
+	private TieredMeasurements checkCompatible(Measurements<Long> otherRaw) {
+		if (!(otherRaw instanceof TieredMeasurements))
+			throw new IllegalArgumentException("Argument must be a TieredMeasurements!");
+
+		if (otherRaw.size() != size())
+			throw new IllegalArgumentException("Sizes must be equal!");
+
+		return (TieredMeasurements) otherRaw;
+	}
+
+	@Override
+	public synchronized void copyFrom(Measurements<Long> otherRaw) {
+		TieredMeasurements other = checkCompatible(otherRaw);
+		synchronized (other) {
+			fullResolution.copyFrom(other.fullResolution);
+			for (int i = 0; i < tiers.length; i++) {
+				tiers[i].copyFrom(other.tiers[i], true);
+			}
+			time = other.time;
+		}
+	}
+
+	@Override
+	public synchronized void copyDelta(Measurements<Long> otherRaw) {
+		TieredMeasurements other = checkCompatible(otherRaw);
+		synchronized (other) {
+			fullResolution.copyDelta(other.fullResolution);
+			for (int i = 0; i < tiers.length; i++) {
+				tiers[i].copyFrom(other.tiers[i], false);
+			}
+			time = other.time;
+		}
+	}
+
+	@Override
+	public synchronized void addValue(Long value) {
+		fullResolution.addValue(value);
+		for (Tier tier : tiers) {
+			tier.add(value);
+		}
+		time += 1;
+	}
+
+	/**
+	 * Finds the stored value covering the sample time `t`, preferring the coarsest tier that has a resolution of at
+	 * most `maxResolution` samples. The value is stored in `segment[0]` and the (exclusive) end time of the samples
+	 * it covers is returned.
+	 */
+	private int segment(int t, int maxResolution, int kind, long[] segment) {
+		if (t < 0) {
+			segment[0] = defaultValue;
+			return 0;
+		}
+
+		for (int i = tiers.length - 1; i >= 0; i--) {
+			if (tiers[i].resolution <= maxResolution && tiers[i].contains(t, time)) {
+				segment[0] = tiers[i].valueAt(t, time, kind);
+				return tiers[i].bucketEnd(t);
+			}
+		}
+
+		if (t >= time - fullResolution.size()) {
+			segment[0] = fullResolution.valueAt(fullResolution.size() - (time - t));
+			return t + 1;
+		}
+
+		for (Tier tier : tiers) {
+			if (tier.contains(t, time)) {
+				segment[0] = tier.valueAt(t, time, kind);
+				return tier.bucketEnd(t);
+			}
+		}
+
+		// Older than the oldest bucket but still inside the history, happens briefly due to bucket alignment
+		segment[0] = defaultValue;
+		return t + 1;
+	}
+
+	private long extremeInRange(int startIndex, int endIndex, int kind) {
+		checkRange(startIndex, endIndex);
+
+		int startTime = time - size + startIndex;
+		int endTime = time - size + endIndex + 1;
+		int fullResolutionStart = Math.max(startTime, time - fullResolution.size());
+
+		long result = (kind == MAX) ? Long.MIN_VALUE : Long.MAX_VALUE;
+		if (fullResolutionStart < endTime) {
+			int offset = fullResolution.size() - time;
+			result = (kind == MAX)
+					? fullResolution.maxAsLong(fullResolutionStart + offset, endTime - 1 + offset)
+					: fullResolution.minAsLong(fullResolutionStart + offset, endTime - 1 + offset);
+		}
+
+		int t = startTime;
+		int end = Math.min(endTime, fullResolutionStart);
+		while (t < end) {
+			t = segment(t, Integer.MAX_VALUE, kind, scratchSegment);
+			result = (kind == MAX) ? Math.max(result, scratchSegment[0]) : Math.min(result, scratchSegment[0]);
+		}
+		return result;
+	}
+
+	private void checkRange(int startIndex, int endIndex) {
+		if (startIndex < 0 || startIndex >= size || endIndex < startIndex || endIndex >= size)
+			throw new IllegalArgumentException("Indices out of range: [" + startIndex + ", " + endIndex + "], size: " + size);
+	}
+
+	@Override
+	public synchronized long newestAsLong() {
+		return fullResolution.newestAsLong();
+	}
+
+	@Override
+	public synchronized long oldestAsLong() {
+		segment(time - size, 1, AVG, scratchSegment);
+		return scratchSegment[0];
+	}
+
+	@Override
+	public synchronized long maxAsLong() {
+		long max = fullResolution.maxAsLong();
+		for (Tier tier : tiers) {
+			max = Math.max(max, tier.values[MAX].maxAsLong());
+		}
+		return max;
+	}
+
+	@Override
+	public synchronized long minAsLong() {
+		long min = fullResolution.minAsLong();
+		for (Tier tier : tiers) {
+			min = Math.min(min, tier.values[MIN].minAsLong());
+		}
+		return min;
+	}
+
+	@Override
+	public synchronized long maxAsLong(int startIndex, int endIndex) {
+		return extremeInRange(startIndex, endIndex, MAX);
+	}
+
+	@Override
+	public synchronized long minAsLong(int startIndex, int endIndex) {
+		return extremeInRange(startIndex, endIndex, MIN);
+	}
+
+	@Override
+	public Long newest() {
+		return newestAsLong();
+	}
+
+	@Override
+	public Long oldest() {
+		return oldestAsLong();
+	}
+
+	@Override
+	public Long max() {
+		return maxAsLong();
+	}
+
+	@Override
+	public Long min() {
+		return minAsLong();
+	}
+
+	@Override
+	public Long max(int startIndex, int endIndex) {
+		return maxAsLong(startIndex, endIndex);
+	}
+
+	@Override
+	public Long min(int startIndex, int endIndex) {
+		return minAsLong(startIndex, endIndex);
+	}
+
+	@Override
+	public Iterator<Long> getRangeIterator(int startIndex, int endIndex) {
+		return getLongRangeIterator(startIndex, endIndex);
+	}
+
+	@Override
+	public PrimitiveIterator.OfLong getLongRangeIterator(int startIndex, int endIndex) {
+		return getAveragingIterator(startIndex, endIndex, 1);
+	}
+
+	/**
+	 * Returns an iterator over the averages of every `stepSize` samples in the range, read from the coarsest tier
+	 * that can represent a step.
+	 */
+	public AveragingIterator getAveragingIterator(int startIndex, int endIndex, int stepSize) {
+		checkRange(startIndex, endIndex);
+		return new AveragingIterator(startIndex, endIndex, stepSize);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public synchronized int realSize() {
+		int realSize = fullResolution.realSize();
+		for (Tier tier : tiers) {
+			realSize += tier.values[AVG].realSize();
+		}
+		return realSize;
+	}
+
+
+	public class AveragingIterator implements PrimitiveIterator.OfLong {
+		private final long[] segment;
+		private final int end;
+		private final int stepSize;
+		private int index;
+
+		AveragingIterator(int start, int end, int stepSize) {
+			this.segment = new long[1];
+			this.end = end;
+			this.stepSize = stepSize;
+			this.index = start;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index + stepSize - 1 <= end;
+		}
+
+		@Override
+		public long nextLong() {
+			if (!hasNext())
+				throw new NoSuchElementException("The iterator is empty!");
+
+			long total = 0;
+			synchronized (TieredMeasurements.this) {
+				int t = time - size + index;
+				int stepEnd = t + stepSize;
+				while (t < stepEnd) {
+					int segmentEnd = Math.min(stepEnd, segment(t, stepSize, AVG, segment));
+					total += segment[0] * (segmentEnd - t);
+					t = segmentEnd;
+				}
+			}
+			index += stepSize;
+			return total / stepSize;
+		}
+	}
+
+
+	private static class Tier {
+		private final int resolution;
+		private final LongMeasurementBuffer[] values; // Average, min and max per bucket
+
+		private long sum;
+		private long min;
+		private long max;
+		private int count;
+
+		Tier(int resolution, int length, long defaultValue) {
+			this.resolution = resolution;
+			this.values = new LongMeasurementBuffer[]{
+					new LongMeasurementBuffer(length, defaultValue),
+					new LongMeasurementBuffer(length, defaultValue),
+					new LongMeasurementBuffer(length, defaultValue)
+			};
+			resetBucket();
+		}
+
+		void add(long value) {
+			sum += value;
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+			count++;
+
+			if (count == resolution) {
+				values[AVG].addValue(sum / resolution);
+				values[MIN].addValue(min);
+				values[MAX].addValue(max);
+				resetBucket();
+			}
+		}
+
+		private void resetBucket() {
+			sum = 0;
+			min = Long.MAX_VALUE;
+			max = Long.MIN_VALUE;
+			count = 0;
+		}
+
+		void copyFrom(Tier other, boolean doFullCopy) {
+			for (int i = 0; i < values.length; i++) {
+				if (doFullCopy) {
+					values[i].copyFrom(other.values[i]);
+				} else {
+					values[i].copyDelta(other.values[i]);
+				}
+			}
+			sum = other.sum;
+			min = other.min;
+			max = other.max;
+			count = other.count;
+		}
+
+		boolean contains(int t, int time) {
+			int bucket = t / resolution;
+			int completed = time / resolution;
+			return bucket < completed && bucket >= completed - values[AVG].size();
+		}
+
+		long valueAt(int t, int time, int kind) {
+			int bucket = t / resolution;
+			int completed = time / resolution;
+			return values[kind].valueAt(values[kind].size() - (completed - bucket));
+		}
+
+		int bucketEnd(int t) {
+			return (t / resolution + 1) * resolution;
+		}
+	}
+}
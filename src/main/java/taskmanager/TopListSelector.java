@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+
+package taskmanager;
+
+import taskmanager.data.Process;
+import taskmanager.data.TopList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Selects the processes with the highest values for any number of metrics in a single pass over the process list,
+ * keeping a bounded min-heap per metric. The process list itself is left untouched.
+ */
+public class TopListSelector {
+	private final List<Metric> metrics;
+
+	public TopListSelector() {
+		metrics = new ArrayList<>();
+	}
+
+	public Metric addMetric(ToLongFunction<Process> extractor) {
+		Metric metric = new Metric(extractor);
+		metrics.add(metric);
+		return metric;
+	}
+
+	public void select(List<Process> processes, int size) {
+		for (Metric metric : metrics) {
+			metric.reset(size);
+		}
+
+		for (int i = 0; i < processes.size(); i++) {
+			Process process = processes.get(i);
+			for (int j = 0; j < metrics.size(); j++) {
+				metrics.get(j).offer(process);
+			}
+		}
+	}
+
+
+	public static class Metric {
+		private final ToLongFunction<Process> extractor;
+
+		private long[] values;
+		private Process[] processes;
+		private int size;
+		private boolean sorted;
+
+		private Metric(ToLongFunction<Process> extractor) {
+			this.extractor = extractor;
+			values = new long[0];
+			processes = new Process[0];
+		}
+
+		private void reset(int capacity) {
+			if (values.length != capacity) {
+				values = new long[capacity];
+				processes = new Process[capacity];
+			} else {
+				Arrays.fill(processes, null);
+			}
+			size = 0;
+			sorted = false;
+		}
+
+		private void offer(Process process) {
+			if (values.length == 0) {
+				return;
+			}
+
+			long value = extractor.applyAsLong(process);
+			if (size < values.length) {
+				values[size] = value;
+				processes[size] = process;
+				siftUp(size++);
+			} else if (compare(value, process, values[0], processes[0]) > 0) {
+				values[0] = value;
+				processes[0] = process;
+				siftDown(0, size);
+			}
+		}
+
+		/**
+		 * Returns the selected processes ordered by descending value.
+		 */
+		public TopList result() {
+			if (!sorted) {
+				// Heap sort in place, the min-heap leaves the largest values first
+				for (int end = size - 1; end > 0; end--) {
+					swap(0, end);
+					siftDown(0, end);
+				}
+				sorted = true;
+			}
+
+			TopList topList = new TopList(size);
+			for (int i = 0; i < size; i++) {
+				topList.entries[i] = new TopList.Entry(values[i], processes[i]);
+			}
+			return topList;
+		}
+
+		private void siftUp(int index) {
+			while (index > 0) {
+				int parent = (index - 1) / 2;
+				if (!isLower(index, parent)) {
+					break;
+				}
+				swap(index, parent);
+				index = parent;
+			}
+		}
+
+		private void siftDown(int index, int end) {
+			while (true) {
+				int lowest = index;
+				int left = 2 * index + 1;
+				int right = left + 1;
+				if (left < end && isLower(left, lowest)) {
+					lowest = left;
+				}
+				if (right < end && isLower(right, lowest)) {
+					lowest = right;
+				}
+				if (lowest == index) {
+					return;
+				}
+				swap(index, lowest);
+				index = lowest;
+			}
+		}
+
+		private boolean isLower(int i, int j) {
+			return compare(values[i], processes[i], values[j], processes[j]) < 0;
+		}
+
+		private static int compare(long value1, Process process1, long value2, Process process2) {
+			if (value1 != value2) {
+				return Long.compare(value1, value2);
+			}
+			// Among equal values the older process ranks higher, so the selection does not depend on the list order
+			return Long.compare(process2.uniqueId, process1.uniqueId);
+		}
+
+		private void swap(int i, int j) {
+			long value = values[i];
+			values[i] = values[j];
+			values[j] = value;
+			Process process = processes[i];
+			processes[i] = processes[j];
+			processes[j] = process;
+		}
+	}
+}
@@ -11,7 +11,7 @@
 
 package taskmanager.data;
 
-import taskmanager.MeasurementContainer;
+import taskmanager.MeasurementFactory;
 import taskmanager.Measurements;
 
 public class Disk {
@@ -26,10 +26,18 @@ public class Disk {
 	public long size;
 
 	public Disk() {
-		writeRate = new MeasurementContainer<>(0L);
-		readRate = new MeasurementContainer<>(0L);
-		activeFraction = new MeasurementContainer<>(0d);
-		ioQueueLength = new MeasurementContainer<>(0L);
+		writeRate = MeasurementFactory.createLong(0L);
+		readRate = MeasurementFactory.createLong(0L);
+		activeFraction = MeasurementFactory.create(0d);
+		ioQueueLength = MeasurementFactory.createLong(0L);
+	}
+
+	// See Process#shareMeasurements()
+	void shareMeasurements() {
+		writeRate = MeasurementFactory.share(writeRate);
+		readRate = MeasurementFactory.share(readRate);
+		activeFraction = MeasurementFactory.share(activeFraction);
+		ioQueueLength = MeasurementFactory.share(ioQueueLength);
 	}
 
 	void copyFrom(Disk other, boolean doFullCopy) {
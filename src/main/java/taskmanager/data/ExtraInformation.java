@@ -14,4 +14,10 @@ package taskmanager.data;
 public interface ExtraInformation<T extends ExtraInformation> {
 	public T copy();
 	public void copyFrom(T other);
+
+	/**
+	 * Lets the measurements share those of the instance copied from, see {@link SystemInformation#createView()}.
+	 */
+	public default void shareMeasurements() {
+	}
 }
@@ -11,7 +11,7 @@
 
 package taskmanager.data;
 
-import taskmanager.MeasurementContainer;
+import taskmanager.MeasurementFactory;
 import taskmanager.Measurements;
 
 public class Gpu {
@@ -44,11 +44,20 @@ public class Gpu {
 	public boolean decoderSupported;
 
 	public Gpu() {
-		usedMemory = new MeasurementContainer<>(0L);
-		utilization = new MeasurementContainer<>(0L);
-		temperature = new MeasurementContainer<>(0L);
-		encoderUtilization = new MeasurementContainer<>(0L);
-		decoderUtilization = new MeasurementContainer<>(0L);
+		usedMemory = MeasurementFactory.createLong(0L);
+		utilization = MeasurementFactory.createLong(0L);
+		temperature = MeasurementFactory.createLong(0L);
+		encoderUtilization = MeasurementFactory.createLong(0L);
+		decoderUtilization = MeasurementFactory.createLong(0L);
+	}
+
+	// See Process#shareMeasurements()
+	void shareMeasurements() {
+		usedMemory = MeasurementFactory.share(usedMemory);
+		utilization = MeasurementFactory.share(utilization);
+		temperature = MeasurementFactory.share(temperature);
+		encoderUtilization = MeasurementFactory.share(encoderUtilization);
+		decoderUtilization = MeasurementFactory.share(decoderUtilization);
 	}
 
 	void copyFrom(Gpu other, boolean doFullCopy) {
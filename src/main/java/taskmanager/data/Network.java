@@ -11,7 +11,7 @@
 
 package taskmanager.data;
 
-import taskmanager.MeasurementContainer;
+import taskmanager.MeasurementFactory;
 import taskmanager.Measurements;
 
 public class Network {
@@ -27,13 +27,19 @@ public class Network {
 	public boolean isEnabled;
 
 	public Network() {
-		inRate = new MeasurementContainer<>(0L);
-		outRate = new MeasurementContainer<>(0L);
+		inRate = MeasurementFactory.createLong(0L);
+		outRate = MeasurementFactory.createLong(0L);
 
 		ipv4Addresses = new String[0];
 		ipv6Addresses = new String[0];
 	}
 
+	// See Process#shareMeasurements()
+	void shareMeasurements() {
+		inRate = MeasurementFactory.share(inRate);
+		outRate = MeasurementFactory.share(outRate);
+	}
+
 	void copyFrom(Network other, boolean doFullCopy) {
 		if (ipv4Addresses.length != other.ipv4Addresses.length) {
 			ipv4Addresses = new String[other.ipv4Addresses.length];
@@ -12,7 +12,7 @@
 package taskmanager.data;
 
 import config.Config;
-import taskmanager.MeasurementContainer;
+import taskmanager.MeasurementFactory;
 import taskmanager.Measurements;
 
 import java.text.Collator;
@@ -34,6 +34,7 @@ public class Process {
 	public long deathTimestamp;
 
 	public boolean hasReadOnce;
+	public int loadedAttributes; // Bit mask of the loaded ProcessAttributes
 
 	private long lastSysCpu;
 	private long lastUserCpu;
@@ -41,14 +42,14 @@ public class Process {
 	public Process(long uniqueId, long id) {
 		this.uniqueId = uniqueId;
 		this.id = id;
-		privateWorkingSet = new MeasurementContainer<>(0L);
+		privateWorkingSet = MeasurementFactory.createLongHistory(0L);
 		fileName = "";
 		filePath = "";
 		commandLine = "";
 		description = "";
 		userName = "Unknown";
-		cpuUsage = new MeasurementContainer<>(0L);
-		cpuTime = new MeasurementContainer<>(0L);
+		cpuUsage = MeasurementFactory.createLongHistory(0L);
+		cpuTime = MeasurementFactory.createLongHistory(0L);
 		status = Status.Running;
 	}
 
@@ -75,11 +76,30 @@ public class Process {
 		}
 
 		hasReadOnce = other.hasReadOnce;
+		loadedAttributes = other.loadedAttributes;
 
 		lastSysCpu = other.lastSysCpu;
 		lastUserCpu = other.lastUserCpu;
 	}
 
+	/**
+	 * Lets the measurements share those of the process copied from instead of copying their values, see
+	 * {@link SystemInformation#createView()}.
+	 */
+	void shareMeasurements() {
+		privateWorkingSet = MeasurementFactory.share(privateWorkingSet);
+		cpuUsage = MeasurementFactory.share(cpuUsage);
+		cpuTime = MeasurementFactory.share(cpuTime);
+	}
+
+	public boolean isLoaded(ProcessAttribute attribute) {
+		return (loadedAttributes & attribute.mask) != 0;
+	}
+
+	public void setLoaded(ProcessAttribute attribute) {
+		loadedAttributes |= attribute.mask;
+	}
+
 	public void updateCpu(long sysCpu, long userCpu, long totalCpuDelta, int numCores) {
 		if (lastSysCpu != 0 || lastUserCpu != 0) {
 			long newCpuTime = sysCpu - lastSysCpu + userCpu - lastUserCpu;
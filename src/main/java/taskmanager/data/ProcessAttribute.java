@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.data;
+
+/**
+ * Process attributes that are only loaded when something needs them, see {@link taskmanager.AttributeDemand}.
+ */
+public enum ProcessAttribute {
+	UserName,
+	CommandLine;
+
+	public final int mask = 1 << ordinal();
+}
@@ -11,18 +11,24 @@
 
 package taskmanager.data;
 
-import taskmanager.MeasurementContainer;
+import taskmanager.CollectionSchedule;
+import taskmanager.LongMap;
+import taskmanager.MeasurementFactory;
 import taskmanager.Measurements;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.function.Predicate;
 
 public class SystemInformation {
+	/* Incremented for every data collection, can be used to skip work when nothing has changed */
+	public long generation;
+
 	/* Time data */
 	public long bootTime;
 	public long uptime;
+	// The time of the newest sample of each source, indexed by CollectionSchedule.Source#ordinal()
+	public long[] sampleTimestamps;
 
 	/* Memory data */
 	public long pageSize;
@@ -64,24 +70,56 @@ public class SystemInformation {
 
 	public ExtraInformation extraInformation;
 
-	@SuppressWarnings("unchecked")
+	// A view shares the measurements of the instance it copies from instead of copying their values
+	private final boolean isView;
+
+	// Indices for the process lists, must be kept in sync by adding/removing processes through the methods below
+	private final LongMap<Process> processesById;
+	private final LongMap<Process> processesByUniqueId;
+	private final LongMap<Process> deadProcessesById;
+	private final LongMap<Process> deadProcessesByUniqueId;
+
 	public SystemInformation() {
-		memoryUsed = new MeasurementContainer<>(0L);
-		memoryUsedTopList = new MeasurementContainer<>(TopList.EMPTY);
-		cpuUsagePerCore = new MeasurementContainer[0];
-		cpuUsageTotal = new MeasurementContainer<>((short) 0);
-		cpuTopList = new MeasurementContainer<>(TopList.EMPTY);
+		this(false);
+	}
+
+	private SystemInformation(boolean isView) {
+		this.isView = isView;
+		memoryUsed = shareIfView(MeasurementFactory.createLong(0L));
+		memoryUsedTopList = shareIfView(MeasurementFactory.create(TopList.EMPTY));
+		cpuUsagePerCore = MeasurementFactory.createArray(0);
+		cpuUsageTotal = shareIfView(MeasurementFactory.createShort((short) 0));
+		cpuTopList = shareIfView(MeasurementFactory.create(TopList.EMPTY));
 		processes = new ArrayList<>();
 		deadProcesses = new ArrayList<>();
 		networks = new Network[0];
 		disks = new Disk[0];
 		gpus = new Gpu[0];
+		sampleTimestamps = new long[CollectionSchedule.Source.values().length];
+		processesById = new LongMap<>();
+		processesByUniqueId = new LongMap<>();
+		deadProcessesById = new LongMap<>();
+		deadProcessesByUniqueId = new LongMap<>();
+	}
+
+	/**
+	 * Creates a view: copying into it only points its measurements to those of the copied instance, while the
+	 * measurement and process objects of the view stay the same so they can be kept by the user interface. The copied
+	 * instance must not change until the next copy, like a snapshot from
+	 * {@link taskmanager.DataCollector#takeSnapshot()}.
+	 */
+	public static SystemInformation createView() {
+		return new SystemInformation(true);
+	}
+
+	private <T> Measurements<T> shareIfView(Measurements<T> measurements) {
+		return isView ? MeasurementFactory.share(measurements) : measurements;
 	}
 
 	@SuppressWarnings("unchecked")
 	public void copyFrom(SystemInformation other) {
 		if (cpuUsagePerCore.length != other.cpuUsagePerCore.length) {
-			cpuUsagePerCore = new MeasurementContainer[other.cpuUsagePerCore.length];
+			cpuUsagePerCore = MeasurementFactory.createArray(other.cpuUsagePerCore.length);
 		}
 		if (networks.length != other.networks.length) {
 			networks = new Network[other.networks.length];
@@ -93,8 +131,10 @@ public class SystemInformation {
 			gpus = new Gpu[other.gpus.length];
 		}
 
+		generation = other.generation;
 		bootTime = other.bootTime;
 		uptime = other.uptime;
+		System.arraycopy(other.sampleTimestamps, 0, sampleTimestamps, 0, sampleTimestamps.length);
 
 		physicalMemoryTotalInstalled = other.physicalMemoryTotalInstalled; // Includes reserved memory
 		physicalMemoryTotal = other.physicalMemoryTotal;
@@ -112,7 +152,7 @@ public class SystemInformation {
 
 		for (int i = 0; i < cpuUsagePerCore.length; i++) {
 			if (cpuUsagePerCore[i] == null) {
-				cpuUsagePerCore[i] = new MeasurementContainer<>((short) 0);
+				cpuUsagePerCore[i] = shareIfView(MeasurementFactory.createShort((short) 0));
 			}
 			cpuUsagePerCore[i].copyDelta(other.cpuUsagePerCore[i]);
 		}
@@ -132,6 +172,10 @@ public class SystemInformation {
 		if (extraInformation == null) {
 			if (other.extraInformation != null) {
 				extraInformation = other.extraInformation.copy();
+				if (isView) {
+					extraInformation.shareMeasurements();
+					extraInformation.copyFrom(other.extraInformation);
+				}
 			}
 		} else {
 			extraInformation.copyFrom(other.extraInformation);
@@ -143,6 +187,9 @@ public class SystemInformation {
 			boolean isNew = false;
 			if (networks[i] == null) {
 				networks[i] = new Network();
+				if (isView) {
+					networks[i].shareMeasurements();
+				}
 				isNew = true;
 			}
 			networks[i].copyFrom(other.networks[i], isNew);
@@ -154,6 +201,9 @@ public class SystemInformation {
 			boolean isNew = false;
 			if (disks[i] == null) {
 				disks[i] = new Disk();
+				if (isView) {
+					disks[i].shareMeasurements();
+				}
 				isNew = true;
 			}
 			disks[i].copyFrom(other.disks[i], isNew);
@@ -165,6 +215,9 @@ public class SystemInformation {
 			boolean isNew = false;
 			if (gpus[i] == null) {
 				gpus[i] = new Gpu();
+				if (isView) {
+					gpus[i].shareMeasurements();
+				}
 				isNew = true;
 			}
 			gpus[i].copyFrom(other.gpus[i], isNew);
@@ -172,50 +225,90 @@ public class SystemInformation {
 	}
 
 	private void copyProcesses(SystemInformation other) {
-		copyProcessesFor(other.processes, processes);
-		copyProcessesFor(other.deadProcesses, deadProcesses);
+		copyProcessesFor(other.processes, other.processesByUniqueId, processes, processesByUniqueId, processesById);
+		copyProcessesFor(other.deadProcesses, other.deadProcessesByUniqueId, deadProcesses, deadProcessesByUniqueId, deadProcessesById);
 	}
 
-	private void copyProcessesFor(List<Process> source, List<Process> target) {
-		Set<Long> processIds = new HashSet<>();
+	private void copyProcessesFor(List<Process> source, LongMap<Process> sourceByUniqueId,
+								  List<Process> target, LongMap<Process> targetByUniqueId, LongMap<Process> targetById) {
+		// Remove old processes
+		removeIf(p -> !sourceByUniqueId.containsKey(p.uniqueId), target, targetByUniqueId, targetById);
+
 		for (Process processNew : source) {
-			Process process = null;
-			for (Process processOld : target) {
-				if (processNew.uniqueId == processOld.uniqueId) {
-					process = processOld;
-					break;
-				}
-			}
+			Process process = targetByUniqueId.get(processNew.uniqueId);
 			boolean isNew = false;
 			if (process == null) {
 				process = new Process(processNew.uniqueId, processNew.id);
+				if (isView) {
+					process.shareMeasurements();
+				}
 				target.add(process);
+				targetByUniqueId.put(process.uniqueId, process);
 				isNew = true;
 			}
 
-			processIds.add(process.uniqueId);
 			process.copyFrom(processNew, isNew);
+			targetById.put(process.id, process);
 		}
+	}
 
-		// Remove old processes
-		target.removeIf(process -> !processIds.contains(process.uniqueId));
+	public void addProcess(Process process) {
+		processes.add(process);
+		processesByUniqueId.put(process.uniqueId, process);
+		processesById.put(process.id, process);
 	}
 
-	public Process getProcessById(long pid) {
-		for (Process process : processes) {
-			if (process.id == pid) {
-				return process;
-			}
-		}
-		return null;
+	public void addDeadProcess(Process process) {
+		deadProcesses.add(process);
+		deadProcessesByUniqueId.put(process.uniqueId, process);
+		deadProcessesById.put(process.id, process);
+	}
+
+	public void removeProcessesIf(Predicate<Process> predicate) {
+		removeIf(predicate, processes, processesByUniqueId, processesById);
+	}
+
+	public void removeDeadProcessesIf(Predicate<Process> predicate) {
+		removeIf(predicate, deadProcesses, deadProcessesByUniqueId, deadProcessesById);
 	}
 
-	public Process getDeadProcessById(long pid) { // TODO Might be multiple with the same ID
-		for (Process process : deadProcesses) {
-			if (process.id == pid) {
-				return process;
+	private void removeIf(Predicate<Process> predicate, List<Process> processes, LongMap<Process> byUniqueId,
+						  LongMap<Process> byId) {
+		LongMap<Process> releasedIds = new LongMap<>(4);
+		processes.removeIf(process -> {
+			if (predicate.test(process)) {
+				byUniqueId.remove(process.uniqueId, process);
+				if (byId.remove(process.id, process)) {
+					releasedIds.put(process.id, process);
+				}
+				return true;
+			}
+			return false;
+		});
+
+		// Another process might share the same PID (mainly among dead processes), let that one take the spot
+		if (!releasedIds.isEmpty()) {
+			for (Process process : processes) {
+				if (releasedIds.containsKey(process.id)) {
+					byId.put(process.id, process);
+				}
 			}
 		}
-		return null;
 	}
-}
\ No newline at end of file
+
+	public Process getProcessById(long pid) {
+		return processesById.get(pid);
+	}
+
+	public Process getProcessByUniqueId(long uniqueId) {
+		return processesByUniqueId.get(uniqueId);
+	}
+
+	public Process getDeadProcessById(long pid) { // Returns the most recent process if multiple have the same ID
+		return deadProcessesById.get(pid);
+	}
+
+	public Process getDeadProcessByUniqueId(long uniqueId) {
+		return deadProcessesByUniqueId.get(uniqueId);
+	}
+}
@@ -12,9 +12,7 @@
 package taskmanager.data;
 
 import java.util.Arrays;
-import java.util.List;
 import java.util.Objects;
-import java.util.function.Function;
 
 public class TopList implements Comparable<TopList> { // TODO Support TopLists of Short!
 	public static final TopList EMPTY = new TopList(0);
@@ -25,14 +23,6 @@ public class TopList implements Comparable<TopList> { // TODO Support TopLists o
 		this.entries = new Entry[size];
 	}
 
-	public static TopList of(Function<Process, Long> extractor, List<Process> processes, int length) {
-		TopList topList = new TopList(Math.min(length, processes.size()));
-		for (int i = 0; i < topList.entries.length; i++) {
-			topList.entries[i] = new Entry(extractor.apply(processes.get(i)), processes.get(i));
-		}
-		return topList;
-	}
-
 	@Override
 	public boolean equals(Object other) {
 		if (other instanceof TopList) {
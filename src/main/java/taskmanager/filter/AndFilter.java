@@ -12,20 +12,60 @@
 package taskmanager.filter;
 
 import taskmanager.data.Process;
+import taskmanager.data.ProcessAttribute;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Matches the processes that match all of the filters. Nested AndFilters are flattened and the filters are evaluated in
+ * order of their cost, so the cheap ones decide most processes before the expensive ones run.
+ */
 public class AndFilter implements Filter {
 	private final Filter[] filters;
 
 	public AndFilter(Filter... filters) {
-		this.filters = filters;
+		List<Filter> plan = new ArrayList<>();
+		for (Filter filter : filters) {
+			if (filter instanceof AndFilter) {
+				plan.addAll(List.of(((AndFilter) filter).filters));
+			} else {
+				plan.add(filter);
+			}
+		}
+		// The sort is stable so filters of the same cost keep the order they were written in
+		plan.sort(Comparator.comparingInt(Filter::cost));
+		this.filters = plan.toArray(new Filter[0]);
 	}
 
 	@Override
 	public boolean apply(Process process) {
-		boolean result = true;
 		for (Filter filter : filters) {
-			result = result && filter.apply(process);
+			if (!filter.apply(process)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int cost() {
+		int cost = 0;
+		for (Filter filter : filters) {
+			cost += filter.cost();
+		}
+		return cost;
+	}
+
+	@Override
+	public Set<ProcessAttribute> requiredAttributes() {
+		Set<ProcessAttribute> attributes = EnumSet.noneOf(ProcessAttribute.class);
+		for (Filter filter : filters) {
+			attributes.addAll(filter.requiredAttributes());
 		}
-		return result;
+		return attributes;
 	}
 }
\ No newline at end of file
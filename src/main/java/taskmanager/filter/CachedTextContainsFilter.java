@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.filter;
+
+import taskmanager.data.Process;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the result for each text it has searched, keyed on the identity of the text. Long texts such as the command
+ * line are loaded once per process and shared between its copies, so each one is only searched once. The results are
+ * kept in two generations and the older one is dropped after a couple of updates, forgetting processes that are gone.
+ * Must only be applied from one thread, as the process tables do.
+ */
+public abstract class CachedTextContainsFilter extends TextContainsFilter {
+	private static final int MINIMUM_GENERATION_APPLIES = 1024;
+
+	private Map<String, Boolean> recentResults;
+	private Map<String, Boolean> olderResults;
+	private int generationApplies;
+
+	public CachedTextContainsFilter(String textToContain) {
+		super(textToContain);
+		recentResults = new IdentityHashMap<>();
+		olderResults = new IdentityHashMap<>();
+	}
+
+	@Override
+	public boolean apply(Process process) {
+		if (++generationApplies > 2 * recentResults.size() + MINIMUM_GENERATION_APPLIES) {
+			olderResults = recentResults;
+			recentResults = new IdentityHashMap<>();
+			generationApplies = 0;
+		}
+
+		String text = textToFilter(process);
+		Boolean result = recentResults.get(text);
+		if (result == null) {
+			result = olderResults.get(text);
+			if (result == null) {
+				result = super.apply(process);
+			}
+			recentResults.put(text, result);
+		}
+		return result;
+	}
+
+	@Override
+	public int cost() {
+		return COST_LONG_TEXT;
+	}
+}
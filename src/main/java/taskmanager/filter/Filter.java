@@ -12,9 +12,29 @@
 package taskmanager.filter;
 
 import taskmanager.data.Process;
+import taskmanager.data.ProcessAttribute;
+
+import java.util.EnumSet;
+import java.util.Set;
 
 public interface Filter {
+	// Relative costs of evaluating a filter for one process, used to run the cheap filters first
+	int COST_NUMERIC = 1;
+	int COST_TEXT = 4;
+	int COST_LONG_TEXT = 16;
+
 	Filter UNIVERSE = p -> true;
 
 	boolean apply(Process process);
+
+	default int cost() {
+		return COST_TEXT;
+	}
+
+	/**
+	 * @return The lazily loaded attributes that this filter reads.
+	 */
+	default Set<ProcessAttribute> requiredAttributes() {
+		return EnumSet.noneOf(ProcessAttribute.class);
+	}
 }
\ No newline at end of file
@@ -28,5 +28,10 @@ public abstract class NumericalRangeFilter implements Filter {
 		return value >= lowerBound && value <= upperBound;
 	}
 
+	@Override
+	public int cost() {
+		return COST_NUMERIC;
+	}
+
 	protected abstract long valueToFilter(Process process);
 }
\ No newline at end of file
@@ -12,20 +12,59 @@
 package taskmanager.filter;
 
 import taskmanager.data.Process;
+import taskmanager.data.ProcessAttribute;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Matches the processes that match any of the filters. Nested OrFilters are flattened and the cheapest filters are
+ * tried first.
+ */
 public class OrFilter implements Filter {
 	private final Filter[] filters;
 
 	public OrFilter(Filter... filters) {
-		this.filters = filters;
+		List<Filter> plan = new ArrayList<>();
+		for (Filter filter : filters) {
+			if (filter instanceof OrFilter) {
+				plan.addAll(List.of(((OrFilter) filter).filters));
+			} else {
+				plan.add(filter);
+			}
+		}
+		plan.sort(Comparator.comparingInt(Filter::cost));
+		this.filters = plan.toArray(new Filter[0]);
 	}
 
 	@Override
 	public boolean apply(Process process) {
-		boolean result = false;
 		for (Filter filter : filters) {
-			result = result || filter.apply(process);
+			if (filter.apply(process)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public int cost() {
+		int cost = 0;
+		for (Filter filter : filters) {
+			cost += filter.cost();
+		}
+		return cost;
+	}
+
+	@Override
+	public Set<ProcessAttribute> requiredAttributes() {
+		Set<ProcessAttribute> attributes = EnumSet.noneOf(ProcessAttribute.class);
+		for (Filter filter : filters) {
+			attributes.addAll(filter.requiredAttributes());
 		}
-		return result;
+		return attributes;
 	}
 }
\ No newline at end of file
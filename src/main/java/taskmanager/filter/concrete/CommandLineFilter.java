@@ -12,9 +12,13 @@
 package taskmanager.filter.concrete;
 
 import taskmanager.data.Process;
-import taskmanager.filter.TextContainsFilter;
+import taskmanager.data.ProcessAttribute;
+import taskmanager.filter.CachedTextContainsFilter;
 
-public class CommandLineFilter extends TextContainsFilter {
+import java.util.EnumSet;
+import java.util.Set;
+
+public class CommandLineFilter extends CachedTextContainsFilter {
 	public CommandLineFilter(String cmd) {
 		super(cmd);
 	}
@@ -23,4 +27,9 @@ public class CommandLineFilter extends TextContainsFilter {
 	protected String textToFilter(Process process) {
 		return process.commandLine;
 	}
+
+	@Override
+	public Set<ProcessAttribute> requiredAttributes() {
+		return EnumSet.of(ProcessAttribute.CommandLine);
+	}
 }
\ No newline at end of file
@@ -12,9 +12,9 @@
 package taskmanager.filter.concrete;
 
 import taskmanager.data.Process;
-import taskmanager.filter.TextContainsFilter;
+import taskmanager.filter.CachedTextContainsFilter;
 
-public class DescriptionFilter extends TextContainsFilter {
+public class DescriptionFilter extends CachedTextContainsFilter {
 	public DescriptionFilter(String description) {
 		super(description);
 	}
@@ -12,15 +12,27 @@
 package taskmanager.filter.concrete;
 
 import taskmanager.data.Process;
-import taskmanager.filter.TextEqualsFilter;
+import taskmanager.filter.NumericalRangeFilter;
 
-public class PidFilter extends TextEqualsFilter {
+public class PidFilter extends NumericalRangeFilter {
 	public PidFilter(String pid) {
-		super(pid);
+		this(parsePid(pid));
+	}
+
+	private PidFilter(long pid) {
+		super(pid, pid);
+	}
+
+	private static long parsePid(String pid) {
+		try {
+			return Long.parseLong(pid);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid PID filter text: " + pid, e);
+		}
 	}
 
 	@Override
-	protected String textToFilter(Process process) {
-		return Long.toString(process.id);
+	protected long valueToFilter(Process process) {
+		return process.id;
 	}
 }
@@ -12,16 +12,29 @@
 package taskmanager.filter.concrete;
 
 import taskmanager.data.Process;
-import taskmanager.filter.TextContainsFilter;
+import taskmanager.data.Status;
+import taskmanager.filter.Filter;
 import taskmanager.ui.StatusUtils;
 
-public class StatusFilter extends TextContainsFilter {
+public class StatusFilter implements Filter {
+	// Whether the letter of each status contains the text, indexed by the ordinal of the status
+	private final boolean[] matchingStatuses;
+
 	public StatusFilter(String name) {
-		super(name);
+		Status[] statuses = Status.values();
+		matchingStatuses = new boolean[statuses.length];
+		for (Status status : statuses) {
+			matchingStatuses[status.ordinal()] = StatusUtils.letter(status).contains(name);
+		}
+	}
+
+	@Override
+	public boolean apply(Process process) {
+		return matchingStatuses[process.status.ordinal()];
 	}
 
 	@Override
-	protected String textToFilter(Process process) {
-		return StatusUtils.letter(process.status);
+	public int cost() {
+		return COST_NUMERIC;
 	}
-}
\ No newline at end of file
+}
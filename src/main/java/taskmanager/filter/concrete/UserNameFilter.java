@@ -12,8 +12,12 @@
 package taskmanager.filter.concrete;
 
 import taskmanager.data.Process;
+import taskmanager.data.ProcessAttribute;
 import taskmanager.filter.TextContainsFilter;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public class UserNameFilter extends TextContainsFilter {
 	public UserNameFilter(String name) {
 		super(name);
@@ -23,4 +27,9 @@ public class UserNameFilter extends TextContainsFilter {
 	protected String textToFilter(Process process) {
 		return process.userName;
 	}
+
+	@Override
+	public Set<ProcessAttribute> requiredAttributes() {
+		return EnumSet.of(ProcessAttribute.UserName);
+	}
 }
\ No newline at end of file
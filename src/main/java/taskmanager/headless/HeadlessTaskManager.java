@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+
+package taskmanager.headless;
+
+import config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import taskmanager.DataCollector;
+import taskmanager.InformationUpdateCallback;
+import taskmanager.data.SystemInformation;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the data collection without a user interface and passes the collected information, with its history, to the
+ * sinks. Sinks are installed as {@link ServiceLoader} providers of {@link InformationSink}, and the
+ * {@link OpenMetricsSink} is added when enabled in the config. If there are none a summary is logged every minute.
+ * <p>
+ * Steady-state budget at the default update rate (1 Hz) with a few hundred processes: on average at most
+ * {@value #CPU_BUDGET_PERCENT} % of one core and {@value #RSS_BUDGET_MB} MB resident memory when started with
+ * <code>-Xmx64m</code>, and at most {@value #STARTUP_BUDGET_MILLIS} ms from entering main to the first collected data.
+ * <code>HeadlessBudgetCheck</code> (<code>./gradlew headlessBudget</code>) checks these numbers.
+ */
+public class HeadlessTaskManager implements InformationUpdateCallback {
+	private static final Logger LOGGER = LoggerFactory.getLogger(HeadlessTaskManager.class);
+
+	public static final double CPU_BUDGET_PERCENT = 3.0;
+	public static final int RSS_BUDGET_MB = 128;
+	public static final int STARTUP_BUDGET_MILLIS = 800;
+
+	private static final long SUMMARY_INTERVAL = 60_000;
+
+	private final DataCollector dataCollector;
+	private final List<InformationSink> sinks;
+
+	// The sinks run on their own thread so that they never delay the collection, this is also the thread that takes
+	// the snapshots, which the sinks then read directly
+	private final ExecutorService sinkExecutor;
+	private final AtomicBoolean publishPending;
+
+	private final AtomicBoolean isStopping;
+	private final CountDownLatch stopped;
+	private volatile boolean hasTerminated;
+	private volatile boolean hasFailed;
+
+	public HeadlessTaskManager(List<InformationSink> sinks) {
+		this.sinks = new ArrayList<>(sinks);
+		dataCollector = new DataCollector(this);
+
+		sinkExecutor = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "Information sinks");
+			thread.setDaemon(true);
+			return thread;
+		});
+		publishPending = new AtomicBoolean();
+
+		isStopping = new AtomicBoolean();
+		stopped = new CountDownLatch(1);
+	}
+
+	/**
+	 * Collects the first data, starts the sinks and then the periodic collection.
+	 */
+	public void start() throws ExecutionException, InterruptedException {
+		sinkExecutor.submit(() -> {
+			SystemInformation snapshot = dataCollector.init();
+			for (InformationSink sink : sinks) {
+				sink.start(snapshot);
+			}
+		}).get();
+		dataCollector.start();
+	}
+
+	public void stop() {
+		if (isStopping.getAndSet(true)) {
+			return;
+		}
+
+		hasTerminated = true;
+		dataCollector.interrupt();
+		try {
+			dataCollector.join();
+			sinkExecutor.shutdown();
+			sinkExecutor.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		for (InformationSink sink : sinks) {
+			try {
+				sink.close();
+			} catch (RuntimeException e) {
+				LOGGER.error("Failed to close the sink {}", sink.getClass().getName(), e);
+			}
+		}
+		stopped.countDown();
+	}
+
+	public void awaitTermination() throws InterruptedException {
+		stopped.await();
+	}
+
+	public boolean hasFailed() {
+		return hasFailed;
+	}
+
+	@Override
+	public void update() {
+		// Skip collections while the sinks are busy, the following snapshot contains their data as well
+		if (publishPending.compareAndSet(false, true)) {
+			sinkExecutor.execute(this::publish);
+		}
+	}
+
+	private void publish() {
+		publishPending.set(false);
+		SystemInformation snapshot = dataCollector.takeSnapshot();
+		if (snapshot == null) {
+			return;
+		}
+
+		for (InformationSink sink : sinks) {
+			try {
+				sink.update(snapshot);
+			} catch (RuntimeException e) {
+				LOGGER.error("The sink {} failed", sink.getClass().getName(), e);
+			}
+		}
+	}
+
+	@Override
+	public void dataCollectorFailed() {
+		hasFailed = true;
+		hasTerminated = true;
+		stopped.countDown();
+	}
+
+	@Override
+	public boolean hasTerminated() {
+		return hasTerminated;
+	}
+
+
+	public static void main(String[] args) throws InterruptedException {
+		long startTime = System.nanoTime();
+		System.setProperty("java.awt.headless", "true");
+		LOGGER.info("Running headless with PID: {}", ProcessHandle.current().pid());
+
+		List<InformationSink> sinks = new ArrayList<>();
+		ServiceLoader.load(InformationSink.class).forEach(sinks::add);
+		if (Config.getBoolean(Config.KEY_METRICS_ENDPOINT)) {
+			sinks.add(new OpenMetricsSink());
+		}
+		if (sinks.isEmpty()) {
+			sinks.add(new SummaryLogSink(SUMMARY_INTERVAL));
+		}
+
+		HeadlessTaskManager taskManager = new HeadlessTaskManager(sinks);
+		Runtime.getRuntime().addShutdownHook(new Thread(taskManager::stop, "Shutdown"));
+		try {
+			taskManager.start();
+		} catch (ExecutionException e) {
+			LOGGER.error("Failed to start!", e.getCause());
+			System.exit(1);
+		}
+
+		LOGGER.info("Started in {} ms ({} ms since the JVM started) with {} sink(s)",
+				(System.nanoTime() - startTime) / 1_000_000, ManagementFactory.getRuntimeMXBean().getUptime(), sinks.size());
+
+		taskManager.awaitTermination();
+		if (taskManager.hasFailed()) {
+			System.exit(1);
+		}
+	}
+}
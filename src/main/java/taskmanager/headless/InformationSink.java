@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+
+package taskmanager.headless;
+
+import taskmanager.data.SystemInformation;
+
+/**
+ * Receives the collected information, on the sink thread when running headless or on the collector thread when added
+ * with {@link taskmanager.DataCollector#addSink}. The updates are made from one thread with the newest snapshot of the
+ * collector, which keeps the history. It must not be modified, and it is only valid during the call since the
+ * collector reuses it later, sinks that serve the data from other threads must copy what they need.
+ */
+public interface InformationSink {
+	default void start(SystemInformation systemInformation) {
+	}
+
+	void update(SystemInformation systemInformation);
+
+	default void close() {
+	}
+}
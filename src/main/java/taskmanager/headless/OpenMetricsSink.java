@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+
+package taskmanager.headless;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import config.Config;
+import taskmanager.TopListSelector;
+import taskmanager.data.Disk;
+import taskmanager.data.Gpu;
+import taskmanager.data.Network;
+import taskmanager.data.SystemInformation;
+import taskmanager.data.TopList;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the latest collected information in the OpenMetrics text format (also accepted as the Prometheus text
+ * format) on <code>/metrics</code>. The text is rendered once per update into a byte array that the scrapes only write
+ * out, so scrapes never touch the collected data and don't allocate per process.
+ */
+public class OpenMetricsSink implements InformationSink {
+	private static final String PREFIX = "staskmanager_";
+	private static final String OPENMETRICS_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+	private static final String PROMETHEUS_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+	private static final int SCRAPE_THREADS = 2;
+
+	private final String address;
+	private final int port;
+	private final int topProcesses;
+
+	private final TopListSelector topListSelector;
+	private final TopListSelector.Metric cpuTopList;
+	private final TopListSelector.Metric memoryTopList;
+	private final StringBuilder text;
+	private volatile byte[] rendered;
+
+	private HttpServer server;
+	private ExecutorService executor;
+
+	public OpenMetricsSink() {
+		this(Config.get(Config.KEY_METRICS_ADDRESS), Config.getInt(Config.KEY_METRICS_PORT),
+				Config.getInt(Config.KEY_METRICS_TOP_PROCESSES));
+	}
+
+	public OpenMetricsSink(String address, int port, int topProcesses) {
+		this.address = address;
+		this.port = port;
+		this.topProcesses = topProcesses;
+
+		topListSelector = new TopListSelector();
+		cpuTopList = topListSelector.addMetric(p -> p.cpuUsage.newest());
+		memoryTopList = topListSelector.addMetric(p -> p.privateWorkingSet.newest());
+		text = new StringBuilder(16 * 1024);
+		rendered = "# EOF\n".getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void start(SystemInformation systemInformation) {
+		update(systemInformation);
+		try {
+			server = HttpServer.create(new InetSocketAddress(address, port), 0);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to open the metrics endpoint at " + address + ":" + port + "!", e);
+		}
+		executor = Executors.newFixedThreadPool(SCRAPE_THREADS, r -> {
+			Thread thread = new Thread(r, "Metrics endpoint");
+			thread.setDaemon(true);
+			return thread;
+		});
+		server.setExecutor(executor);
+		server.createContext("/metrics", this::handle);
+		server.start();
+	}
+
+	/**
+	 * @return The port the endpoint listens on, which differs from the configured one if that was 0.
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	@Override
+	public void close() {
+		if (server != null) {
+			server.stop(0);
+			executor.shutdown();
+		}
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			String method = exchange.getRequestMethod();
+			if (!method.equals("GET") && !method.equals("HEAD")) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+
+			byte[] body = rendered;
+			String accept = exchange.getRequestHeaders().getFirst("Accept");
+			boolean openMetrics = accept != null && accept.contains("application/openmetrics-text");
+			exchange.getResponseHeaders().set("Content-Type", openMetrics ? OPENMETRICS_TYPE : PROMETHEUS_TYPE);
+			if (method.equals("HEAD")) {
+				exchange.sendResponseHeaders(200, -1);
+			} else {
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	@Override
+	public void update(SystemInformation systemInformation) {
+		text.setLength(0);
+		float updateRate = Config.getFloat(Config.KEY_UPDATE_RATE);
+
+		gauge("cpu_usage_ratio", "Total CPU usage.");
+		sample("cpu_usage_ratio").append(' ');
+		value(systemInformation.cpuUsageTotal.newest() / (double) Config.DOUBLE_TO_LONG);
+		gauge("cpu_core_usage_ratio", "CPU usage per logical core.");
+		for (int i = 0; i < systemInformation.cpuUsagePerCore.length; i++) {
+			sample("cpu_core_usage_ratio").append("{core=\"").append(i).append("\"} ");
+			value(systemInformation.cpuUsagePerCore[i].newest() / (double) Config.DOUBLE_TO_LONG);
+		}
+
+		gauge("memory_used_bytes", "Used physical memory.");
+		sample("memory_used_bytes").append(' ').append((long) systemInformation.memoryUsed.newest()).append('\n');
+		gauge("memory_total_bytes", "Total physical memory.");
+		sample("memory_total_bytes").append(' ').append(systemInformation.physicalMemoryTotal).append('\n');
+		gauge("processes", "Number of processes.");
+		sample("processes").append(' ').append(systemInformation.totalProcesses).append('\n');
+		gauge("threads", "Number of threads.");
+		sample("threads").append(' ').append(systemInformation.totalThreads).append('\n');
+
+		renderDisks(systemInformation.disks, updateRate);
+		renderNetworks(systemInformation.networks, updateRate);
+		renderGpus(systemInformation.gpus);
+		renderTopProcesses(systemInformation);
+
+		text.append("# EOF\n");
+		rendered = text.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private void renderDisks(Disk[] disks, float updateRate) {
+		gauge("disk_read_bytes_per_second", "Disk read rate.");
+		for (Disk disk : disks) {
+			diskSample("disk_read_bytes_per_second", disk);
+			value(disk.readRate.newest() * updateRate);
+		}
+		gauge("disk_write_bytes_per_second", "Disk write rate.");
+		for (Disk disk : disks) {
+			diskSample("disk_write_bytes_per_second", disk);
+			value(disk.writeRate.newest() * updateRate);
+		}
+		gauge("disk_active_ratio", "Fraction of the time the disk was busy.");
+		for (Disk disk : disks) {
+			diskSample("disk_active_ratio", disk);
+			value(disk.activeFraction.newest());
+		}
+		gauge("disk_queue_length", "Disk I/O queue length.");
+		for (Disk disk : disks) {
+			diskSample("disk_queue_length", disk).append((long) disk.ioQueueLength.newest()).append('\n');
+		}
+	}
+
+	private StringBuilder diskSample(String name, Disk disk) {
+		sample(name).append("{disk=\"").append(disk.index).append("\",mount=\"");
+		return escaped(disk.name).append("\"} ");
+	}
+
+	private void renderNetworks(Network[] networks, float updateRate) {
+		gauge("network_receive_bytes_per_second", "Network receive rate.");
+		for (Network network : networks) {
+			networkSample("network_receive_bytes_per_second", network);
+			value(network.inRate.newest() * updateRate);
+		}
+		gauge("network_transmit_bytes_per_second", "Network transmit rate.");
+		for (Network network : networks) {
+			networkSample("network_transmit_bytes_per_second", network);
+			value(network.outRate.newest() * updateRate);
+		}
+	}
+
+	private StringBuilder networkSample(String name, Network network) {
+		sample(name).append("{interface=\"");
+		return escaped(network.name).append("\"} ");
+	}
+
+	private void renderGpus(Gpu[] gpus) {
+		gauge("gpu_utilization_ratio", "GPU utilization.");
+		for (Gpu gpu : gpus) {
+			if (gpu.utilizationSupported) {
+				gpuSample("gpu_utilization_ratio", gpu);
+				value(gpu.utilization.newest() / (double) Config.DOUBLE_TO_LONG);
+			}
+		}
+		gauge("gpu_memory_used_bytes", "Used GPU memory.");
+		for (Gpu gpu : gpus) {
+			if (gpu.memorySupported) {
+				gpuSample("gpu_memory_used_bytes", gpu).append((long) gpu.usedMemory.newest()).append('\n');
+			}
+		}
+		gauge("gpu_memory_total_bytes", "Total GPU memory.");
+		for (Gpu gpu : gpus) {
+			gpuSample("gpu_memory_total_bytes", gpu).append(gpu.totalMemory).append('\n');
+		}
+		gauge("gpu_temperature_celsius", "GPU temperature.");
+		for (Gpu gpu : gpus) {
+			if (gpu.temperatureSupported) {
+				gpuSample("gpu_temperature_celsius", gpu).append((long) gpu.temperature.newest()).append('\n');
+			}
+		}
+		gauge("gpu_encoder_utilization_ratio", "GPU video encoder utilization.");
+		for (Gpu gpu : gpus) {
+			if (gpu.encoderSupported) {
+				gpuSample("gpu_encoder_utilization_ratio", gpu);
+				value(gpu.encoderUtilization.newest() / (double) Config.DOUBLE_TO_LONG);
+			}
+		}
+		gauge("gpu_decoder_utilization_ratio", "GPU video decoder utilization.");
+		for (Gpu gpu : gpus) {
+			if (gpu.decoderSupported) {
+				gpuSample("gpu_decoder_utilization_ratio", gpu);
+				value(gpu.decoderUtilization.newest() / (double) Config.DOUBLE_TO_LONG);
+			}
+		}
+	}
+
+	private StringBuilder gpuSample(String name, Gpu gpu) {
+		sample(name).append("{gpu=\"").append(gpu.index).append("\",name=\"");
+		return escaped(gpu.name).append("\"} ");
+	}
+
+	private void renderTopProcesses(SystemInformation systemInformation) {
+		topListSelector.select(systemInformation.processes, topProcesses);
+
+		gauge("process_cpu_usage_ratio", "CPU usage of the processes using the most CPU.");
+		for (TopList.Entry entry : cpuTopList.result().entries) {
+			processSample("process_cpu_usage_ratio", entry);
+			value(entry.value / (double) Config.DOUBLE_TO_LONG);
+		}
+		gauge("process_memory_bytes", "Private working set of the processes using the most memory.");
+		for (TopList.Entry entry : memoryTopList.result().entries) {
+			processSample("process_memory_bytes", entry).append(entry.value).append('\n');
+		}
+	}
+
+	private StringBuilder processSample(String name, TopList.Entry entry) {
+		sample(name).append("{pid=\"").append(entry.process.id).append("\",name=\"");
+		return escaped(entry.process.fileName).append("\"} ");
+	}
+
+	private void gauge(String name, String help) {
+		text.append("# TYPE ").append(PREFIX).append(name).append(" gauge\n");
+		text.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+	}
+
+	private StringBuilder sample(String name) {
+		return text.append(PREFIX).append(name);
+	}
+
+	/**
+	 * Appends a sample value and ends the line, with non-finite values spelled the way the text format expects.
+	 */
+	private void value(double value) {
+		if (Double.isNaN(value)) {
+			text.append("NaN");
+		} else if (Double.isInfinite(value)) {
+			text.append(value > 0 ? "+Inf" : "-Inf");
+		} else {
+			text.append(value);
+		}
+		text.append('\n');
+	}
+
+	private StringBuilder escaped(String labelValue) {
+		if (labelValue == null) {
+			return text;
+		}
+		for (int i = 0; i < labelValue.length(); i++) {
+			char c = labelValue.charAt(i);
+			if (c == '\\' || c == '"') {
+				text.append('\\').append(c);
+			} else if (c == '\n') {
+				text.append("\\n");
+			} else {
+				text.append(c);
+			}
+		}
+		return text;
+	}
+}
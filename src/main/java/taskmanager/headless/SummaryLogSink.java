@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+
+package taskmanager.headless;
+
+import config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import taskmanager.data.SystemInformation;
+
+/**
+ * Logs a one line summary of the system at a fixed interval, used when no other sinks are installed.
+ */
+public class SummaryLogSink implements InformationSink {
+	private static final Logger LOGGER = LoggerFactory.getLogger(SummaryLogSink.class);
+
+	private final long intervalMillis;
+	private long lastLogTime;
+
+	public SummaryLogSink(long intervalMillis) {
+		this.intervalMillis = intervalMillis;
+	}
+
+	@Override
+	public void start(SystemInformation systemInformation) {
+		lastLogTime = System.currentTimeMillis();
+	}
+
+	@Override
+	public void update(SystemInformation systemInformation) {
+		long now = System.currentTimeMillis();
+		if (now - lastLogTime >= intervalMillis) {
+			lastLogTime = now;
+			LOGGER.info("CPU: {}%, memory: {} / {} MB, processes: {}, threads: {}",
+					String.format("%.1f", systemInformation.cpuUsageTotal.newest() * 100f / Config.DOUBLE_TO_LONG),
+					systemInformation.memoryUsed.newest() / (1024 * 1024),
+					systemInformation.physicalMemoryTotal / (1024 * 1024),
+					systemInformation.totalProcesses,
+					systemInformation.totalThreads);
+		}
+	}
+}
@@ -18,6 +18,7 @@ import com.sun.jna.ptr.LongByReference;
 import config.Config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import taskmanager.CollectionSchedule.Source;
 import taskmanager.data.SystemInformation;
 import taskmanager.data.Gpu;
 import taskmanager.data.Gpu.Type;
@@ -26,105 +27,219 @@ import taskmanager.platform.common.Nvml.nvmlPciInfo_t;
 import taskmanager.platform.common.Nvml.nvmlUtilization_t;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+/**
+ * Samples NVIDIA GPUs through NVML. The NVML calls can take tens of milliseconds, so they run on their own thread and
+ * their results are added to the GPUs by the next update after they finish. Until then the previous values are
+ * repeated.
+ */
 public class NvidiaGpuLoader {
 	private static final Logger LOGGER = LoggerFactory.getLogger(NvidiaGpuLoader.class);
 
-	public void update(SystemInformation systemInformation) {
+	private ExecutorService executor;
+	private Future<List<GpuSample>> pendingSample;
+	private boolean hasSampled;
+
+	/**
+	 * @param isDue If a new sample should be started, unless one is already in progress. The very first sample is
+	 *              waited for.
+	 */
+	public void update(SystemInformation systemInformation, boolean isDue) {
+		if (Nvml.INSTANCE == null) {
+			return;
+		}
+
+		if (isDue && pendingSample == null) {
+			if (executor == null) {
+				executor = Executors.newSingleThreadExecutor(r -> {
+					Thread thread = new Thread(r, "GPU sampler");
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+			pendingSample = executor.submit(this::sample);
+		}
+
+		if (pendingSample != null && (pendingSample.isDone() || !hasSampled)) {
+			List<GpuSample> samples = takeSample();
+			if (samples != null) {
+				apply(systemInformation, samples);
+				return;
+			}
+		}
+		repeat(systemInformation);
+	}
+
+	private List<GpuSample> takeSample() {
 		try {
-			doUpdate(systemInformation);
-		} catch (IllegalArgumentException e) {
-			LOGGER.error("Failed to load NVIDIA GPU information", e);
+			return pendingSample.get();
+		} catch (ExecutionException e) {
+			LOGGER.error("Failed to load NVIDIA GPU information", e.getCause());
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} finally {
+			pendingSample = null;
+			hasSampled = true;
 		}
 	}
 
-	private void doUpdate(SystemInformation systemInformation) {
-		if (Nvml.INSTANCE != null) {
-			check(Nvml.INSTANCE.nvmlInit());
-			try {
-				byte[] version = new byte[80];
-				check(Nvml.INSTANCE.nvmlSystemGetDriverVersion(version, version.length));
-				int idx = 0;
-				for (int i = 0; i < version.length; i++) {
-					if (version[i] == 0) {
-						idx = i-1;
-						break;
-					}
+	private List<GpuSample> sample() {
+		List<GpuSample> samples = new ArrayList<>();
+		check(Nvml.INSTANCE.nvmlInit());
+		try {
+			byte[] version = new byte[80];
+			check(Nvml.INSTANCE.nvmlSystemGetDriverVersion(version, version.length));
+			int idx = 0;
+			for (int i = 0; i < version.length; i++) {
+				if (version[i] == 0) {
+					idx = i-1;
+					break;
 				}
-				String driverVersion = new String(version, 0, idx, StandardCharsets.US_ASCII);
-
-				IntByReference deviceCount = new IntByReference();
-				check(Nvml.INSTANCE.nvmlDeviceGetCount(deviceCount));
-
-				for (int i = 0; i < deviceCount.getValue(); i++) {
-					LongByReference gpuHandle = new LongByReference();
-					check(Nvml.INSTANCE.nvmlDeviceGetHandleByIndex(i, gpuHandle));
-
-					Memory mem = new Memory(new nvmlPciInfo_t().size());
-					check(Nvml.INSTANCE.nvmlDeviceGetPciInfo(gpuHandle.getValue(), mem));
-					nvmlPciInfo_t pci = Structure.newInstance(nvmlPciInfo_t.class, mem);
-					pci.read();
-
-					int deviceId = pci.pciDeviceId >> 16;
-					Gpu gpu = Arrays.stream(systemInformation.gpus)
-									.filter(g -> g.deviceId == deviceId)
-									.findAny()
-									.orElse(null);
-
-					if (gpu == null) {
-						LOGGER.warn("Failed to find matching GPU for pci device: {}", Integer.toHexString(pci.pciDeviceId));
-						continue;
-					}
-
-					gpu.type = Type.Nvidia;
-					gpu.driverVersion = driverVersion;
-
-					// Read memory usage
-					mem = new Memory(new nvmlMemory_t().size());
-					if (supported(Nvml.INSTANCE.nvmlDeviceGetMemoryInfo(gpuHandle.getValue(), mem))) {
-						nvmlMemory_t memory = Structure.newInstance(nvmlMemory_t.class, mem);
-						memory.read();
-
-						gpu.totalMemory = memory.total;
-						gpu.usedMemory.addValue(memory.used);
-						gpu.memorySupported = true;
-					}
-
-					// Read utilization
-					mem = new Memory(new nvmlUtilization_t().size());
-					if (supported(Nvml.INSTANCE.nvmlDeviceGetUtilizationRates(gpuHandle.getValue(), mem))) {
-						nvmlUtilization_t utilization = Structure.newInstance(nvmlUtilization_t.class, mem);
-						utilization.read();
-
-						gpu.utilization.addValue((long) (utilization.gpu * Config.DOUBLE_TO_LONG / 100));
-						gpu.utilizationSupported = true;
-					}
-
-					// Read temperature
-					IntByReference temperature = new IntByReference();
-					if (supported(Nvml.INSTANCE.nvmlDeviceGetTemperature(gpuHandle.getValue(), Nvml.NVML_TEMPERATURE_GPU, temperature))) {
-						gpu.temperature.addValue((long) temperature.getValue());
-						gpu.temperatureSupported = true;
-					}
-
-					// Read encoder utilization
-					IntByReference encoderUtilization = new IntByReference();
-					if (supported(Nvml.INSTANCE.nvmlDeviceGetEncoderUtilization(gpuHandle.getValue(), encoderUtilization, new IntByReference()))) {
-						gpu.encoderUtilization.addValue((long) (encoderUtilization.getValue() * Config.DOUBLE_TO_LONG / 100));
-						gpu.encoderSupported = true;
-					}
-
-					// Read decoder utilization
-					IntByReference decoderUtilization = new IntByReference();
-					if (supported(Nvml.INSTANCE.nvmlDeviceGetDecoderUtilization(gpuHandle.getValue(), decoderUtilization, new IntByReference()))) {
-						gpu.decoderUtilization.addValue((long) (decoderUtilization.getValue() * Config.DOUBLE_TO_LONG / 100));
-						gpu.decoderSupported = true;
-					}
+			}
+			String driverVersion = new String(version, 0, idx, StandardCharsets.US_ASCII);
+
+			IntByReference deviceCount = new IntByReference();
+			check(Nvml.INSTANCE.nvmlDeviceGetCount(deviceCount));
+
+			for (int i = 0; i < deviceCount.getValue(); i++) {
+				LongByReference gpuHandle = new LongByReference();
+				check(Nvml.INSTANCE.nvmlDeviceGetHandleByIndex(i, gpuHandle));
+
+				Memory mem = new Memory(new nvmlPciInfo_t().size());
+				check(Nvml.INSTANCE.nvmlDeviceGetPciInfo(gpuHandle.getValue(), mem));
+				nvmlPciInfo_t pci = Structure.newInstance(nvmlPciInfo_t.class, mem);
+				pci.read();
+
+				GpuSample sample = new GpuSample();
+				sample.pciDeviceId = pci.pciDeviceId;
+				sample.driverVersion = driverVersion;
+				sample.timestamp = System.currentTimeMillis();
+
+				// Read memory usage
+				mem = new Memory(new nvmlMemory_t().size());
+				if (supported(Nvml.INSTANCE.nvmlDeviceGetMemoryInfo(gpuHandle.getValue(), mem))) {
+					nvmlMemory_t memory = Structure.newInstance(nvmlMemory_t.class, mem);
+					memory.read();
+
+					sample.totalMemory = memory.total;
+					sample.usedMemory = memory.used;
+				}
+
+				// Read utilization
+				mem = new Memory(new nvmlUtilization_t().size());
+				if (supported(Nvml.INSTANCE.nvmlDeviceGetUtilizationRates(gpuHandle.getValue(), mem))) {
+					nvmlUtilization_t utilization = Structure.newInstance(nvmlUtilization_t.class, mem);
+					utilization.read();
+
+					sample.utilization = (long) (utilization.gpu * Config.DOUBLE_TO_LONG / 100);
 				}
-			} finally {
-				check(Nvml.INSTANCE.nvmlShutdown());
+
+				// Read temperature
+				IntByReference temperature = new IntByReference();
+				if (supported(Nvml.INSTANCE.nvmlDeviceGetTemperature(gpuHandle.getValue(), Nvml.NVML_TEMPERATURE_GPU, temperature))) {
+					sample.temperature = (long) temperature.getValue();
+				}
+
+				// Read encoder utilization
+				IntByReference encoderUtilization = new IntByReference();
+				if (supported(Nvml.INSTANCE.nvmlDeviceGetEncoderUtilization(gpuHandle.getValue(), encoderUtilization, new IntByReference()))) {
+					sample.encoderUtilization = (long) (encoderUtilization.getValue() * Config.DOUBLE_TO_LONG / 100);
+				}
+
+				// Read decoder utilization
+				IntByReference decoderUtilization = new IntByReference();
+				if (supported(Nvml.INSTANCE.nvmlDeviceGetDecoderUtilization(gpuHandle.getValue(), decoderUtilization, new IntByReference()))) {
+					sample.decoderUtilization = (long) (decoderUtilization.getValue() * Config.DOUBLE_TO_LONG / 100);
+				}
+
+				samples.add(sample);
 			}
+		} finally {
+			check(Nvml.INSTANCE.nvmlShutdown());
+		}
+		return samples;
+	}
+
+	private void apply(SystemInformation systemInformation, List<GpuSample> samples) {
+		List<Gpu> sampledGpus = new ArrayList<>();
+		for (GpuSample sample : samples) {
+			int deviceId = sample.pciDeviceId >> 16;
+			Gpu gpu = Arrays.stream(systemInformation.gpus)
+							.filter(g -> g.deviceId == deviceId)
+							.findAny()
+							.orElse(null);
+
+			if (gpu == null) {
+				LOGGER.warn("Failed to find matching GPU for pci device: {}", Integer.toHexString(sample.pciDeviceId));
+				continue;
+			}
+
+			gpu.type = Type.Nvidia;
+			gpu.driverVersion = sample.driverVersion;
+
+			if (sample.usedMemory != null) {
+				gpu.totalMemory = sample.totalMemory;
+				gpu.usedMemory.addValue(sample.usedMemory);
+				gpu.memorySupported = true;
+			}
+			if (sample.utilization != null) {
+				gpu.utilization.addValue(sample.utilization);
+				gpu.utilizationSupported = true;
+			}
+			if (sample.temperature != null) {
+				gpu.temperature.addValue(sample.temperature);
+				gpu.temperatureSupported = true;
+			}
+			if (sample.encoderUtilization != null) {
+				gpu.encoderUtilization.addValue(sample.encoderUtilization);
+				gpu.encoderSupported = true;
+			}
+			if (sample.decoderUtilization != null) {
+				gpu.decoderUtilization.addValue(sample.decoderUtilization);
+				gpu.decoderSupported = true;
+			}
+			sampledGpus.add(gpu);
+			systemInformation.sampleTimestamps[Source.Gpus.ordinal()] = sample.timestamp;
+		}
+
+		// GPUs that are missing from this sample must still get a value for this update
+		for (Gpu gpu : systemInformation.gpus) {
+			if (!sampledGpus.contains(gpu)) {
+				repeat(gpu);
+			}
+		}
+	}
+
+	private void repeat(SystemInformation systemInformation) {
+		for (Gpu gpu : systemInformation.gpus) {
+			repeat(gpu);
+		}
+	}
+
+	private void repeat(Gpu gpu) {
+		if (gpu.memorySupported) {
+			gpu.usedMemory.addValue(gpu.usedMemory.newest());
+		}
+		if (gpu.utilizationSupported) {
+			gpu.utilization.addValue(gpu.utilization.newest());
+		}
+		if (gpu.temperatureSupported) {
+			gpu.temperature.addValue(gpu.temperature.newest());
+		}
+		if (gpu.encoderSupported) {
+			gpu.encoderUtilization.addValue(gpu.encoderUtilization.newest());
+		}
+		if (gpu.decoderSupported) {
+			gpu.decoderUtilization.addValue(gpu.decoderUtilization.newest());
 		}
 	}
 
@@ -144,4 +259,19 @@ public class NvidiaGpuLoader {
 			throw new IllegalStateException("NVML operation failed: " + error + " (code " + code + ")");
 		}
 	}
-}
\ No newline at end of file
+
+
+	// Unsupported values are null
+	private static class GpuSample {
+		int pciDeviceId;
+		String driverVersion;
+		long timestamp;
+
+		long totalMemory;
+		Long usedMemory;
+		Long utilization;
+		Long temperature;
+		Long encoderUtilization;
+		Long decoderUtilization;
+	}
+}
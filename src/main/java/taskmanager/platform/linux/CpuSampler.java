@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.platform.linux;
+
+import taskmanager.platform.linux.proc.CpuStat;
+
+/**
+ * Reads /proc/stat once per update and derives the total and per-core CPU load, the total CPU time that has passed
+ * (used to compute the process CPU usage) and the scheduler counters from it.
+ */
+public class CpuSampler {
+	private final ProcFile statFile;
+	private final CpuStat stat;
+
+	private final long[] lastTotalTicks;
+	private long[][] lastCoreTicks;
+	private long lastContextSwitches;
+	private long lastProcessesCreated;
+	private boolean hasPreviousSample;
+
+	private double totalLoad;
+	private double[] coreLoads;
+	private long totalTimeDelta;
+	private long contextSwitchesDelta;
+	private long processesCreatedDelta;
+
+	public CpuSampler(String procPath) {
+		statFile = new ProcFile(procPath + "/stat");
+		stat = new CpuStat();
+		lastTotalTicks = new long[CpuStat.TICK_TYPES];
+		lastCoreTicks = new long[0][CpuStat.TICK_TYPES];
+		coreLoads = new double[0];
+	}
+
+	/**
+	 * Reads a new sample. The loads and deltas are zero after the first sample.
+	 * @return <code>false</code> if /proc/stat could not be read, in which case the previous values are kept.
+	 */
+	public boolean sample() {
+		if (!stat.parse(statFile.read())) {
+			return false;
+		}
+
+		if (lastCoreTicks.length != stat.coreCount) {
+			lastCoreTicks = new long[stat.coreCount][CpuStat.TICK_TYPES];
+			coreLoads = new double[stat.coreCount];
+			hasPreviousSample = false; // A core has been added or removed, start over
+		}
+
+		if (hasPreviousSample) {
+			totalTimeDelta = CpuStat.sum(stat.totalTicks) - CpuStat.sum(lastTotalTicks);
+			totalLoad = load(stat.totalTicks, lastTotalTicks);
+			for (int i = 0; i < stat.coreCount; i++) {
+				coreLoads[i] = load(stat.coreTicks[i], lastCoreTicks[i]);
+			}
+			contextSwitchesDelta = stat.contextSwitches - lastContextSwitches;
+			processesCreatedDelta = stat.processesCreated - lastProcessesCreated;
+		}
+
+		System.arraycopy(stat.totalTicks, 0, lastTotalTicks, 0, CpuStat.TICK_TYPES);
+		for (int i = 0; i < stat.coreCount; i++) {
+			System.arraycopy(stat.coreTicks[i], 0, lastCoreTicks[i], 0, CpuStat.TICK_TYPES);
+		}
+		lastContextSwitches = stat.contextSwitches;
+		lastProcessesCreated = stat.processesCreated;
+		hasPreviousSample = true;
+		return true;
+	}
+
+	private static double load(long[] ticks, long[] lastTicks) {
+		long total = CpuStat.sum(ticks) - CpuStat.sum(lastTicks);
+		long idle = ticks[CpuStat.IDLE] + ticks[CpuStat.IOWAIT] - lastTicks[CpuStat.IDLE] - lastTicks[CpuStat.IOWAIT];
+		if (total <= 0) {
+			return 0;
+		}
+		return Math.max(0, Math.min(1, 1 - idle / (double) total));
+	}
+
+	public double getTotalLoad() {
+		return totalLoad;
+	}
+
+	public int getCoreCount() {
+		return coreLoads.length;
+	}
+
+	public double getCoreLoad(int core) {
+		return coreLoads[core];
+	}
+
+	/**
+	 * @return The CPU time that passed between the last two samples, summed over all cores, in clock ticks.
+	 */
+	public long getTotalTimeDelta() {
+		return totalTimeDelta;
+	}
+
+	public long getContextSwitchesDelta() {
+		return contextSwitchesDelta;
+	}
+
+	public long getProcessesCreatedDelta() {
+		return processesCreatedDelta;
+	}
+
+	public long getProcessesRunning() {
+		return stat.processesRunning;
+	}
+}
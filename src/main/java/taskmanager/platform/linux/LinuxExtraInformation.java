@@ -11,6 +11,8 @@
 
 package taskmanager.platform.linux;
 
+import taskmanager.MeasurementFactory;
+import taskmanager.Measurements;
 import taskmanager.data.ExtraInformation;
 
 public class LinuxExtraInformation implements ExtraInformation<LinuxExtraInformation> {
@@ -24,16 +26,36 @@ public class LinuxExtraInformation implements ExtraInformation<LinuxExtraInforma
 	public long swapSize;
 	public long swapUsed;
 
+	public Measurements<Long> contextSwitches; // Per update
+	public Measurements<Long> processesCreated; // Per update
+	public Measurements<Long> processesRunning;
+
+	public LinuxExtraInformation() {
+		contextSwitches = MeasurementFactory.createLong(0L);
+		processesCreated = MeasurementFactory.createLong(0L);
+		processesRunning = MeasurementFactory.createLong(0L);
+	}
 
 	@Override
 	public LinuxExtraInformation copy() {
 		LinuxExtraInformation extraInformation = new LinuxExtraInformation();
-		extraInformation.copyFrom(this);
+		extraInformation.copyFrom(this, true);
 		return extraInformation;
 	}
 
+	@Override
+	public void shareMeasurements() {
+		contextSwitches = MeasurementFactory.share(contextSwitches);
+		processesCreated = MeasurementFactory.share(processesCreated);
+		processesRunning = MeasurementFactory.share(processesRunning);
+	}
+
 	@Override
 	public void copyFrom(LinuxExtraInformation other) {
+		copyFrom(other, false);
+	}
+
+	private void copyFrom(LinuxExtraInformation other, boolean doFullCopy) {
 		openFileDescriptors = other.openFileDescriptors;
 		openFileDescriptorsLimit = other.openFileDescriptorsLimit;
 
@@ -43,5 +65,15 @@ public class LinuxExtraInformation implements ExtraInformation<LinuxExtraInforma
 
 		swapSize = other.swapSize;
 		swapUsed = other.swapUsed;
+
+		if (doFullCopy) {
+			contextSwitches.copyFrom(other.contextSwitches);
+			processesCreated.copyFrom(other.processesCreated);
+			processesRunning.copyFrom(other.processesRunning);
+		} else {
+			contextSwitches.copyDelta(other.contextSwitches);
+			processesCreated.copyDelta(other.processesCreated);
+			processesRunning.copyDelta(other.processesRunning);
+		}
 	}
 }
@@ -11,39 +11,117 @@
 
 package taskmanager.platform.linux;
 
+import config.Config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import oshi.driver.linux.proc.UserGroupInfo;
-import oshi.software.os.linux.LinuxOperatingSystem;
 import oshi.util.FileUtil;
+import taskmanager.CollectionSchedule.Source;
 import taskmanager.InformationLoader;
+import taskmanager.LongMap;
 import taskmanager.data.Process;
-import taskmanager.data.Status;
 import taskmanager.data.SystemInformation;
+import taskmanager.platform.linux.proc.FileNr;
+import taskmanager.platform.linux.proc.LoadAvg;
+import taskmanager.platform.linux.proc.MemInfo;
 
 import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads the Linux specific information from /proc. Scanning the processes is by far the slowest part, so the scans run
+ * on their own thread and are added by the first update after they finish, the other sources keep their cadence
+ * meanwhile.
+ */
 public class LinuxInformationLoader extends InformationLoader {
 	private static final Logger LOGGER = LoggerFactory.getLogger(LinuxInformationLoader.class);
 
-	private static final String PROC_PATH = "/proc";
+	// /proc is listed at least this often, even if the counters say that no process has been created or has exited
+	static final int MAX_SCANS_BETWEEN_LISTINGS = 30;
 
-	private long lastCpuTime;
-	private long currentCpuTime;
+	private final String procPath;
+	private final CpuSampler cpuSampler;
 
 	private long nextProcessId;
+	// The CPU time and processes created since the previous scan was started, from the samples of /proc/stat
+	private long cpuTimeSinceScan;
+	private long processesCreatedSinceScan;
+
+	private final ProcessCollector processCollector;
+	private long processFileLimit;
+
+	// Only used by the scan thread and by the update that adds the scan, which never run at the same time
+	private final ProcessScan scan;
+	private final LongMap<ProcessSample> samplesByPid;
+	private List<ProcessSample> spareSamples;
+	private long listing;
+	private boolean mustList;
+	private int scansSinceListing;
+	private long listedThreadCount;
+	private final ProcFile loadAvgFile;
+	private final LoadAvg loadAvg;
+	private final ProcFile fileNrFile;
+	private final FileNr fileNr;
+
+	private ExecutorService executor;
+	private Future<ProcessScan> pendingScan;
+	private boolean hasScanned;
+
+	private final ProcFile memInfoFile;
+	private final MemInfo memInfo;
+
+	public LinuxInformationLoader() {
+		this(Config.get(Config.KEY_PROC_PATH));
+	}
+
+	/**
+	 * @param procPath The directory to read from instead of /proc, e.g. a generated process tree.
+	 */
+	public LinuxInformationLoader(String procPath) {
+		this(procPath, Config.getInt(Config.KEY_COLLECTION_PARALLELISM));
+	}
+
+	/**
+	 * @param parallelism The number of workers that read the processes, one per processor if zero.
+	 */
+	LinuxInformationLoader(String procPath, int parallelism) {
+		this.procPath = procPath;
+		processCollector = new ProcessCollector(procPath, (parallelism > 0) ? parallelism : Runtime.getRuntime().availableProcessors());
+		processFileLimit = Long.MAX_VALUE;
+
+		scan = new ProcessScan();
+		samplesByPid = new LongMap<>(256);
+		spareSamples = new ArrayList<>();
+		mustList = true;
+		loadAvgFile = new ProcFile(procPath + "/loadavg");
+		loadAvg = new LoadAvg();
+		fileNrFile = new ProcFile(procPath + "/sys/fs/file-nr");
+		fileNr = new FileNr();
+
+		memInfoFile = new ProcFile(procPath + "/meminfo");
+		memInfo = new MemInfo();
+		cpuSampler = new CpuSampler(procPath);
+	}
 
 	@Override
 	public void init(SystemInformation systemInformation) {
 		super.init(systemInformation);
 
+		// Soft limit on the number of open files for this process, the third token on the "Max open files" line
+		for (String line : FileUtil.readFile(procPath + "/self/limits")) {
+			if (line.startsWith("Max open files")) {
+				String limit = line.substring("Max open files".length()).trim().split("\\s+")[0];
+				if (!limit.equals("unlimited")) {
+					processFileLimit = Long.parseLong(limit);
+				}
+			}
+		}
+		updateProcFileCacheLimit(Long.MAX_VALUE);
+
 		systemInformation.extraInformation = new LinuxExtraInformation();
 		systemInformation.physicalMemoryTotalInstalled = systemInformation.physicalMemoryTotal;
 	}
@@ -52,218 +130,270 @@ public class LinuxInformationLoader extends InformationLoader {
 	public void update(SystemInformation systemInformation) {
 		super.update(systemInformation);
 
-		updateMemory(systemInformation);
-		updateTotalCpuTime();
-		updateProcesses(systemInformation);
+		if (schedule.isDue(Source.Memory)) {
+			updateMemory(systemInformation);
+		}
+		updateProcesses(systemInformation, schedule.isDue(Source.Processes));
+	}
+
+	@Override
+	public void close() {
+		if (executor != null) {
+			// Let a running scan finish before its file handles are closed
+			executor.execute(processCollector::shutdown);
+			executor.shutdown();
+		} else {
+			processCollector.shutdown();
+		}
+	}
+
+	@Override
+	protected boolean isSampledInBackground(Source source) {
+		return source == Source.Processes || super.isSampledInBackground(source);
 	}
 
 	private void updateMemory(SystemInformation systemInformation) {
-		Map<String, String> memInfo = FileUtil.getKeyValueMapFromFile(PROC_PATH + "/meminfo", ":");
-		if (memInfo.isEmpty()) {
+		if (!memInfo.parse(memInfoFile.read())) {
 			LOGGER.warn("Failed to read /proc/meminfo!");
 		} else {
 			// TODO Memory graph uses memory available while the composition uses memory available as defined by free
 			//  (not the same). Find out how linux defines memory available? Is it even possible?
 			LinuxExtraInformation extraInformation = (LinuxExtraInformation) systemInformation.extraInformation;
-			systemInformation.freeMemory = Long.parseLong(removeUnit(memInfo.get("MemFree"))) * 1024;
-			extraInformation.bufferMemory = Long.parseLong(removeUnit(memInfo.get("Buffers"))) * 1024;
-			extraInformation.cacheMemory = Long.parseLong(removeUnit(memInfo.get("Cached"))) * 1024 + Long.parseLong(removeUnit(memInfo.get("SReclaimable"))) * 1024;
-			extraInformation.sharedMemory = Long.parseLong(removeUnit(memInfo.get("Shmem"))) * 1024;
+			systemInformation.freeMemory = memInfo.memFree;
+			extraInformation.bufferMemory = memInfo.buffers;
+			extraInformation.cacheMemory = memInfo.cached + memInfo.sReclaimable;
+			extraInformation.sharedMemory = memInfo.shmem;
 
-			extraInformation.swapSize = Long.parseLong(removeUnit(memInfo.get("SwapTotal"))) * 1024;
-			extraInformation.swapUsed = extraInformation.swapSize - Long.parseLong(removeUnit(memInfo.get("SwapFree"))) * 1024;
+			extraInformation.swapSize = memInfo.swapTotal;
+			extraInformation.swapUsed = extraInformation.swapSize - memInfo.swapFree;
 		}
 	}
 
-	private void updateTotalCpuTime() {
-		lastCpuTime = currentCpuTime;
+	@Override
+	protected void updateCpuUsage(SystemInformation systemInformation, int elapsedUpdates) {
+		LinuxExtraInformation extraInformation = (LinuxExtraInformation) systemInformation.extraInformation;
+		if (!cpuSampler.sample()) {
+			LOGGER.warn("Failed to read /proc/stat, duplicating previous CPU-values");
+		} else {
+			// A failed sample is not lost, the next one covers its time as well
+			cpuTimeSinceScan += cpuSampler.getTotalTimeDelta();
+			processesCreatedSinceScan += cpuSampler.getProcessesCreatedDelta();
+		}
 
-		List<String> lines = FileUtil.readFile(PROC_PATH + "/stat");
-		String[] tokens = lines.get(0).split("\\s+");
-		long time = 0;
-		for (int i = 1; i < tokens.length; i++) {
-			time += Long.parseLong(tokens[i]);
+		for (int i = 0; i < systemInformation.cpuUsagePerCore.length; i++) {
+			double load = (i < cpuSampler.getCoreCount()) ? cpuSampler.getCoreLoad(i) : 0;
+			systemInformation.cpuUsagePerCore[i].addValue((short) Math.round(load * Config.DOUBLE_TO_LONG));
 		}
+		systemInformation.cpuUsageTotal.addValue((short) Math.round(cpuSampler.getTotalLoad() * Config.DOUBLE_TO_LONG));
 
-		currentCpuTime = time;
+		extraInformation.contextSwitches.addValue(cpuSampler.getContextSwitchesDelta() / elapsedUpdates);
+		extraInformation.processesCreated.addValue(cpuSampler.getProcessesCreatedDelta() / elapsedUpdates);
+		extraInformation.processesRunning.addValue(cpuSampler.getProcessesRunning());
 	}
 
-	private void updateProcesses(SystemInformation systemInformation) {
-		Set<Long> newProcessIds = fetchProcessIds();
+	@Override
+	protected void repeatCpuUsage(SystemInformation systemInformation) {
+		super.repeatCpuUsage(systemInformation);
 
-		int totalThreadCount = 0;
-		for (Long pid : newProcessIds) {
-			Process process = findProcess(systemInformation.processes, pid);
-			if (process == null) {
-				process = new Process(nextProcessId++, pid);
-				systemInformation.processes.add(process);
-			}
+		LinuxExtraInformation extraInformation = (LinuxExtraInformation) systemInformation.extraInformation;
+		repeat(extraInformation.contextSwitches);
+		repeat(extraInformation.processesCreated);
+		repeat(extraInformation.processesRunning);
+	}
 
-			String processPath = PROC_PATH + "/" + pid;
-			Map<String, String> status = FileUtil.getKeyValueMapFromFile(processPath + "/status", ":");
-			if (status.isEmpty()) {
-				LOGGER.warn("Failed to read /proc/{}/status", process.id);
+	/**
+	 * @param isDue If a new scan should be started, unless one is already in progress. The very first scan is waited
+	 *              for.
+	 */
+	private void updateProcesses(SystemInformation systemInformation, boolean isDue) {
+		if (isDue && pendingScan == null) {
+			if (executor == null) {
+				executor = Executors.newSingleThreadExecutor(r -> {
+					Thread thread = new Thread(r, "Process scan");
+					thread.setDaemon(true);
+					return thread;
+				});
 			}
+			long bootTime = systemInformation.bootTime;
+			long pageSize = systemInformation.pageSize;
+			long totalCpuTimeDelta = cpuTimeSinceScan;
+			long processesCreatedDelta = processesCreatedSinceScan;
+			cpuTimeSinceScan = 0;
+			processesCreatedSinceScan = 0;
+			pendingScan = executor.submit(() -> scanProcesses(bootTime, pageSize, totalCpuTimeDelta, processesCreatedDelta));
+		}
 
-			String[] stat = FileUtil.getStringFromFile(processPath + "/stat").split("\\s+");
-
-			if (!process.hasReadOnce) {
-				if (!status.isEmpty()) {
-					String userId = status.getOrDefault("Uid", "-1").split("\\s+")[0];
-					process.userName = UserGroupInfo.getUser(userId);
-					process.commandLine = FileUtil.getStringFromFile(processPath + "/cmdline").replaceAll("" + (char) 0, " ").trim();
-
-					// Read process name and path
-					try {
-						File target = new File("/proc/" + process.id + "/exe");
-						if (target.exists()) {
-							Path absolutePath = Files.readSymbolicLink(target.toPath()).toAbsolutePath();
-							process.filePath = absolutePath.toString();
-							process.fileName = absolutePath.getFileName().toString();
-						}
-					} catch (IOException e) {
-						LOGGER.warn("Failed to read /proc/{}/exe", process.id, e);
-					}
-
-					// Fallback for file name/path
-					if (process.fileName.isEmpty()) {
-						processFileNameAndPathFallback(process, processPath, status);
-					}
-					process.hasReadOnce = true;
-				}
-
-				if (stat.length > 21) {
-					process.startTimestamp = systemInformation.bootTime + Long.parseLong(stat[21]) * 1000 / LinuxOperatingSystem.getHz();
-				}
-
-//				if (process.description.isEmpty())
-//					process.description = process.fileName;
+		if (pendingScan != null && (pendingScan.isDone() || !hasScanned)) {
+			ProcessScan result = takeScan();
+			if (result != null) {
+				applyScan(systemInformation, result);
+				return;
 			}
+		}
+		repeatProcesses(systemInformation);
+	}
 
-			process.privateWorkingSet.addValue(Long.parseLong(removeUnit(status.getOrDefault("RssAnon", "0 kb"))) * 1024);
-
-			if (stat.length < 20) {
-				LOGGER.warn("Failed to read /proc/{}/stat, duplicating previous CPU-values", process.id);
-				process.cpuTime.addValue(process.cpuTime.newest());
-				process.cpuUsage.addValue(process.cpuUsage.newest());
-			} else {
-				long utime = Long.parseLong(stat[13]);
-				long stime = Long.parseLong(stat[14]);
-				// TODO Maybe use a delta of the process uptime (like LinuxOperatingSystem#getProcess():286)?
-				process.updateCpu(stime, utime, (currentCpuTime - lastCpuTime), 1); // Set cores to 1 since the total time is already divided by cores
-
-				process.status = parseStatus(stat[2]);
-
-				totalThreadCount += Integer.parseInt(stat[19]);
-			}
+	private ProcessScan takeScan() {
+		try {
+			return pendingScan.get();
+		} catch (ExecutionException e) {
+			LOGGER.error("Failed to scan the processes", e.getCause());
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} finally {
+			pendingScan = null;
+			hasScanned = true;
 		}
+	}
 
-		// Remove old processes
-		updateDeadProcesses(systemInformation, newProcessIds);
+	/**
+	 * Reads all processes into {@link #scan}, runs on the scan thread. /proc/stat is only read by the collector thread,
+	 * which passes on what it sampled since the previous scan was started.
+	 * @param totalCpuTimeDelta The CPU time that passed since the previous scan, summed over all cores.
+	 * @param processesCreatedDelta The number of processes created since the previous scan.
+	 */
+	ProcessScan scanProcesses(long bootTime, long pageSize, long totalCpuTimeDelta, long processesCreatedDelta) {
+		scan.timestamp = System.currentTimeMillis();
+		scan.totalCpuTimeDelta = Math.max(1, totalCpuTimeDelta);
+
+		// Listing /proc creates a string per process, so it is only listed again when a process has been created
+		// (the fork counter in /proc/stat moved) or has exited (the number of threads in /proc/loadavg changed
+		// without a fork), when a process could not be read, or when it has not been listed for a while
+		boolean hasLoadAvg = loadAvg.parse(loadAvgFile.read());
+		if (mustList || processesCreatedDelta != 0 || !hasLoadAvg || loadAvg.total != listedThreadCount ||
+				++scansSinceListing >= MAX_SCANS_BETWEEN_LISTINGS) {
+			listedThreadCount = hasLoadAvg ? loadAvg.total : -1;
+			scansSinceListing = 0;
+			listProcesses();
+		}
 
-		systemInformation.totalProcesses = newProcessIds.size();
-		systemInformation.totalThreads = totalThreadCount;
+		scan.totalThreads = processCollector.update(scan.samples, bootTime, pageSize);
+		mustList = false;
+		// Indexed loops on the scan thread, an iterator is not always optimized away
+		for (int i = 0; i < scan.samples.size(); i++) {
+			mustList |= !scan.samples.get(i).hasStat;
+		}
 
-		String fileNr = FileUtil.getStringFromFile("/proc/sys/fs/file-nr");
-		if (fileNr.isEmpty()) {
+		scan.hasFileNr = fileNr.parse(fileNrFile.read());
+		if (!scan.hasFileNr) {
 			LOGGER.warn("Failed to read /proc/sys/fs/file-nr!");
 		} else {
-			LinuxExtraInformation extraInformation = (LinuxExtraInformation) systemInformation.extraInformation;
-			extraInformation.openFileDescriptors = Long.parseLong(fileNr.split("\\s+")[0]);
-			extraInformation.openFileDescriptorsLimit = Long.parseLong(fileNr.split("\\s+")[2]);
+			scan.openFileDescriptors = fileNr.allocated;
+			scan.openFileDescriptorsLimit = fileNr.max;
 		}
+		return scan;
 	}
 
-	private Set<Long> fetchProcessIds() {
-		Set<Long> processIds = new HashSet<>();
-		File processDir = new File(PROC_PATH);
-		File[] files = processDir.listFiles(f -> f.isDirectory() && f.getName().matches("[0-9]+"));
-		if (files != null) {
-			for (File file : files) {
-				processIds.add(Long.parseLong(file.getName()));
+	private void listProcesses() {
+		listing++;
+		List<ProcessSample> listed = spareSamples;
+		listed.clear();
+		// The numeric entries are always process directories, so there is no need to check them with a stat each
+		String[] names = new File(procPath).list();
+		if (names != null) {
+			for (String name : names) {
+				long pid = parsePid(name);
+				if (pid >= 0) {
+					ProcessSample sample = samplesByPid.get(pid);
+					if (sample == null) {
+						sample = new ProcessSample(pid);
+						samplesByPid.put(pid, sample);
+					}
+					sample.listing = listing;
+					listed.add(sample);
+				}
 			}
 		}
-		return processIds;
-	}
 
-	private Process findProcess(List<Process> processes, long processId) {
-		for (Process process : processes) {
-			if (process.id == processId) {
-				return process;
+		for (ProcessSample sample : scan.samples) {
+			if (sample.listing != listing) {
+				samplesByPid.remove(sample.pid);
 			}
 		}
-		return null;
+		spareSamples = scan.samples;
+		scan.samples = listed;
+		processCollector.retainAll(samplesByPid::containsKey);
 	}
 
-	private void processFileNameAndPathFallback(Process process, String processPath, Map<String, String> status) {
-		String partialName = FileUtil.getStringFromFile(processPath + "/comm");
-		partialName = partialName.isEmpty() ? status.getOrDefault("Name", "") : partialName;
-		if (partialName.isEmpty() && process.commandLine.isEmpty()) {
-			LOGGER.warn("Process {}: Found no partial name in /proc/{}/[comm, status, cmdline], did the process die too quickly?", process.id, process.id);
-			return;
-		}
+	private void applyScan(SystemInformation systemInformation, ProcessScan scan) {
+		systemInformation.sampleTimestamps[Source.Processes.ordinal()] = scan.timestamp;
 
-		// First, see if the partial name is in the command line, in that case extract it and try to extract the path
-		int start = process.commandLine.indexOf(partialName);
-		if (start != -1) {
-			int startSpace = process.commandLine.lastIndexOf(' ', start);
-			int endSpace = process.commandLine.indexOf(' ', start + partialName.length());
-			endSpace = (endSpace == -1) ? process.commandLine.length() : endSpace;
-
-			start = process.commandLine.lastIndexOf(partialName, endSpace);
-			partialName = process.commandLine.substring(start, endSpace);
-			if (partialName.endsWith(":")) {
-				partialName = partialName.substring(0, partialName.length() - 1);
+		for (ProcessSample sample : scan.samples) {
+			Process process = systemInformation.getProcessById(sample.pid);
+			if (process == null) {
+				process = new Process(nextProcessId++, sample.pid);
+				systemInformation.addProcess(process);
 			}
-			process.fileName = partialName;
 
-			String filePath = process.commandLine.substring(startSpace + 1, endSpace);
-			File file = new File(filePath);
-			if (file.exists()) {
-				process.filePath = filePath;
+			process.fileName = sample.fileName;
+			process.filePath = sample.filePath;
+			process.commandLine = sample.commandLine;
+			process.userName = sample.userName;
+			process.startTimestamp = sample.startTimestamp;
+			process.hasReadOnce = sample.hasReadOnce;
+			process.loadedAttributes = sample.loadedAttributes;
+
+			process.privateWorkingSet.addValue(sample.privateWorkingSet);
+			if (sample.hasStat) {
+				// TODO Maybe use a delta of the process uptime (like LinuxOperatingSystem#getProcess():286)?
+				process.updateCpu(sample.systemTime, sample.userTime, scan.totalCpuTimeDelta, 1); // Set cores to 1 since the total time is already divided by cores
+				process.status = sample.status;
+			} else {
+				repeat(process.cpuTime);
+				repeat(process.cpuUsage);
 			}
-			return;
 		}
 
-		// Secondly if the partial name isn't in the command line, just take the first binary in the path
-		int space = process.commandLine.indexOf(' ');
-		if (space == -1) {
-			space = process.commandLine.length();
-		}
-		if (space > 0) {
-			int separator = process.commandLine.lastIndexOf(File.separator, space);
-			process.fileName = process.commandLine.substring(separator + 1, space);
-			String filePath = process.commandLine.substring(0, space);
-			File file = new File(filePath);
-			if (file.exists()) {
-				process.filePath = filePath;
-			}
-			return;
+		// Remove old processes
+		updateDeadProcesses(systemInformation, samplesByPid::containsKey);
+
+		systemInformation.totalProcesses = scan.samples.size();
+		systemInformation.totalThreads = scan.totalThreads;
+
+		if (scan.hasFileNr) {
+			LinuxExtraInformation extraInformation = (LinuxExtraInformation) systemInformation.extraInformation;
+			extraInformation.openFileDescriptors = scan.openFileDescriptors;
+			extraInformation.openFileDescriptorsLimit = scan.openFileDescriptorsLimit;
+
+			long available = scan.openFileDescriptorsLimit - scan.openFileDescriptors + processCollector.getOpenHandles();
+			updateProcFileCacheLimit(available);
 		}
+	}
 
-		// Lastly, with no command line this is the best we can do (first 15 chars)
-		process.fileName = partialName;
+	/**
+	 * Lets the cached /proc files use at most half of the descriptors available to this process and system-wide.
+	 */
+	private void updateProcFileCacheLimit(long systemAvailable) {
+		long limit = Math.min(processFileLimit, systemAvailable) / 2;
+		processCollector.setMaxOpenHandles((int) Math.max(0, Math.min(Integer.MAX_VALUE, limit)));
 	}
 
-	private String removeUnit(String value) {
-		if (!value.toLowerCase().endsWith("kb")) {
-			throw new IllegalArgumentException("Currently only supports the kb unit, error parsing: " + value);
+	private static long parsePid(String name) {
+		if (name.isEmpty() || name.length() > 18) {
+			return -1;
+		}
+		long pid = 0;
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			pid = pid * 10 + (c - '0');
 		}
-		return value.substring(0, value.length() - 3);
+		return pid;
 	}
 
-	private Status parseStatus(String token) {
-		switch (token.toUpperCase()) {
-			case "D":
-				return Status.Waiting;
-			case "Z":
-				return Status.Zombie;
-			case "T":
-				return Status.Suspended;
-			case "X":
-				return Status.Dead;
-			default:
-				return Status.Running;
-		}
+
+	static class ProcessScan {
+		long timestamp;
+		long totalCpuTimeDelta;
+		List<ProcessSample> samples = new ArrayList<>();
+		int totalThreads;
+
+		boolean hasFileNr;
+		long openFileDescriptors;
+		long openFileDescriptorsLimit;
 	}
 }
\ No newline at end of file
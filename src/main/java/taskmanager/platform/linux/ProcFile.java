@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.platform.linux;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A single /proc file that is kept open and re-read from the start on every read. The buffer grows until the whole
+ * file fits.
+ */
+public class ProcFile {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ProcFile.class);
+
+	private final String path;
+	private FileChannel channel;
+	private ByteBuffer buffer;
+
+	public ProcFile(String path) {
+		this.path = path;
+		this.buffer = ByteBuffer.allocateDirect(4096);
+	}
+
+	/**
+	 * @return The buffer (valid until the next read), or <code>null</code> if the file could not be read.
+	 */
+	public ByteBuffer read() {
+		try {
+			if (channel == null) {
+				channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+			}
+
+			while (true) {
+				buffer.clear();
+				long position = 0;
+				int read;
+				while ((read = channel.read(buffer, position)) > 0 && buffer.hasRemaining()) {
+					position += read;
+				}
+
+				if (buffer.hasRemaining()) {
+					buffer.flip();
+					return buffer;
+				}
+				buffer = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Failed to read {}", path, e);
+			close();
+			return null;
+		}
+	}
+
+	public void close() {
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				LOGGER.warn("Failed to close {}", path, e);
+			}
+			channel = null;
+		}
+	}
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.platform.linux;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import taskmanager.LongMap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongPredicate;
+
+/**
+ * Keeps the per-process /proc files that are read every update open, and re-reads them from the start (using
+ * positional reads) instead of opening and closing them each time. The least recently used handles are closed when
+ * more than the limit are open.
+ */
+public class ProcFileCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ProcFileCache.class);
+
+	public static final int STAT = 0;
+	public static final int STATM = 1;
+	private static final String[] FILE_NAMES = {"stat", "statm"};
+
+	private final String procPath;
+	private final LongMap<Handles> handles;
+	private Handles leastRecentlyUsed;
+	private Handles mostRecentlyUsed;
+	private final ByteBuffer buffer;
+	private int maxOpenHandles;
+	private int openHandles;
+
+	public ProcFileCache(String procPath, int maxOpenHandles) {
+		this.procPath = procPath;
+		this.maxOpenHandles = maxOpenHandles;
+		this.buffer = ByteBuffer.allocateDirect(4096);
+		this.handles = new LongMap<>(256);
+	}
+
+	/**
+	 * Reads the whole file into a shared buffer, which is valid until the next read.
+	 * @return The buffer, ready for reading, or <code>null</code> if the file could not be read (e.g. if the process
+	 * has died).
+	 */
+	public ByteBuffer read(long pid, int file) {
+		Handles entry = handles.get(pid);
+		if (entry == null) {
+			entry = new Handles(pid);
+			handles.put(pid, entry);
+		} else {
+			unlink(entry);
+		}
+		link(entry);
+
+		FileChannel[] channels = entry.channels;
+		try {
+			boolean isCached = channels[file] != null;
+			ByteBuffer data = tryRead(pid, channels, file);
+			if (data == null && isCached) {
+				// Cached handles fail once the process dies, in which case the PID may have been reused
+				data = tryRead(pid, channels, file);
+			}
+			return data;
+		} finally {
+			evict();
+		}
+	}
+
+	private ByteBuffer tryRead(long pid, FileChannel[] channels, int file) {
+		try {
+			if (channels[file] == null) {
+				channels[file] = FileChannel.open(Paths.get(procPath, Long.toString(pid), FILE_NAMES[file]), StandardOpenOption.READ);
+				openHandles++;
+			}
+			return readFully(channels[file]);
+		} catch (IOException e) {
+			close(channels, file);
+			return null;
+		}
+	}
+
+	private ByteBuffer readFully(FileChannel channel) throws IOException {
+		buffer.clear();
+		long position = 0;
+		int read;
+		// The files are generated in one go, so a read that doesn't fill the buffer has reached the end
+		do {
+			int requested = buffer.remaining();
+			read = channel.read(buffer, position);
+			position += read;
+			if (read < requested) {
+				break;
+			}
+		} while (buffer.hasRemaining());
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Closes the handles of all processes that are not alive according to the predicate.
+	 */
+	public void retainAll(LongPredicate isAlive) {
+		Handles entry = leastRecentlyUsed;
+		while (entry != null) {
+			Handles next = entry.next;
+			if (!isAlive.test(entry.pid)) {
+				remove(entry);
+			}
+			entry = next;
+		}
+	}
+
+	public void setMaxOpenHandles(int maxOpenHandles) {
+		this.maxOpenHandles = maxOpenHandles;
+		evict();
+	}
+
+	public int getOpenHandles() {
+		return openHandles;
+	}
+
+	public void clear() {
+		while (leastRecentlyUsed != null) {
+			remove(leastRecentlyUsed);
+		}
+	}
+
+	private void evict() {
+		while (openHandles > maxOpenHandles && leastRecentlyUsed != null) {
+			remove(leastRecentlyUsed);
+		}
+	}
+
+	private void remove(Handles entry) {
+		close(entry.channels);
+		unlink(entry);
+		handles.remove(entry.pid);
+	}
+
+	private void link(Handles entry) {
+		entry.previous = mostRecentlyUsed;
+		if (mostRecentlyUsed != null) {
+			mostRecentlyUsed.next = entry;
+		} else {
+			leastRecentlyUsed = entry;
+		}
+		mostRecentlyUsed = entry;
+	}
+
+	private void unlink(Handles entry) {
+		if (entry.previous != null) {
+			entry.previous.next = entry.next;
+		} else {
+			leastRecentlyUsed = entry.next;
+		}
+		if (entry.next != null) {
+			entry.next.previous = entry.previous;
+		} else {
+			mostRecentlyUsed = entry.previous;
+		}
+		entry.previous = null;
+		entry.next = null;
+	}
+
+	private void close(FileChannel[] channels) {
+		for (int i = 0; i < channels.length; i++) {
+			close(channels, i);
+		}
+	}
+
+	private void close(FileChannel[] channels, int file) {
+		if (channels[file] != null) {
+			try {
+				channels[file].close();
+			} catch (IOException e) {
+				LOGGER.warn("Failed to close a /proc file handle", e);
+			}
+			channels[file] = null;
+			openHandles--;
+		}
+	}
+
+
+	private static class Handles {
+		private final long pid;
+		private final FileChannel[] channels;
+		private Handles previous;
+		private Handles next;
+
+		Handles(long pid) {
+			this.pid = pid;
+			this.channels = new FileChannel[FILE_NAMES.length];
+		}
+	}
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+
+package taskmanager.platform.linux;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import oshi.driver.linux.proc.UserGroupInfo;
+import oshi.software.os.linux.LinuxOperatingSystem;
+import oshi.util.FileUtil;
+import taskmanager.AttributeDemand;
+import taskmanager.data.ProcessAttribute;
+import taskmanager.data.Status;
+import taskmanager.platform.linux.proc.ProcessStat;
+import taskmanager.platform.linux.proc.ProcessStatm;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.LongPredicate;
+
+/**
+ * Reads the per-process data from /proc into samples. With a parallelism above one the processes are partitioned by
+ * PID across a fixed pool of workers, where each worker has its own file handles and parsers. Every sample is only
+ * touched by one worker, so the result is the same as for a sequential update.
+ */
+public class ProcessCollector {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ProcessCollector.class);
+
+	private final String procPath;
+	private final Worker[] workers;
+	private final ForkJoinPool pool;
+
+	public ProcessCollector(String procPath, int parallelism) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("The parallelism must be at least 1!");
+
+		this.procPath = procPath;
+		this.workers = new Worker[parallelism];
+		for (int i = 0; i < parallelism; i++) {
+			workers[i] = new Worker(i);
+		}
+		this.pool = (parallelism > 1) ? new ForkJoinPool(parallelism) : null;
+	}
+
+	/**
+	 * Reads new values into the samples.
+	 * @return The total number of threads in the processes.
+	 */
+	public int update(List<ProcessSample> samples, long bootTime, long pageSize) {
+		// Read the demand once so that all workers load the same attributes
+		int demandedAttributes = AttributeDemand.getDemandedMask();
+		if (pool == null) {
+			return workers[0].update(samples, bootTime, pageSize, demandedAttributes);
+		}
+
+		List<Future<Integer>> results = new ArrayList<>(workers.length);
+		for (Worker worker : workers) {
+			results.add(pool.submit(() -> worker.update(samples, bootTime, pageSize, demandedAttributes)));
+		}
+
+		int totalThreadCount = 0;
+		try {
+			for (Future<Integer> result : results) {
+				totalThreadCount += result.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while collecting process data!", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Failed to collect process data!", e);
+		}
+		return totalThreadCount;
+	}
+
+	/**
+	 * Closes the file handles of all processes that are not alive according to the predicate.
+	 */
+	public void retainAll(LongPredicate isAlive) {
+		for (Worker worker : workers) {
+			worker.procFileCache.retainAll(isAlive);
+		}
+	}
+
+	public void setMaxOpenHandles(int maxOpenHandles) {
+		for (Worker worker : workers) {
+			worker.procFileCache.setMaxOpenHandles(maxOpenHandles / workers.length);
+		}
+	}
+
+	public int getOpenHandles() {
+		int openHandles = 0;
+		for (Worker worker : workers) {
+			openHandles += worker.procFileCache.getOpenHandles();
+		}
+		return openHandles;
+	}
+
+	public void shutdown() {
+		if (pool != null) {
+			pool.shutdown();
+		}
+		for (Worker worker : workers) {
+			worker.procFileCache.clear();
+		}
+	}
+
+
+	private class Worker {
+		private final int index;
+		private final ProcFileCache procFileCache;
+		private final ProcessStat processStat;
+		private final ProcessStatm processStatm;
+
+		Worker(int index) {
+			this.index = index;
+			this.procFileCache = new ProcFileCache(procPath, 0);
+			this.processStat = new ProcessStat();
+			this.processStatm = new ProcessStatm();
+		}
+
+		int update(List<ProcessSample> samples, long bootTime, long pageSize, int demandedAttributes) {
+			int totalThreadCount = 0;
+			for (int i = 0; i < samples.size(); i++) {
+				ProcessSample sample = samples.get(i);
+				// Partition by PID so that each process keeps using the same worker's file handles
+				if (sample.pid % workers.length == index) {
+					totalThreadCount += update(sample, bootTime, pageSize, demandedAttributes);
+				}
+			}
+			return totalThreadCount;
+		}
+
+		private int update(ProcessSample sample, long bootTime, long pageSize, int demandedAttributes) {
+			sample.hasStat = processStat.parse(procFileCache.read(sample.pid, ProcFileCache.STAT));
+			boolean hasStatm = processStatm.parse(procFileCache.read(sample.pid, ProcFileCache.STATM));
+
+			if (!sample.hasReadOnce) {
+				String processPath = procPath + "/" + sample.pid;
+
+				// Read process name and path
+				try {
+					File target = new File(processPath + "/exe");
+					if (target.exists()) {
+						Path absolutePath = Files.readSymbolicLink(target.toPath()).toAbsolutePath();
+						sample.filePath = absolutePath.toString();
+						sample.fileName = absolutePath.getFileName().toString();
+					}
+				} catch (IOException e) {
+					LOGGER.warn("Failed to read /proc/{}/exe", sample.pid, e);
+				}
+
+				// Fallback for file name/path, which needs the command line even if it isn't demanded
+				if (sample.fileName.isEmpty()) {
+					loadCommandLine(sample);
+					processFileNameAndPathFallback(sample, processPath);
+				}
+
+				if (sample.hasStat) {
+					sample.startTimestamp = bootTime + processStat.startTime * 1000 / LinuxOperatingSystem.getHz();
+					sample.hasReadOnce = true;
+				}
+
+//				if (process.description.isEmpty())
+//					process.description = process.fileName;
+			}
+
+			// Load attributes that have been demanded since the process was first seen (or since the last update)
+			int missingAttributes = demandedAttributes & ~sample.loadedAttributes;
+			if ((missingAttributes & ProcessAttribute.UserName.mask) != 0) {
+				loadUserName(sample);
+			}
+			if ((missingAttributes & ProcessAttribute.CommandLine.mask) != 0) {
+				loadCommandLine(sample);
+			}
+
+			// Resident minus shared (file-backed and shmem) pages, i.e. RssAnon in /proc/[pid]/status
+			if (hasStatm) {
+				long residentPages = processStatm.resident - processStatm.shared;
+				sample.privateWorkingSet = residentPages * pageSize;
+			} else {
+				sample.privateWorkingSet = 0;
+			}
+
+			if (!sample.hasStat) {
+				// Usually the process has died, which the next scan will notice when it lists /proc again
+				LOGGER.debug("Failed to read /proc/{}/stat, duplicating previous CPU-values", sample.pid);
+				return 0;
+			}
+			sample.systemTime = processStat.systemTime;
+			sample.userTime = processStat.userTime;
+			sample.status = parseStatus(processStat.state);
+			return processStat.threadCount;
+		}
+	}
+
+	private void loadUserName(ProcessSample sample) {
+		Map<String, String> status = FileUtil.getKeyValueMapFromFile(procPath + "/" + sample.pid + "/status", ":");
+		if (status.isEmpty()) {
+			LOGGER.warn("Failed to read /proc/{}/status", sample.pid);
+		} else {
+			String userId = status.getOrDefault("Uid", "-1").split("\\s+")[0];
+			sample.userName = UserGroupInfo.getUser(userId);
+			sample.setLoaded(ProcessAttribute.UserName);
+		}
+	}
+
+	private void loadCommandLine(ProcessSample sample) {
+		if (!sample.isLoaded(ProcessAttribute.CommandLine)) {
+			sample.commandLine = FileUtil.getStringFromFile(procPath + "/" + sample.pid + "/cmdline").replaceAll("" + (char) 0, " ").trim();
+			sample.setLoaded(ProcessAttribute.CommandLine);
+		}
+	}
+
+	private static void processFileNameAndPathFallback(ProcessSample process, String processPath) {
+		String partialName = FileUtil.getStringFromFile(processPath + "/comm");
+		if (partialName.isEmpty()) {
+			partialName = FileUtil.getKeyValueMapFromFile(processPath + "/status", ":").getOrDefault("Name", "");
+		}
+		if (partialName.isEmpty() && process.commandLine.isEmpty()) {
+			LOGGER.warn("Process {}: Found no partial name in /proc/{}/[comm, status, cmdline], did the process die too quickly?", process.pid, process.pid);
+			return;
+		}
+
+		// First, see if the partial name is in the command line, in that case extract it and try to extract the path
+		int start = process.commandLine.indexOf(partialName);
+		if (start != -1) {
+			int startSpace = process.commandLine.lastIndexOf(' ', start);
+			int endSpace = process.commandLine.indexOf(' ', start + partialName.length());
+			endSpace = (endSpace == -1) ? process.commandLine.length() : endSpace;
+
+			start = process.commandLine.lastIndexOf(partialName, endSpace);
+			partialName = process.commandLine.substring(start, endSpace);
+			if (partialName.endsWith(":")) {
+				partialName = partialName.substring(0, partialName.length() - 1);
+			}
+			process.fileName = partialName;
+
+			String filePath = process.commandLine.substring(startSpace + 1, endSpace);
+			File file = new File(filePath);
+			if (file.exists()) {
+				process.filePath = filePath;
+			}
+			return;
+		}
+
+		// Secondly if the partial name isn't in the command line, just take the first binary in the path
+		int space = process.commandLine.indexOf(' ');
+		if (space == -1) {
+			space = process.commandLine.length();
+		}
+		if (space > 0) {
+			int separator = process.commandLine.lastIndexOf(File.separator, space);
+			process.fileName = process.commandLine.substring(separator + 1, space);
+			String filePath = process.commandLine.substring(0, space);
+			File file = new File(filePath);
+			if (file.exists()) {
+				process.filePath = filePath;
+			}
+			return;
+		}
+
+		// Lastly, with no command line this is the best we can do (first 15 chars)
+		process.fileName = partialName;
+	}
+
+	private static Status parseStatus(byte state) {
+		switch (state) {
+			case 'D':
+				return Status.Waiting;
+			case 'Z':
+				return Status.Zombie;
+			case 'T':
+			case 't':
+				return Status.Suspended;
+			case 'X':
+				return Status.Dead;
+			default:
+				return Status.Running;
+		}
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+
+package taskmanager.platform.linux;
+
+import taskmanager.data.ProcessAttribute;
+import taskmanager.data.Status;
+
+/**
+ * The values read for one process by a scan. The samples are filled on the scan thread and then applied to the
+ * processes by the collector thread, so they also carry the information that is only read once per process.
+ */
+public class ProcessSample {
+	public final long pid;
+
+	public boolean hasStat;
+	public long systemTime;
+	public long userTime;
+	public Status status;
+	public long privateWorkingSet;
+
+	public boolean hasReadOnce;
+	public long startTimestamp;
+	public String fileName;
+	public String filePath;
+	public String commandLine;
+	public String userName;
+	public int loadedAttributes; // Bit mask of the loaded ProcessAttributes
+
+	public long listing; // The last listing of /proc that contained the process
+
+	public ProcessSample(long pid) {
+		this.pid = pid;
+		status = Status.Running;
+		fileName = "";
+		filePath = "";
+		commandLine = "";
+		userName = "Unknown";
+	}
+
+	public boolean isLoaded(ProcessAttribute attribute) {
+		return (loadedAttributes & attribute.mask) != 0;
+	}
+
+	public void setLoaded(ProcessAttribute attribute) {
+		loadedAttributes |= attribute.mask;
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.platform.linux.proc;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Scans whitespace separated ASCII tokens in a buffer without allocating, used to parse /proc files. The buffer is
+ * read with absolute gets between its position and limit, so it is never modified.
+ */
+public class ByteScanner {
+	private ByteBuffer buffer;
+	private int position;
+	private int limit;
+
+	public ByteScanner reset(ByteBuffer buffer) {
+		this.buffer = buffer;
+		this.position = buffer.position();
+		this.limit = buffer.limit();
+		return this;
+	}
+
+	public boolean hasRemaining() {
+		return position < limit;
+	}
+
+	public int position() {
+		return position;
+	}
+
+	public void position(int position) {
+		this.position = Math.min(position, limit);
+	}
+
+	/**
+	 * @return The index of the last occurrence of <code>value</code>, or -1 if it doesn't occur.
+	 */
+	public int lastIndexOf(byte value) {
+		for (int i = limit - 1; i >= position; i--) {
+			if (buffer.get(i) == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public void skipWhitespace() {
+		while (position < limit && isWhitespace(buffer.get(position))) {
+			position++;
+		}
+	}
+
+	/**
+	 * Skips spaces and tabs, but not line breaks.
+	 */
+	public void skipSpaces() {
+		while (position < limit && (buffer.get(position) == ' ' || buffer.get(position) == '\t')) {
+			position++;
+		}
+	}
+
+	public boolean atSpace() {
+		return position < limit && (buffer.get(position) == ' ' || buffer.get(position) == '\t');
+	}
+
+	public boolean atLineEnd() {
+		return position >= limit || buffer.get(position) == '\n';
+	}
+
+	public void skipTokens(int count) {
+		for (int i = 0; i < count; i++) {
+			skipWhitespace();
+			while (position < limit && !isWhitespace(buffer.get(position))) {
+				position++;
+			}
+		}
+	}
+
+	public void skipLine() {
+		while (position < limit && buffer.get(position) != '\n') {
+			position++;
+		}
+		if (position < limit) {
+			position++;
+		}
+	}
+
+	/**
+	 * Reads the first byte of the next token and skips the rest of it.
+	 * @return The byte, or 0 if there are no more tokens.
+	 */
+	public byte nextByte() {
+		skipWhitespace();
+		if (position >= limit) {
+			return 0;
+		}
+
+		byte value = buffer.get(position);
+		skipTokens(1);
+		return value;
+	}
+
+	/**
+	 * Parses the next token as a (possibly negative) decimal number, stopping at the first non-digit.
+	 * @throws NumberFormatException If there is no number at the current position.
+	 */
+	public long nextLong() {
+		skipWhitespace();
+
+		boolean negative = position < limit && buffer.get(position) == '-';
+		if (negative) {
+			position++;
+		}
+
+		int start = position;
+		long value = 0;
+		while (position < limit) {
+			int digit = buffer.get(position) - '0';
+			if (digit < 0 || digit > 9) {
+				break;
+			}
+			value = value * 10 + digit;
+			position++;
+		}
+
+		if (position == start) {
+			throw new NumberFormatException("Expected a number at position " + start + "!");
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Checks if the upcoming bytes match <code>prefix</code>, and skips past them if they do.
+	 */
+	public boolean skipIfStartsWith(byte[] prefix) {
+		if (limit - position < prefix.length) {
+			return false;
+		}
+
+		for (int i = 0; i < prefix.length; i++) {
+			if (buffer.get(position + i) != prefix[i]) {
+				return false;
+			}
+		}
+		position += prefix.length;
+		return true;
+	}
+
+	private static boolean isWhitespace(byte value) {
+		return value == ' ' || value == '\n' || value == '\t' || value == '\r';
+	}
+}
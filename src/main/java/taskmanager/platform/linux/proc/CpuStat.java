@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.platform.linux.proc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The fields used from /proc/stat: the CPU ticks (in total and per core) and the scheduler counters.
+ */
+public class CpuStat {
+	/** The number of tick types read from each cpu line: user, nice, system, idle, iowait, irq, softirq and steal. */
+	public static final int TICK_TYPES = 8;
+	public static final int IDLE = 3;
+	public static final int IOWAIT = 4;
+
+	private static final byte[] CPU = "cpu".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] CONTEXT_SWITCHES = "ctxt ".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] PROCESSES_CREATED = "processes ".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] PROCESSES_RUNNING = "procs_running ".getBytes(StandardCharsets.US_ASCII);
+
+	public final long[] totalTicks;
+	public long[][] coreTicks;
+	public int coreCount;
+
+	public long contextSwitches; // Since boot
+	public long processesCreated; // Since boot
+	public long processesRunning;
+
+	private final ByteScanner scanner = new ByteScanner();
+
+	public CpuStat() {
+		totalTicks = new long[TICK_TYPES];
+		coreTicks = new long[0][];
+	}
+
+	/**
+	 * @return <code>true</code> if at least the aggregated cpu line was found.
+	 */
+	public boolean parse(ByteBuffer buffer) {
+		if (buffer == null) {
+			return false;
+		}
+
+		boolean foundTotal = false;
+		coreCount = 0;
+		scanner.reset(buffer);
+		try {
+			while (scanner.hasRemaining()) {
+				if (scanner.skipIfStartsWith(CPU)) {
+					if (scanner.atSpace()) {
+						readTicks(totalTicks);
+						foundTotal = true;
+					} else {
+						int core = (int) scanner.nextLong();
+						ensureCores(core + 1);
+						readTicks(coreTicks[core]);
+						coreCount = Math.max(coreCount, core + 1);
+					}
+				} else if (scanner.skipIfStartsWith(CONTEXT_SWITCHES)) {
+					contextSwitches = scanner.nextLong();
+				} else if (scanner.skipIfStartsWith(PROCESSES_CREATED)) {
+					processesCreated = scanner.nextLong();
+				} else if (scanner.skipIfStartsWith(PROCESSES_RUNNING)) {
+					processesRunning = scanner.nextLong();
+				}
+				scanner.skipLine();
+			}
+		} catch (NumberFormatException e) {
+			return false;
+		}
+		return foundTotal;
+	}
+
+	private void readTicks(long[] ticks) {
+		// Older kernels have fewer fields, newer have more (guest time, which is already included in user and nice)
+		for (int i = 0; i < ticks.length; i++) {
+			scanner.skipSpaces();
+			ticks[i] = scanner.atLineEnd() ? 0 : scanner.nextLong();
+		}
+	}
+
+	private void ensureCores(int count) {
+		if (coreTicks.length < count) {
+			long[][] newTicks = new long[count][];
+			System.arraycopy(coreTicks, 0, newTicks, 0, coreTicks.length);
+			for (int i = coreTicks.length; i < count; i++) {
+				newTicks[i] = new long[TICK_TYPES];
+			}
+			coreTicks = newTicks;
+		}
+	}
+
+	public static long sum(long[] ticks) {
+		long sum = 0;
+		for (long tick : ticks) {
+			sum += tick;
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.platform.linux.proc;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The system-wide file descriptor counts in /proc/sys/fs/file-nr.
+ */
+public class FileNr {
+	public long allocated;
+	public long unused; // Always zero since Linux 2.6
+	public long max;
+
+	private final ByteScanner scanner = new ByteScanner();
+
+	public boolean parse(ByteBuffer buffer) {
+		if (buffer == null) {
+			return false;
+		}
+
+		scanner.reset(buffer);
+		try {
+			allocated = scanner.nextLong();
+			unused = scanner.nextLong();
+			max = scanner.nextLong();
+			return true;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.platform.linux.proc;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The scheduling entity counts in /proc/loadavg, e.g. "0.20 0.18 0.12 1/80 11206".
+ */
+public class LoadAvg {
+	private static final byte[] SLASH = {'/'};
+
+	public long running;
+	public long total; // All processes and threads
+	public long lastPid;
+
+	private final ByteScanner scanner = new ByteScanner();
+
+	public boolean parse(ByteBuffer buffer) {
+		if (buffer == null) {
+			return false;
+		}
+
+		scanner.reset(buffer);
+		try {
+			scanner.skipTokens(3);
+			running = scanner.nextLong();
+			if (!scanner.skipIfStartsWith(SLASH)) {
+				return false;
+			}
+			total = scanner.nextLong();
+			lastPid = scanner.nextLong();
+			return true;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+}
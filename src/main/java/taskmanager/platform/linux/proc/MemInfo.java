@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.platform.linux.proc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The fields used from /proc/meminfo, converted to bytes.
+ */
+public class MemInfo {
+	private static final byte[] MEM_FREE = key("MemFree");
+	private static final byte[] BUFFERS = key("Buffers");
+	private static final byte[] CACHED = key("Cached");
+	private static final byte[] S_RECLAIMABLE = key("SReclaimable");
+	private static final byte[] SHMEM = key("Shmem");
+	private static final byte[] SWAP_TOTAL = key("SwapTotal");
+	private static final byte[] SWAP_FREE = key("SwapFree");
+
+	public long memFree;
+	public long buffers;
+	public long cached;
+	public long sReclaimable;
+	public long shmem;
+	public long swapTotal;
+	public long swapFree;
+
+	private final ByteScanner scanner = new ByteScanner();
+
+	/**
+	 * @return <code>true</code> if all fields were found.
+	 */
+	public boolean parse(ByteBuffer buffer) {
+		if (buffer == null) {
+			return false;
+		}
+
+		int found = 0;
+		scanner.reset(buffer);
+		try {
+			while (scanner.hasRemaining()) {
+				if (scanner.skipIfStartsWith(MEM_FREE)) {
+					memFree = nextKb();
+				} else if (scanner.skipIfStartsWith(BUFFERS)) {
+					buffers = nextKb();
+				} else if (scanner.skipIfStartsWith(CACHED)) {
+					cached = nextKb();
+				} else if (scanner.skipIfStartsWith(S_RECLAIMABLE)) {
+					sReclaimable = nextKb();
+				} else if (scanner.skipIfStartsWith(SHMEM)) {
+					shmem = nextKb();
+				} else if (scanner.skipIfStartsWith(SWAP_TOTAL)) {
+					swapTotal = nextKb();
+				} else if (scanner.skipIfStartsWith(SWAP_FREE)) {
+					swapFree = nextKb();
+				} else {
+					found--;
+				}
+				found++;
+				scanner.skipLine();
+			}
+		} catch (NumberFormatException e) {
+			return false;
+		}
+		return found == 7;
+	}
+
+	private long nextKb() {
+		// The values are always in kB, even though the unit is written out
+		return scanner.nextLong() * 1024;
+	}
+
+	private static byte[] key(String name) {
+		return (name + ":").getBytes(StandardCharsets.US_ASCII);
+	}
+}
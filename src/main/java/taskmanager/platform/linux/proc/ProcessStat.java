@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.platform.linux.proc;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The fields used from /proc/[pid]/stat. The values are in clock ticks, except for the thread count.
+ */
+public class ProcessStat {
+	public byte state;
+	public long userTime;
+	public long systemTime;
+	public int threadCount;
+	public long startTime;
+
+	private final ByteScanner scanner = new ByteScanner();
+
+	/**
+	 * @return <code>true</code> if all fields were parsed.
+	 */
+	public boolean parse(ByteBuffer buffer) {
+		if (buffer == null) {
+			return false;
+		}
+
+		// The command name (field 2) is in parentheses and may contain both spaces and parentheses itself
+		scanner.reset(buffer);
+		int commEnd = scanner.lastIndexOf((byte) ')');
+		if (commEnd == -1) {
+			return false;
+		}
+		scanner.position(commEnd + 1);
+
+		try {
+			state = scanner.nextByte(); // 3
+			scanner.skipTokens(10);
+			userTime = scanner.nextLong(); // 14
+			systemTime = scanner.nextLong(); // 15
+			scanner.skipTokens(4);
+			threadCount = (int) scanner.nextLong(); // 20
+			scanner.skipTokens(1);
+			startTime = scanner.nextLong(); // 22
+			return true;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.platform.linux.proc;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The fields used from /proc/[pid]/statm, in pages.
+ */
+public class ProcessStatm {
+	public long size;
+	public long resident;
+	public long shared; // File-backed and shmem pages
+
+	private final ByteScanner scanner = new ByteScanner();
+
+	public boolean parse(ByteBuffer buffer) {
+		if (buffer == null) {
+			return false;
+		}
+
+		scanner.reset(buffer);
+		try {
+			size = scanner.nextLong();
+			resident = scanner.nextLong();
+			shared = scanner.nextLong();
+			return true;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+}
@@ -34,6 +34,7 @@ import com.sun.jna.ptr.IntByReference;
 import com.sun.jna.ptr.PointerByReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import taskmanager.CollectionSchedule.Source;
 import taskmanager.InformationLoader;
 import taskmanager.data.Process;
 import taskmanager.data.Status;
@@ -124,8 +125,12 @@ public class WindowsInformationLoader extends InformationLoader {
 		super.update(systemInformation);
 		WindowsExtraInformation extraInformation = (WindowsExtraInformation) systemInformation.extraInformation;
 
-		updateTotalCpuTime();
-		updateProcesses(systemInformation);
+		if (schedule.isDue(Source.Processes)) {
+			updateTotalCpuTime();
+			updateProcesses(systemInformation);
+		} else {
+			repeatProcesses(systemInformation);
+		}
 
 		PERFORMANCE_INFORMATION performanceInfo = fetchPerformanceInformation();
 		systemInformation.totalProcesses = performanceInfo.ProcessCount.intValue();
@@ -175,7 +180,7 @@ public class WindowsInformationLoader extends InformationLoader {
 			Process process = systemInformation.getProcessById(newProcess.process.uniqueProcessId);
 			if (process == null) {
 				process = new Process(nextProcessId++, newProcess.process.uniqueProcessId);
-				systemInformation.processes.add(process);
+				systemInformation.addProcess(process);
 			}
 
 			if (!process.hasReadOnce) {
@@ -212,7 +217,7 @@ public class WindowsInformationLoader extends InformationLoader {
 			process.hasReadOnce = true;
 		}
 
-		updateDeadProcesses(systemInformation, newProcessIds);
+		updateDeadProcesses(systemInformation, newProcessIds::contains);
 	}
 
 	private Status readProcessStatus(ProcessInfo process) {
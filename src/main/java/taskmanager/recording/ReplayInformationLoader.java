@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+
+package taskmanager.recording;
+
+import config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import taskmanager.InformationLoader;
+import taskmanager.MeasurementFactory;
+import taskmanager.Measurements;
+import taskmanager.data.Disk;
+import taskmanager.data.Gpu;
+import taskmanager.data.Network;
+import taskmanager.data.Process;
+import taskmanager.data.Status;
+import taskmanager.data.SystemInformation;
+import taskmanager.platform.linux.LinuxExtraInformation;
+import taskmanager.platform.win32.WindowsExtraInformation;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.InflaterInputStream;
+
+import static taskmanager.recording.SessionFormat.*;
+
+/**
+ * Plays back a recording made by {@link SessionRecorder}, one recorded tick per update. The time between updates is
+ * the recorded time divided by the speed, a speed of 0 or less replays as fast as possible. When the recording ends
+ * the information stops changing.
+ */
+public class ReplayInformationLoader extends InformationLoader {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReplayInformationLoader.class);
+
+	private static final Status[] STATUSES = Status.values();
+	private static final Gpu.Type[] GPU_TYPES = Gpu.Type.values();
+
+	private final Path file;
+	private final double speed;
+	private DataInputStream in;
+
+	private int coreCount;
+	private int extraInformationType;
+
+	private boolean hasNextTick;
+	private long nextTickInterval;
+	private long ticks;
+
+	private final Set<Long> processIds;
+
+	public ReplayInformationLoader(Path file, double speed) {
+		this.file = file;
+		this.speed = speed;
+		processIds = new HashSet<>();
+	}
+
+	@Override
+	public void init(SystemInformation systemInformation) {
+		try {
+			in = new DataInputStream(new InflaterInputStream(new BufferedInputStream(Files.newInputStream(file))));
+			readHeader(systemInformation);
+			readNextTickStart();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read the recording " + file + "!", e);
+		}
+	}
+
+	private void readHeader(SystemInformation systemInformation) throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new IOException(file + " is not a recording!");
+		}
+		int version = readInt(in);
+		if (version > VERSION) {
+			throw new IOException("Unsupported recording version " + version + "!");
+		}
+		float updateRate = in.readFloat();
+		if (updateRate != Config.getFloat(Config.KEY_UPDATE_RATE)) {
+			LOGGER.warn("The recording was made with the update rate {} but {} is used, rates will be shown incorrectly",
+					updateRate, Config.getFloat(Config.KEY_UPDATE_RATE));
+		}
+
+		systemInformation.bootTime = readLong(in);
+		systemInformation.pageSize = readLong(in);
+		systemInformation.physicalMemoryTotalInstalled = readLong(in);
+		systemInformation.physicalMemoryTotal = readLong(in);
+		systemInformation.logicalProcessorCount = readInt(in);
+		systemInformation.physicalProcessorCount = readInt(in);
+		coreCount = readInt(in);
+		systemInformation.cpuUsagePerCore = createCoreMeasurements(coreCount);
+		systemInformation.userName = readString(in);
+
+		systemInformation.networks = new Network[readInt(in)];
+		for (int i = 0; i < systemInformation.networks.length; i++) {
+			Network network = new Network();
+			network.name = readString(in);
+			network.macAddress = readString(in);
+			network.ipv4Addresses = readStrings(in);
+			network.ipv6Addresses = readStrings(in);
+			systemInformation.networks[i] = network;
+		}
+		systemInformation.disks = new Disk[readInt(in)];
+		for (int i = 0; i < systemInformation.disks.length; i++) {
+			Disk disk = new Disk();
+			disk.index = readInt(in);
+			disk.name = readString(in);
+			disk.model = readString(in);
+			disk.size = readLong(in);
+			systemInformation.disks[i] = disk;
+		}
+		systemInformation.gpus = new Gpu[readInt(in)];
+		for (int i = 0; i < systemInformation.gpus.length; i++) {
+			Gpu gpu = new Gpu();
+			gpu.index = readInt(in);
+			gpu.type = GPU_TYPES[readInt(in)];
+			gpu.name = readString(in);
+			gpu.vendor = readString(in);
+			gpu.deviceId = readInt(in);
+			gpu.totalMemory = readLong(in);
+			systemInformation.gpus[i] = gpu;
+		}
+
+		extraInformationType = readInt(in);
+		if (extraInformationType == EXTRA_LINUX) {
+			systemInformation.extraInformation = new LinuxExtraInformation();
+		} else if (extraInformationType == EXTRA_WINDOWS) {
+			systemInformation.extraInformation = new WindowsExtraInformation();
+		}
+	}
+
+	private static Measurements<Short>[] createCoreMeasurements(int coreCount) {
+		Measurements<Short>[] measurements = MeasurementFactory.createArray(coreCount);
+		for (int i = 0; i < coreCount; i++) {
+			measurements[i] = MeasurementFactory.createShort((short) 0);
+		}
+		return measurements;
+	}
+
+	/**
+	 * Reads the start of the next tick, or notes that the recording has ended.
+	 */
+	private void readNextTickStart() throws IOException {
+		int marker;
+		try {
+			marker = in.read();
+		} catch (EOFException e) {
+			marker = -1; // The recording was not closed properly, but all flushed ticks have been read
+		}
+		if (marker == -1) {
+			hasNextTick = false;
+			in.close();
+			LOGGER.info("Replayed all {} ticks of {}", ticks, file);
+			return;
+		}
+		if (marker != TICK) {
+			throw new IOException("Unexpected marker " + marker + " in the recording!");
+		}
+		nextTickInterval = readLong(in);
+		hasNextTick = true;
+	}
+
+	@Override
+	public void close() {
+		if (hasNextTick) {
+			try {
+				in.close();
+			} catch (IOException e) {
+				LOGGER.warn("Failed to close the recording {}", file, e);
+			}
+			hasNextTick = false;
+		}
+	}
+
+	@Override
+	public long getUpdateInterval() {
+		if (!hasNextTick || ticks == 0) {
+			return super.getUpdateInterval();
+		}
+		return (speed > 0) ? Math.round(nextTickInterval / speed) : 0;
+	}
+
+	/**
+	 * @return True if all ticks in the recording have been replayed.
+	 */
+	public boolean isFinished() {
+		return !hasNextTick;
+	}
+
+	@Override
+	public void update(SystemInformation systemInformation) {
+		if (!hasNextTick) {
+			return;
+		}
+
+		try {
+			readTick(systemInformation);
+			ticks++;
+			readNextTickStart();
+		} catch (IOException e) {
+			LOGGER.warn("Failed to read tick {} of the recording, stopping the replay", ticks, e);
+			hasNextTick = false;
+		}
+	}
+
+	private void readTick(SystemInformation systemInformation) throws IOException {
+		systemInformation.uptime = readLong(in);
+		systemInformation.memoryUsed.addValue(readLong(in));
+		systemInformation.freeMemory = readLong(in);
+		systemInformation.reservedMemory = readLong(in);
+		systemInformation.cpuUsageTotal.addValue((short) readInt(in));
+		for (int i = 0; i < coreCount; i++) {
+			systemInformation.cpuUsagePerCore[i].addValue((short) readInt(in));
+		}
+		systemInformation.totalProcesses = readInt(in);
+		systemInformation.totalThreads = readInt(in);
+
+		removeExpiredDeadProcesses(systemInformation);
+
+		for (Network network : systemInformation.networks) {
+			network.inRate.addValue(readLong(in));
+			network.outRate.addValue(readLong(in));
+			network.isEnabled = in.readBoolean();
+		}
+		for (Disk disk : systemInformation.disks) {
+			disk.readRate.addValue(readLong(in));
+			disk.writeRate.addValue(readLong(in));
+			disk.activeFraction.addValue(in.readDouble());
+			disk.ioQueueLength.addValue(readLong(in));
+		}
+		for (Gpu gpu : systemInformation.gpus) {
+			readGpu(gpu);
+		}
+
+		// The live loaders select the top lists before the processes are updated, keep the same order
+		if (ticks > 0) {
+			updateTopLists(systemInformation);
+		}
+
+		readExtraInformation(systemInformation);
+		readProcesses(systemInformation);
+	}
+
+	private void readGpu(Gpu gpu) throws IOException {
+		int supported = readInt(in);
+		gpu.memorySupported = (supported & GPU_MEMORY) != 0;
+		gpu.utilizationSupported = (supported & GPU_UTILIZATION) != 0;
+		gpu.temperatureSupported = (supported & GPU_TEMPERATURE) != 0;
+		gpu.encoderSupported = (supported & GPU_ENCODER) != 0;
+		gpu.decoderSupported = (supported & GPU_DECODER) != 0;
+		gpu.driverVersion = readString(in);
+		gpu.usedMemory.addValue(readLong(in));
+		gpu.utilization.addValue(readLong(in));
+		gpu.temperature.addValue(readLong(in));
+		gpu.encoderUtilization.addValue(readLong(in));
+		gpu.decoderUtilization.addValue(readLong(in));
+	}
+
+	private void readExtraInformation(SystemInformation systemInformation) throws IOException {
+		if (extraInformationType == EXTRA_LINUX) {
+			LinuxExtraInformation extraInformation = (LinuxExtraInformation) systemInformation.extraInformation;
+			extraInformation.openFileDescriptors = readLong(in);
+			extraInformation.openFileDescriptorsLimit = readLong(in);
+			extraInformation.bufferMemory = readLong(in);
+			extraInformation.cacheMemory = readLong(in);
+			extraInformation.sharedMemory = readLong(in);
+			extraInformation.swapSize = readLong(in);
+			extraInformation.swapUsed = readLong(in);
+			extraInformation.contextSwitches.addValue(readLong(in));
+			extraInformation.processesCreated.addValue(readLong(in));
+			extraInformation.processesRunning.addValue(readLong(in));
+		} else if (extraInformationType == EXTRA_WINDOWS) {
+			WindowsExtraInformation extraInformation = (WindowsExtraInformation) systemInformation.extraInformation;
+			extraInformation.handles = readInt(in);
+			extraInformation.standbyMemory = readLong(in);
+			extraInformation.modifiedMemory = readLong(in);
+			extraInformation.commitLimit = readLong(in);
+			extraInformation.commitUsed = readLong(in);
+			extraInformation.kernelPaged = readLong(in);
+			extraInformation.kernelNonPaged = readLong(in);
+		}
+	}
+
+	private void readProcesses(SystemInformation systemInformation) throws IOException {
+		int count = readInt(in);
+		processIds.clear();
+
+		long uniqueId = 0;
+		long id = 0;
+		for (int i = 0; i < count; i++) {
+			uniqueId += readLong(in);
+			id += readLong(in);
+			long cpuUsage = readLong(in);
+			long cpuTime = readLong(in);
+			long privateWorkingSet = readLong(in);
+			int changes = readInt(in);
+
+			Process process = systemInformation.getProcessByUniqueId(uniqueId);
+			if (process == null || (changes & PROCESS_NEW) != 0) {
+				process = new Process(uniqueId, id);
+				systemInformation.addProcess(process);
+			}
+			process.cpuUsage.addValue(cpuUsage);
+			process.cpuTime.addValue(cpuTime);
+			process.privateWorkingSet.addValue(privateWorkingSet);
+
+			if ((changes & PROCESS_FILE_NAME) != 0) {
+				process.fileName = readString(in);
+			}
+			if ((changes & PROCESS_FILE_PATH) != 0) {
+				process.filePath = readString(in);
+			}
+			if ((changes & PROCESS_COMMAND_LINE) != 0) {
+				process.commandLine = readString(in);
+			}
+			if ((changes & PROCESS_DESCRIPTION) != 0) {
+				process.description = readString(in);
+			}
+			if ((changes & PROCESS_USER_NAME) != 0) {
+				process.userName = readString(in);
+			}
+			if ((changes & PROCESS_STATE) != 0) {
+				process.status = STATUSES[readInt(in)];
+				process.startTimestamp = readLong(in);
+				process.loadedAttributes = readInt(in);
+				process.hasReadOnce = in.readBoolean();
+			}
+			processIds.add(id);
+		}
+
+		updateDeadProcesses(systemInformation, processIds::contains);
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+
+package taskmanager.recording;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Constants and encodings shared by {@link SessionRecorder} and {@link ReplayInformationLoader}. A recording is a
+ * deflate stream with a header describing the system, followed by one tick per update. Integers are written as
+ * zig-zag encoded variable length numbers since most values, and all differences to the previous value, are small.
+ */
+final class SessionFormat {
+	static final int MAGIC = 0x53544d52; // "STMR"
+	static final int VERSION = 1;
+
+	static final int TICK = 1;
+
+	static final int EXTRA_NONE = 0;
+	static final int EXTRA_LINUX = 1;
+	static final int EXTRA_WINDOWS = 2;
+
+	// Bits telling which process attributes follow the values of a process in a tick
+	static final int PROCESS_NEW = 1;
+	static final int PROCESS_FILE_NAME = 1 << 1;
+	static final int PROCESS_FILE_PATH = 1 << 2;
+	static final int PROCESS_COMMAND_LINE = 1 << 3;
+	static final int PROCESS_DESCRIPTION = 1 << 4;
+	static final int PROCESS_USER_NAME = 1 << 5;
+	static final int PROCESS_STATE = 1 << 6; // Status, start timestamp, loaded attributes and has read once
+
+	// Bits of the supported flags of a GPU
+	static final int GPU_MEMORY = 1;
+	static final int GPU_UTILIZATION = 1 << 1;
+	static final int GPU_TEMPERATURE = 1 << 2;
+	static final int GPU_ENCODER = 1 << 3;
+	static final int GPU_DECODER = 1 << 4;
+
+	private SessionFormat() {
+	}
+
+	static void writeLong(DataOutput out, long value) throws IOException {
+		long zigZag = (value << 1) ^ (value >> 63);
+		while ((zigZag & ~0x7FL) != 0) {
+			out.writeByte((int) ((zigZag & 0x7F) | 0x80));
+			zigZag >>>= 7;
+		}
+		out.writeByte((int) zigZag);
+	}
+
+	static long readLong(DataInput in) throws IOException {
+		long zigZag = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.readUnsignedByte();
+			zigZag |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return (zigZag >>> 1) ^ -(zigZag & 1);
+			}
+		}
+		throw new IOException("Malformed number in recording!");
+	}
+
+	static int readInt(DataInput in) throws IOException {
+		return (int) readLong(in);
+	}
+
+	static void writeString(DataOutput out, String value) throws IOException {
+		if (value == null) {
+			writeLong(out, 0);
+		} else {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			writeLong(out, bytes.length + 1);
+			out.write(bytes);
+		}
+	}
+
+	static String readString(DataInput in) throws IOException {
+		int length = readInt(in) - 1;
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	static void writeStrings(DataOutput out, String[] values) throws IOException {
+		writeLong(out, (values == null) ? -1 : values.length);
+		if (values != null) {
+			for (String value : values) {
+				writeString(out, value);
+			}
+		}
+	}
+
+	static String[] readStrings(DataInput in) throws IOException {
+		int length = readInt(in);
+		if (length < 0) {
+			return null;
+		}
+		String[] values = new String[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = readString(in);
+		}
+		return values;
+	}
+}
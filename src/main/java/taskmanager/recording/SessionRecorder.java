@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+
+package taskmanager.recording;
+
+import config.Config;
+import taskmanager.LongMap;
+import taskmanager.Measurements;
+import taskmanager.data.Disk;
+import taskmanager.data.Gpu;
+import taskmanager.data.Network;
+import taskmanager.data.Process;
+import taskmanager.data.Status;
+import taskmanager.data.SystemInformation;
+import taskmanager.platform.linux.LinuxExtraInformation;
+import taskmanager.platform.win32.WindowsExtraInformation;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import static taskmanager.recording.SessionFormat.*;
+
+/**
+ * Appends the values collected in every update to a recording that {@link ReplayInformationLoader} can play back.
+ * Only the newest values are written, process attributes only when they change. Every tick is flushed so that a
+ * recording is readable up to the last complete tick even if the program is killed.
+ */
+public class SessionRecorder implements Closeable {
+	private final Path file;
+	private final Deflater deflater;
+	private DataOutputStream out;
+
+	private LongMap<RecordedProcess> recordedProcesses;
+	private LongMap<RecordedProcess> previousRecordedProcesses;
+	private long previousTimestamp;
+
+	// The devices are only described in the header, so their counts must not change during the recording
+	private int coreCount;
+	private int networkCount;
+	private int diskCount;
+	private int gpuCount;
+
+	public SessionRecorder(Path file) {
+		this.file = file;
+		deflater = new Deflater(Deflater.BEST_SPEED);
+		recordedProcesses = new LongMap<>();
+		previousRecordedProcesses = new LongMap<>();
+	}
+
+	/**
+	 * Records the newest values, the header is written with the first call. Must be called after every update.
+	 *
+	 * @throws IOException If writing fails or the number of cores, networks, disks or GPUs has changed since the header
+	 *                     was written.
+	 */
+	public void record(SystemInformation systemInformation) throws IOException {
+		if (out == null) {
+			out = new DataOutputStream(new DeflaterOutputStream(new BufferedOutputStream(Files.newOutputStream(file)), deflater, true));
+			writeHeader(systemInformation);
+		} else if (systemInformation.cpuUsagePerCore.length != coreCount || systemInformation.networks.length != networkCount ||
+				systemInformation.disks.length != diskCount || systemInformation.gpus.length != gpuCount) {
+			throw new IOException("The cores, networks, disks or GPUs changed during the recording!");
+		}
+
+		out.writeByte(TICK);
+		long timestamp = System.currentTimeMillis();
+		writeLong(out, timestamp - previousTimestamp);
+		previousTimestamp = timestamp;
+
+		writeLong(out, systemInformation.uptime);
+		writeLong(out, systemInformation.memoryUsed.newest());
+		writeLong(out, systemInformation.freeMemory);
+		writeLong(out, systemInformation.reservedMemory);
+		writeLong(out, systemInformation.cpuUsageTotal.newest());
+		for (Measurements<Short> core : systemInformation.cpuUsagePerCore) {
+			writeLong(out, core.newest());
+		}
+		writeLong(out, systemInformation.totalProcesses);
+		writeLong(out, systemInformation.totalThreads);
+
+		for (Network network : systemInformation.networks) {
+			writeLong(out, network.inRate.newest());
+			writeLong(out, network.outRate.newest());
+			out.writeBoolean(network.isEnabled);
+		}
+		for (Disk disk : systemInformation.disks) {
+			writeLong(out, disk.readRate.newest());
+			writeLong(out, disk.writeRate.newest());
+			out.writeDouble(disk.activeFraction.newest());
+			writeLong(out, disk.ioQueueLength.newest());
+		}
+		for (Gpu gpu : systemInformation.gpus) {
+			writeGpu(gpu);
+		}
+		writeExtraInformation(systemInformation);
+		writeProcesses(systemInformation);
+
+		out.flush();
+	}
+
+	private void writeHeader(SystemInformation systemInformation) throws IOException {
+		out.writeInt(MAGIC);
+		writeLong(out, VERSION);
+		out.writeFloat(Config.getFloat(Config.KEY_UPDATE_RATE));
+
+		writeLong(out, systemInformation.bootTime);
+		writeLong(out, systemInformation.pageSize);
+		writeLong(out, systemInformation.physicalMemoryTotalInstalled);
+		writeLong(out, systemInformation.physicalMemoryTotal);
+		writeLong(out, systemInformation.logicalProcessorCount);
+		writeLong(out, systemInformation.physicalProcessorCount);
+		writeLong(out, coreCount = systemInformation.cpuUsagePerCore.length);
+		writeString(out, systemInformation.userName);
+
+		writeLong(out, networkCount = systemInformation.networks.length);
+		for (Network network : systemInformation.networks) {
+			writeString(out, network.name);
+			writeString(out, network.macAddress);
+			writeStrings(out, network.ipv4Addresses);
+			writeStrings(out, network.ipv6Addresses);
+		}
+		writeLong(out, diskCount = systemInformation.disks.length);
+		for (Disk disk : systemInformation.disks) {
+			writeLong(out, disk.index);
+			writeString(out, disk.name);
+			writeString(out, disk.model);
+			writeLong(out, disk.size);
+		}
+		writeLong(out, gpuCount = systemInformation.gpus.length);
+		for (Gpu gpu : systemInformation.gpus) {
+			writeLong(out, gpu.index);
+			writeLong(out, gpu.type.ordinal());
+			writeString(out, gpu.name);
+			writeString(out, gpu.vendor);
+			writeLong(out, gpu.deviceId);
+			writeLong(out, gpu.totalMemory);
+		}
+
+		if (systemInformation.extraInformation instanceof LinuxExtraInformation) {
+			writeLong(out, EXTRA_LINUX);
+		} else if (systemInformation.extraInformation instanceof WindowsExtraInformation) {
+			writeLong(out, EXTRA_WINDOWS);
+		} else {
+			writeLong(out, EXTRA_NONE);
+		}
+	}
+
+	private void writeGpu(Gpu gpu) throws IOException {
+		int supported = (gpu.memorySupported ? GPU_MEMORY : 0) |
+				(gpu.utilizationSupported ? GPU_UTILIZATION : 0) |
+				(gpu.temperatureSupported ? GPU_TEMPERATURE : 0) |
+				(gpu.encoderSupported ? GPU_ENCODER : 0) |
+				(gpu.decoderSupported ? GPU_DECODER : 0);
+		writeLong(out, supported);
+		writeString(out, gpu.driverVersion);
+		writeLong(out, gpu.usedMemory.newest());
+		writeLong(out, gpu.utilization.newest());
+		writeLong(out, gpu.temperature.newest());
+		writeLong(out, gpu.encoderUtilization.newest());
+		writeLong(out, gpu.decoderUtilization.newest());
+	}
+
+	private void writeExtraInformation(SystemInformation systemInformation) throws IOException {
+		if (systemInformation.extraInformation instanceof LinuxExtraInformation) {
+			LinuxExtraInformation extraInformation = (LinuxExtraInformation) systemInformation.extraInformation;
+			writeLong(out, extraInformation.openFileDescriptors);
+			writeLong(out, extraInformation.openFileDescriptorsLimit);
+			writeLong(out, extraInformation.bufferMemory);
+			writeLong(out, extraInformation.cacheMemory);
+			writeLong(out, extraInformation.sharedMemory);
+			writeLong(out, extraInformation.swapSize);
+			writeLong(out, extraInformation.swapUsed);
+			writeLong(out, extraInformation.contextSwitches.newest());
+			writeLong(out, extraInformation.processesCreated.newest());
+			writeLong(out, extraInformation.processesRunning.newest());
+		} else if (systemInformation.extraInformation instanceof WindowsExtraInformation) {
+			WindowsExtraInformation extraInformation = (WindowsExtraInformation) systemInformation.extraInformation;
+			writeLong(out, extraInformation.handles);
+			writeLong(out, extraInformation.standbyMemory);
+			writeLong(out, extraInformation.modifiedMemory);
+			writeLong(out, extraInformation.commitLimit);
+			writeLong(out, extraInformation.commitUsed);
+			writeLong(out, extraInformation.kernelPaged);
+			writeLong(out, extraInformation.kernelNonPaged);
+		}
+	}
+
+	private void writeProcesses(SystemInformation systemInformation) throws IOException {
+		int alive = 0;
+		for (Process process : systemInformation.processes) {
+			if (process.status != Status.Dead) {
+				alive++;
+			}
+		}
+		writeLong(out, alive);
+
+		// Processes that are gone are forgotten by swapping in an empty map every tick
+		LongMap<RecordedProcess> swap = previousRecordedProcesses;
+		previousRecordedProcesses = recordedProcesses;
+		recordedProcesses = swap;
+		recordedProcesses.clear();
+
+		long previousUniqueId = 0;
+		long previousId = 0;
+		for (Process process : systemInformation.processes) {
+			if (process.status == Status.Dead) {
+				continue;
+			}
+
+			RecordedProcess recorded = previousRecordedProcesses.get(process.uniqueId);
+			int changes = 0;
+			if (recorded == null) {
+				recorded = new RecordedProcess();
+				changes = PROCESS_NEW | PROCESS_FILE_NAME | PROCESS_FILE_PATH | PROCESS_COMMAND_LINE |
+						PROCESS_DESCRIPTION | PROCESS_USER_NAME | PROCESS_STATE;
+			} else {
+				changes |= Objects.equals(recorded.fileName, process.fileName) ? 0 : PROCESS_FILE_NAME;
+				changes |= Objects.equals(recorded.filePath, process.filePath) ? 0 : PROCESS_FILE_PATH;
+				changes |= Objects.equals(recorded.commandLine, process.commandLine) ? 0 : PROCESS_COMMAND_LINE;
+				changes |= Objects.equals(recorded.description, process.description) ? 0 : PROCESS_DESCRIPTION;
+				changes |= Objects.equals(recorded.userName, process.userName) ? 0 : PROCESS_USER_NAME;
+				changes |= (recorded.status == process.status && recorded.startTimestamp == process.startTimestamp &&
+						recorded.loadedAttributes == process.loadedAttributes && recorded.hasReadOnce == process.hasReadOnce) ? 0 : PROCESS_STATE;
+			}
+			recordedProcesses.put(process.uniqueId, recorded);
+
+			writeLong(out, process.uniqueId - previousUniqueId);
+			writeLong(out, process.id - previousId);
+			previousUniqueId = process.uniqueId;
+			previousId = process.id;
+			writeLong(out, process.cpuUsage.newest());
+			writeLong(out, process.cpuTime.newest());
+			writeLong(out, process.privateWorkingSet.newest());
+
+			writeLong(out, changes);
+			if ((changes & PROCESS_FILE_NAME) != 0) {
+				writeString(out, recorded.fileName = process.fileName);
+			}
+			if ((changes & PROCESS_FILE_PATH) != 0) {
+				writeString(out, recorded.filePath = process.filePath);
+			}
+			if ((changes & PROCESS_COMMAND_LINE) != 0) {
+				writeString(out, recorded.commandLine = process.commandLine);
+			}
+			if ((changes & PROCESS_DESCRIPTION) != 0) {
+				writeString(out, recorded.description = process.description);
+			}
+			if ((changes & PROCESS_USER_NAME) != 0) {
+				writeString(out, recorded.userName = process.userName);
+			}
+			if ((changes & PROCESS_STATE) != 0) {
+				writeLong(out, (recorded.status = process.status).ordinal());
+				writeLong(out, recorded.startTimestamp = process.startTimestamp);
+				writeLong(out, recorded.loadedAttributes = process.loadedAttributes);
+				out.writeBoolean(recorded.hasReadOnce = process.hasReadOnce);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (out != null) {
+			out.close();
+			out = null;
+		}
+		deflater.end();
+	}
+
+	private static class RecordedProcess {
+		private String fileName;
+		private String filePath;
+		private String commandLine;
+		private String description;
+		private String userName;
+		private Status status;
+		private long startTimestamp;
+		private int loadedAttributes;
+		private boolean hasReadOnce;
+	}
+}
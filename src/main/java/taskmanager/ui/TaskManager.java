@@ -20,6 +20,7 @@ import taskmanager.InformationUpdateCallback;
 import taskmanager.data.Process;
 import taskmanager.data.Status;
 import taskmanager.data.SystemInformation;
+import taskmanager.headless.OpenMetricsSink;
 import taskmanager.ui.details.ProcessDetailsCallback;
 import taskmanager.ui.details.ProcessPanel;
 import taskmanager.ui.menubar.MenuBar;
@@ -41,16 +42,15 @@ import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.UncheckedIOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
 
 public class TaskManager extends JFrame implements InformationUpdateCallback, ProcessDetailsCallback, ApplicationCallback, ShowProcessCallback {
 	private static final Logger LOGGER = LoggerFactory.getLogger(TaskManager.class);
@@ -59,6 +59,7 @@ public class TaskManager extends JFrame implements InformationUpdateCallback, Pr
 	private static final String ICON_SMALL_NAME = "icon_small";
 
 	private DataCollector dataCollector;
+	private UpdateDispatcher updateDispatcher;
 	private SystemInformation systemInformation;
 
 	private Comparator<Process> comparator;
@@ -72,6 +73,7 @@ public class TaskManager extends JFrame implements InformationUpdateCallback, Pr
 	private Map<Long, ProcessDialog> deadProcessDialogs;
 
 	private Tray trayIcon;
+	private OpenMetricsSink metricsSink;
 	private boolean hasTerminated;
 
 	public TaskManager() {
@@ -79,7 +81,8 @@ public class TaskManager extends JFrame implements InformationUpdateCallback, Pr
 		loadProgramIcon();
 
 		dataCollector = new DataCollector(this);
-		systemInformation = new SystemInformation();
+		updateDispatcher = new UpdateDispatcher(this::refresh);
+		systemInformation = SystemInformation.createView();
 		comparator = new Process.IdComparator();
 		deadComparator = new Process.DeadTimestampsComparator();
 
@@ -110,6 +113,7 @@ public class TaskManager extends JFrame implements InformationUpdateCallback, Pr
 		copyData(systemInformationNew);
 
 		initSystemTray();
+		initMetricsEndpoint();
 
 		setJMenuBar(new MenuBar(this));
 
@@ -142,6 +146,9 @@ public class TaskManager extends JFrame implements InformationUpdateCallback, Pr
 	}
 
 	private void copyData(SystemInformation other) {
+		// The panels keep references to the processes and measurements, which must stay the same objects between
+		// refreshes while the snapshots take turns. The view keeps them and only points the measurements to the new
+		// snapshot, so the values are not copied a second time.
 		systemInformation.copyFrom(other);
 		systemInformation.processes.sort(comparator);
 		systemInformation.deadProcesses.sort(deadComparator);
@@ -163,6 +170,20 @@ public class TaskManager extends JFrame implements InformationUpdateCallback, Pr
 		}
 	}
 
+	private void initMetricsEndpoint() {
+		if (Config.getBoolean(Config.KEY_METRICS_ENDPOINT)) {
+			try {
+				metricsSink = new OpenMetricsSink();
+				metricsSink.start(systemInformation);
+				// Rendered on the collector thread so that the text is never built on the EDT
+				dataCollector.addSink(metricsSink);
+			} catch (UncheckedIOException e) {
+				LOGGER.error("Failed to start the metrics endpoint", e);
+				metricsSink = null;
+			}
+		}
+	}
+
 	private Dimension getPreviousSize() {
 		return new Dimension(
 				Config.getInt(Config.KEY_LAST_WINDOW_WIDTH, 890),
@@ -180,41 +201,38 @@ public class TaskManager extends JFrame implements InformationUpdateCallback, Pr
 	}
 
 	@Override
-	public void update(SystemInformation systemInformationNew) {
-		SwingUtilities.invokeLater(() -> {
-			dataCollector.lockTransfer();
-			copyData(systemInformationNew);
-			dataCollector.unlockTransfer();
-
-			processPanel.update();
-			performancePanel.update(systemInformation);
+	public void update() {
+		updateDispatcher.tick();
+	}
 
-			Set<Long> openProcessIds = new HashSet<>();
-			for (Process process : systemInformation.processes) {
-				if (processDialogs.containsKey(process.uniqueId)) {
-					openProcessIds.add(process.uniqueId);
-				}
-			}
+	private void refresh() {
+		SystemInformation systemInformationNew = dataCollector.takeSnapshot();
+		if (systemInformationNew == null) {
+			return; // Already showing the newest data
+		}
+		copyData(systemInformationNew);
 
-			Iterator<Entry<Long, ProcessDialog>> itr = processDialogs.entrySet().iterator();
-			while (itr.hasNext()) {
-				Entry<Long, ProcessDialog> entry = itr.next();
-				ProcessDialog dialog = entry.getValue();
-				if (!openProcessIds.contains(entry.getKey())) {
-					itr.remove();
-					dialog.processEnded();
-					deadProcessDialogs.put(entry.getKey(), dialog);
-				}
+		processPanel.update();
+		performancePanel.update(systemInformation);
+
+		Iterator<Entry<Long, ProcessDialog>> itr = processDialogs.entrySet().iterator();
+		while (itr.hasNext()) {
+			Entry<Long, ProcessDialog> entry = itr.next();
+			ProcessDialog dialog = entry.getValue();
+			if (systemInformation.getProcessByUniqueId(entry.getKey()) == null) {
+				itr.remove();
+				dialog.processEnded();
+				deadProcessDialogs.put(entry.getKey(), dialog);
 			}
+		}
 
-			processDialogs.forEach((id, d) -> d.update());
-			processDialogs.entrySet().removeIf(e -> !e.getValue().isVisible());
-			deadProcessDialogs.entrySet().removeIf(e -> !e.getValue().isVisible());
+		processDialogs.forEach((id, d) -> d.update());
+		processDialogs.entrySet().removeIf(e -> !e.getValue().isVisible());
+		deadProcessDialogs.entrySet().removeIf(e -> !e.getValue().isVisible());
 
-			if (trayIcon != null) {
-				trayIcon.update(systemInformation);
-			}
-		});
+		if (trayIcon != null) {
+			trayIcon.update(systemInformation);
+		}
 	}
 
 	@Override
@@ -244,6 +262,9 @@ public class TaskManager extends JFrame implements InformationUpdateCallback, Pr
 			hasTerminated = true;
 		}
 		dispose();
+		if (metricsSink != null) {
+			metricsSink.close();
+		}
 		if (trayIcon != null) {
 			SystemTray.getSystemTray().remove(trayIcon);
 		}
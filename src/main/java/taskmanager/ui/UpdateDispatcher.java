@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.ui;
+
+import config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a refresh on the event dispatch thread for collector ticks, keeping at most one refresh pending. Ticks that
+ * arrive while a refresh is pending are coalesced into it, the refresh always shows the newest snapshot anyway.
+ * <p>
+ * With a frame budget in the config (milliseconds, 0 disables it), refreshes that take longer than the budget on
+ * average lower the refresh cadence to every n:th tick until they fit again.
+ */
+public class UpdateDispatcher {
+	private static final Logger LOGGER = LoggerFactory.getLogger(UpdateDispatcher.class);
+
+	private static final int MAX_TICKS_PER_REFRESH = 8;
+	private static final int LOG_INTERVAL = 100;
+	// Weight of the newest frame in the average frame time
+	private static final double FRAME_TIME_WEIGHT = 0.2;
+
+	private final Runnable refresh;
+	private final AtomicBoolean refreshPending;
+
+	// Written by the collector thread
+	private volatile long ticks;
+	private volatile long coalescedTicks;
+	private volatile long throttledTicks;
+
+	// Written by the event dispatch thread
+	private volatile int ticksPerRefresh;
+	private long refreshes;
+	private double averageFrameNanos;
+	private long maxFrameNanos;
+
+	public UpdateDispatcher(Runnable refresh) {
+		this.refresh = refresh;
+		refreshPending = new AtomicBoolean();
+		ticksPerRefresh = 1;
+	}
+
+	/**
+	 * Called by the collector for every tick.
+	 */
+	public void tick() {
+		long tick = ticks++;
+		if (tick % ticksPerRefresh != 0) {
+			throttledTicks++;
+		} else if (refreshPending.compareAndSet(false, true)) {
+			SwingUtilities.invokeLater(this::runRefresh);
+		} else {
+			coalescedTicks++;
+		}
+	}
+
+	private void runRefresh() {
+		refreshPending.set(false);
+
+		long startTime = System.nanoTime();
+		refresh.run();
+		long frameNanos = System.nanoTime() - startTime;
+
+		refreshes++;
+		averageFrameNanos = (refreshes == 1) ? frameNanos : averageFrameNanos + FRAME_TIME_WEIGHT * (frameNanos - averageFrameNanos);
+		maxFrameNanos = Math.max(maxFrameNanos, frameNanos);
+		updateTicksPerRefresh();
+
+		if (refreshes % LOG_INTERVAL == 0) {
+			LOGGER.debug("UI refreshes: {}, ticks: {} (coalesced: {}, throttled: {}), frame time: {}ms (max: {}ms), ticks per refresh: {}",
+					refreshes, ticks, coalescedTicks, throttledTicks, String.format("%.1f", averageFrameNanos / 1e6),
+					String.format("%.1f", maxFrameNanos / 1e6), ticksPerRefresh);
+		}
+	}
+
+	private void updateTicksPerRefresh() {
+		long budgetNanos = Config.getInt(Config.KEY_UI_FRAME_BUDGET) * 1_000_000L;
+		int newTicksPerRefresh = 1;
+		if (budgetNanos > 0) {
+			newTicksPerRefresh = (int) Math.min(MAX_TICKS_PER_REFRESH, Math.max(1, Math.ceil(averageFrameNanos / budgetNanos)));
+		}
+
+		if (newTicksPerRefresh != ticksPerRefresh) {
+			LOGGER.debug("UI frame time {}ms against a budget of {}ms, refreshing every {} tick(s)",
+					String.format("%.1f", averageFrameNanos / 1e6), budgetNanos / 1_000_000, newTicksPerRefresh);
+			ticksPerRefresh = newTicksPerRefresh;
+		}
+	}
+
+	public long getTicks() {
+		return ticks;
+	}
+
+	public long getCoalescedTicks() {
+		return coalescedTicks;
+	}
+
+	public long getThrottledTicks() {
+		return throttledTicks;
+	}
+
+	public int getTicksPerRefresh() {
+		return ticksPerRefresh;
+	}
+}
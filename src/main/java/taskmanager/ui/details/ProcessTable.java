@@ -12,8 +12,10 @@
 package taskmanager.ui.details;
 
 import config.Config;
+import taskmanager.AttributeDemand;
 import taskmanager.data.Process;
 import taskmanager.data.Process.ProcessComparator;
+import taskmanager.data.ProcessAttribute;
 import taskmanager.data.Status;
 import taskmanager.data.SystemInformation;
 import taskmanager.filter.AndFilter;
@@ -51,8 +53,10 @@ import java.awt.font.TextAttribute;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -122,7 +126,9 @@ public class ProcessTable extends JTable {
 	private final CustomTableModel tableModel;
 	private ColumnHeader[] headers;
 	private int[] tableColumnToDataColumn;
-	private Process[] tableRowToProcess;
+	private List<Process> previousFilteredProcesses;
+
+	private final DecimalFormat cpuFormat;
 
 	private final FontMetrics metrics;
 
@@ -159,10 +165,12 @@ public class ProcessTable extends JTable {
 		visibleColumns.add(Columns.CommandLine);
 		visibleColumns.add(Columns.Description);
 
+		filteredProcesses = new ArrayList<>();
+		previousFilteredProcesses = new ArrayList<>();
+		cpuFormat = new DecimalFormat("##0.0");
+
 		tableModel = new CustomTableModel();
-		tableModel.columns = loadHeaders();
-		tableModel.data = new Object[0][tableModel.columns.length];
-		tableModel.color = new Color[0][tableModel.columns.length];
+		loadHeaders();
 		setModel(tableModel);
 
 		ProcessTableCellRenderer cellRenderer = new ProcessTableCellRenderer();
@@ -217,13 +225,14 @@ public class ProcessTable extends JTable {
 
 		filter = Filter.UNIVERSE;
 		showProcessesForAllUsers = Config.getBoolean(Config.KEY_SHOW_PROCESSES_FOR_ALL_USERS);
+		updateAttributeDemand();
 
 		contextMenu = new ProcessContextMenu((Component) processDetailsCallback);
 		contextMenu.addPopupMenuListener(popupListener);
 		setComponentPopupMenu(contextMenu);
 	}
 
-	private String[] loadHeaders() {
+	private void loadHeaders() {
 		String defaultValue = IntStream.range(0, visibleColumns.size()).mapToObj(Integer::toString).collect(Collectors.joining(";"));
 		String orderAsString = Config.get(Config.KEY_LAST_COLUMN_ORDER, defaultValue);
 		if (showDeadProcesses) {
@@ -250,12 +259,12 @@ public class ProcessTable extends JTable {
 
 		Arrays.sort(tmp);
 
-		String[] columns = new String[tmp.length];
+		tableModel.columns = new String[tmp.length];
+		tableModel.columnTypes = new Columns[tmp.length];
 		for (int i = 0; i < tmp.length; i++) {
-			columns[i] = tmp[i].header;
+			tableModel.columns[i] = tmp[i].header;
+			tableModel.columnTypes[i] = tmp[i].column;
 		}
-
-		return columns;
 	}
 
 	private void loadPreviousColumnSizes() {
@@ -295,67 +304,31 @@ public class ProcessTable extends JTable {
 			allProcesses = systemInformation.deadProcesses;
 		}
 
-		long selectedPid = getSelectedPid();
-
-		filteredProcesses = filter(allProcesses);
-
 		if (!isMovingColumn && !isResizingColumn) {
-			tableModel.data = new Object[filteredProcesses.size()][tableModel.columns.length];
-			tableModel.color = new Color[filteredProcesses.size()][tableModel.columns.length];
-			tableRowToProcess = new Process[filteredProcesses.size()];
-
-			DecimalFormat dfCpu = new DecimalFormat("##0.0");
-
-			for (int i = 0; i < filteredProcesses.size(); i++) {
-				Process process = filteredProcesses.get(i);
-				tableRowToProcess[i] = process;
-				trySetData(Columns.ProcessName, i, process.fileName);
-				trySetData(Columns.Pid, i, process.id);
-				trySetData(Columns.Status, i, StatusUtils.letter(process.status));
-				trySetData(Columns.UserName, i, process.userName);
-				trySetData(Columns.DeathTime, i, TextUtils.valueToString(
-						System.currentTimeMillis() - process.deathTimestamp,
-						ValueType.Time));
-				trySetColor(Columns.DeathTime, i, selectColorDeath(System.currentTimeMillis() - process.deathTimestamp));
-				if (showDeadProcesses) {
-					trySetData(Columns.Cpu, i, "--.- %");
-					trySetColor(Columns.Cpu, i, selectColorCpu(0));
-					trySetData(Columns.PrivateWorkingSet, i, "--- --- K");
-					trySetColor(Columns.PrivateWorkingSet, i, selectColorMemory(0));
-				} else {
-					double cpuUsage = process.cpuUsage.newest() / (double) Config.DOUBLE_TO_LONG;
-					trySetData(Columns.Cpu, i, dfCpu.format(cpuUsage * 100) + " %");
-					if (process.id == 0) {
-						trySetColor(Columns.Cpu, i, selectColorCpu(0));
-					} else {
-						trySetColor(Columns.Cpu, i, selectColorCpu(cpuUsage));
-					}
-					trySetData(Columns.PrivateWorkingSet, i, TextUtils.valueToString(process.privateWorkingSet.newest() / 1024, ValueType.Raw) + " K");
-					trySetColor(Columns.PrivateWorkingSet, i, selectColorMemory(process.privateWorkingSet.newest() / (double) systemInformation.physicalMemoryTotal));
-				}
-				trySetData(Columns.CommandLine, i, process.commandLine);
-				trySetData(Columns.Description, i, process.description);
-			}
+			long selectedPid = getSelectedPid();
 
-			trySelectPid(selectedPid);
+			// Reuse the list from the previous update, the model still refers to the current one until it is replaced
+			List<Process> processes = previousFilteredProcesses;
+			previousFilteredProcesses = filteredProcesses;
+			filter(allProcesses, processes);
+			filteredProcesses = processes;
+			tableModel.setRows(processes, previousFilteredProcesses);
 
-			revalidate();
-			repaint();
+			trySelectPid(selectedPid);
 		}
 	}
 
-	private List<Process> filter(List<Process> processes) {
+	private void filter(List<Process> processes, List<Process> result) {
 		Filter actualFilter = filter;
 		if (!showProcessesForAllUsers) {
 			actualFilter = new AndFilter(actualFilter, new UserNameFilter(systemInformation.userName));
 		}
-		List<Process> result = new ArrayList<>();
+		result.clear();
 		for (Process process : processes) {
 			if (actualFilter.apply(process)) {
 				result.add(process);
 			}
 		}
-		return result;
 	}
 
 	private long getSelectedPid() {
@@ -367,29 +340,17 @@ public class ProcessTable extends JTable {
 	}
 
 	private void trySelectPid(long selectedPid) {
-		for (int i = 0; i < tableModel.data.length; i++) {
-			if (selectedPid == (Long) tableModel.data[i][headers[Columns.Pid.ordinal()].index]) {
-				setRowSelectionInterval(i, i);
+		for (int i = 0; i < filteredProcesses.size(); i++) {
+			if (filteredProcesses.get(i).id == selectedPid) {
+				if (getSelectedRow() != i) {
+					setRowSelectionInterval(i, i);
+				}
 				return;
 			}
 		}
 		clearSelection();
 	}
 
-	private void trySetData(Columns column, int row, Object data) {
-		ColumnHeader header = headers[column.ordinal()];
-		if (header != null) {
-			tableModel.data[row][header.index] = data;
-		}
-	}
-
-	private void trySetColor(Columns column, int row, Color color) {
-		ColumnHeader header = headers[column.ordinal()];
-		if (header != null) {
-			tableModel.color[row][header.index] = color;
-		}
-	}
-
 	private Color selectColorCpu(double fraction) {
 		if (fraction > 0.8) {
 			return Load.Extreme.color;
@@ -498,14 +459,28 @@ public class ProcessTable extends JTable {
 
 	public void setFilter(Filter filter) {
 		this.filter = filter;
+		updateAttributeDemand();
 		update();
 	}
 
 	public void setShowProcessesForAllUsers(boolean newState) {
 		showProcessesForAllUsers = newState;
+		updateAttributeDemand();
 		update();
 	}
 
+	private void updateAttributeDemand() {
+		Set<ProcessAttribute> attributes = EnumSet.noneOf(ProcessAttribute.class);
+		if (visibleColumns.contains(Columns.UserName) || !showProcessesForAllUsers) {
+			attributes.add(ProcessAttribute.UserName);
+		}
+		if (visibleColumns.contains(Columns.CommandLine)) {
+			attributes.add(ProcessAttribute.CommandLine);
+		}
+		attributes.addAll(filter.requiredAttributes());
+		AttributeDemand.set(this, attributes);
+	}
+
 	public boolean showProcess(long uniqueId) {
 		for (int i = 0; i < filteredProcesses.size(); i++) {
 			if (filteredProcesses.get(i).uniqueId == uniqueId) {
@@ -522,38 +497,34 @@ public class ProcessTable extends JTable {
 		public static final int CELL_PADDING = 8;
 
 		public final Color defaultForeground = new Color(51, 51, 51);
+		private final Color alternateBackground = new Color(243, 243, 243);
+		private final Color selection = new Color(0, 160, 255);
+		private final EmptyBorder padding = new EmptyBorder(0, CELL_PADDING, 0, CELL_PADDING);
+		private Font strikeThroughFont;
 
 		@Override
 		public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus,
 													   int row, int column) {
 			JComponent result = (JComponent) super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
 
-			int realColumn = 0;
-			String name = table.getColumnName(column);
-			for (ColumnHeader header : headers) {
-				if (header != null && header.header.equals(name)) {
-					realColumn = header.index;
-					break;
-				}
-			}
+			int realColumn = table.convertColumnIndexToModel(column);
+			Process process = tableModel.getProcessAt(row);
 
-			Color background;
-			if (tableModel.color[row][realColumn] != null) {
-				background = tableModel.color[row][realColumn];
-			} else {
+			Color background = tableModel.getColorAt(row, realColumn);
+			if (background == null) {
 				if (row % 2 == 0) {
 					background = Color.WHITE;
 				} else {
-					background = new Color(243, 243, 243);
+					background = alternateBackground;
 				}
 			}
 
-			Color statusColor = StatusUtils.color(tableRowToProcess[row].status);
-			if (tableRowToProcess[row].status == Status.Running || tableRowToProcess[row].status == Status.Sleeping) {
+			Color statusColor = StatusUtils.color(process.status);
+			if (process.status == Status.Running || process.status == Status.Sleeping) {
 				statusColor = Color.WHITE; // We don't want this table to be filled with colored text as the default
 			}
 
-			if (name.equals(Columns.Status.name)) {
+			if (tableModel.columnTypes[realColumn] == Columns.Status) {
 				result.setBackground(ColorUtils.blend(statusColor, background, 50f/255));
 			} else {
 				result.setBackground(background);
@@ -565,7 +536,6 @@ public class ProcessTable extends JTable {
 			}
 
 			if (isSelected) {
-				Color selection = new Color(0, 160, 255);
 				result.setBackground(ColorUtils.blend(selection, result.getBackground(), 50f/255));
 			}
 
@@ -574,28 +544,69 @@ public class ProcessTable extends JTable {
 				setStrikeThroughFontFor(result);
 			}
 
-			result.setBorder(new EmptyBorder(0, CELL_PADDING, 0, CELL_PADDING));
+			result.setBorder(padding);
 			return result;
 		}
 
 		private void setStrikeThroughFontFor(JComponent result) {
 			Font font = result.getFont();
-			Map attributes = font.getAttributes();
-			attributes.put(TextAttribute.STRIKETHROUGH, TextAttribute.STRIKETHROUGH_ON);
-			Font newFont = new Font(attributes);
-			result.setFont(newFont);
+			if (strikeThroughFont == null || !strikeThroughFont.getFamily().equals(font.getFamily())
+					|| strikeThroughFont.getSize() != font.getSize() || strikeThroughFont.getStyle() != font.getStyle()) {
+				Map attributes = font.getAttributes();
+				attributes.put(TextAttribute.STRIKETHROUGH, TextAttribute.STRIKETHROUGH_ON);
+				strikeThroughFont = new Font(attributes);
+			}
+			result.setFont(strikeThroughFont);
 		}
 	}
 
 
-	public static class CustomTableModel extends AbstractTableModel {
+	/**
+	 * Refers to the displayed processes and formats their cells when asked, so that only the visible rows are formatted.
+	 */
+	public class CustomTableModel extends AbstractTableModel {
 		public String[] columns;
-		public Object[][] data;
-		public Color[][] color;
+		public Columns[] columnTypes;
+		private List<Process> rows = new ArrayList<>();
+
+		/**
+		 * Replaces the rows and notifies the table about the rows that were inserted or deleted between the common
+		 * start and end of the lists. All values may have changed, but the table only repaints the visible rows.
+		 */
+		void setRows(List<Process> newRows, List<Process> oldRows) {
+			rows = newRows;
+
+			int oldSize = oldRows.size();
+			int newSize = newRows.size();
+			int prefix = 0;
+			int maxCommon = Math.min(oldSize, newSize);
+			while (prefix < maxCommon && oldRows.get(prefix) == newRows.get(prefix)) {
+				prefix++;
+			}
+			int suffix = 0;
+			while (suffix < maxCommon - prefix && oldRows.get(oldSize - 1 - suffix) == newRows.get(newSize - 1 - suffix)) {
+				suffix++;
+			}
+
+			int oldChanged = oldSize - prefix - suffix;
+			int newChanged = newSize - prefix - suffix;
+			if (oldChanged > newChanged) {
+				fireTableRowsDeleted(prefix + newChanged, prefix + oldChanged - 1);
+			} else if (newChanged > oldChanged) {
+				fireTableRowsInserted(prefix + oldChanged, prefix + newChanged - 1);
+			}
+			if (newSize > 0) {
+				fireTableRowsUpdated(0, newSize - 1);
+			}
+		}
+
+		Process getProcessAt(int rowIndex) {
+			return rows.get(rowIndex);
+		}
 
 		@Override
 		public int getRowCount() {
-			return data.length;
+			return rows.size();
 		}
 
 		@Override
@@ -605,7 +616,53 @@ public class ProcessTable extends JTable {
 
 		@Override
 		public Object getValueAt(int rowIndex, int columnIndex) {
-			return data[rowIndex][columnIndex];
+			Process process = rows.get(rowIndex);
+			switch (columnTypes[columnIndex]) {
+				case ProcessName:
+					return process.fileName;
+				case Pid:
+					return process.id;
+				case Status:
+					return StatusUtils.letter(process.status);
+				case DeathTime:
+					return TextUtils.valueToString(System.currentTimeMillis() - process.deathTimestamp, ValueType.Time);
+				case UserName:
+					return process.userName;
+				case Cpu:
+					if (showDeadProcesses) {
+						return "--.- %";
+					}
+					return cpuFormat.format(process.cpuUsage.newest() / (double) Config.DOUBLE_TO_LONG * 100) + " %";
+				case PrivateWorkingSet:
+					if (showDeadProcesses) {
+						return "--- --- K";
+					}
+					return TextUtils.valueToString(process.privateWorkingSet.newest() / 1024, ValueType.Raw) + " K";
+				case CommandLine:
+					return process.commandLine;
+				case Description:
+					return process.description;
+			}
+			return null;
+		}
+
+		Color getColorAt(int rowIndex, int columnIndex) {
+			Process process = rows.get(rowIndex);
+			switch (columnTypes[columnIndex]) {
+				case DeathTime:
+					return selectColorDeath(System.currentTimeMillis() - process.deathTimestamp);
+				case Cpu:
+					if (showDeadProcesses || process.id == 0) {
+						return selectColorCpu(0);
+					}
+					return selectColorCpu(process.cpuUsage.newest() / (double) Config.DOUBLE_TO_LONG);
+				case PrivateWorkingSet:
+					if (showDeadProcesses) {
+						return selectColorMemory(0);
+					}
+					return selectColorMemory(process.privateWorkingSet.newest() / (double) systemInformation.physicalMemoryTotal);
+			}
+			return null;
 		}
 
 		@Override
@@ -624,12 +681,14 @@ public class ProcessTable extends JTable {
 
 
 	private static class ColumnHeader implements Comparable<ColumnHeader> {
+		public Columns column;
 		public String header;
 		public int index;
 		public ProcessComparator comparator;
 		public boolean isSelected;
 
 		public ColumnHeader(Columns column, int index) {
+			this.column = column;
 			this.header = column.name;
 			this.index = index;
 			this.comparator = column.comparator;
@@ -676,7 +735,7 @@ public class ProcessTable extends JTable {
 				int startIndex = getSelectedRow();
 				for (int i = (search.length() == 1) ? 1 : 0; i < getRowCount(); i++) {
 					int idx = (startIndex + i) % getRowCount();
-					String currentProcessName = (String) tableModel.data[idx][fileNameHeader.index];
+					String currentProcessName = filteredProcesses.get(idx).fileName;
 					if (currentProcessName.toLowerCase().startsWith(search.toLowerCase())) {
 						setRowSelectionInterval(idx, idx);
 						scrollRectToVisible(getCellRect(idx, getSelectedColumn(), true));
@@ -773,7 +832,7 @@ public class ProcessTable extends JTable {
 					}
 
 					int index = tableColumnToDataColumn[columnAtPoint];
-					contextMenu.setCellText(tableModel.columns[index], tableModel.data[rowAtPoint][index].toString());
+					contextMenu.setCellText(tableModel.columns[index], tableModel.getValueAt(rowAtPoint, index).toString());
 				} else {
 					((Component) e.getSource()).setVisible(false);
 				}
@@ -13,6 +13,10 @@ package taskmanager.ui.performance;
 
 import config.Config;
 import taskmanager.Measurements;
+import taskmanager.PrimitiveMeasurements;
+import taskmanager.RangeSums;
+import taskmanager.SharedMeasurements;
+import taskmanager.TieredMeasurements;
 import taskmanager.data.TopList;
 import taskmanager.ui.ColorUtils;
 import taskmanager.ui.TextUtils;
@@ -28,6 +32,9 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.Stroke;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
@@ -35,6 +42,11 @@ import java.util.Iterator;
 import java.util.List;
 
 public class GraphPanel extends JPanel {
+	public static final String DECIMATION_AVERAGE = "average";
+	public static final String DECIMATION_M4 = "m4";
+
+	private static final Color GRID_COLOR = new Color(127, 139, 147, 50);
+
 	private final List<Graph> graphs;
 	private long measurementMaximumValue;
 
@@ -49,9 +61,29 @@ public class GraphPanel extends JPanel {
 
 	private final boolean renderValueMarker;
 	private boolean isLogarithmic;
+	private String decimation;
 	private int mouseX;
 	private int mouseY;
 
+	/* Render cache: the curves are drawn into curveLayer, which is reused until the view changes. While the view follows
+	 * the newest data the layer is scrolled by whole columns and only the new columns on the right are drawn, the
+	 * x-coordinates are computed from the absolute column (curveColumn) so that scrolled and redrawn parts line up. */
+	private static final int SCROLL_MARGIN = 2;
+
+	private BufferedImage curveLayer;
+	private BufferedImage gridLayer;
+	private boolean gridLogarithmic;
+	private boolean canScroll;
+	private long curveColumn;
+	private int layerScale;
+	private int layerStartIndex;
+	private int layerEndIndex;
+	private int layerStepSize;
+	private long layerMaximumValue;
+	private boolean layerLogarithmic;
+	private String layerDecimation;
+	private long layerColumn;
+
 	public GraphPanel(GraphType graphType, ValueType valueType) {
 		this (graphType, valueType, true);
 	}
@@ -62,6 +94,7 @@ public class GraphPanel extends JPanel {
 		this.valueType = valueType;
 		this.renderValueMarker = renderValueMarker;
 		isLogarithmic = false;
+		setDecimation(Config.get(Config.KEY_GRAPH_DECIMATION, DECIMATION_AVERAGE));
 
 		setBackground(Color.WHITE);
 		setSelected(false);
@@ -73,6 +106,7 @@ public class GraphPanel extends JPanel {
 
 		moveDataWindow = true;
 		mouseX = -1;
+		canScroll = true;
 	}
 
 	public void setIsLogarithmic(boolean isLogarithmic) {
@@ -83,6 +117,16 @@ public class GraphPanel extends JPanel {
 		return isLogarithmic;
 	}
 
+	/**
+	 * Selects how the samples of one pixel column are reduced, either to their average or to their first, minimum,
+	 * maximum and last values (M4), which keeps short spikes visible.
+	 */
+	public void setDecimation(String decimation) {
+		if (!decimation.equals(DECIMATION_AVERAGE) && !decimation.equals(DECIMATION_M4))
+			throw new IllegalArgumentException("Unknown decimation: " + decimation + "!");
+		this.decimation = decimation;
+	}
+
 	public void addGraph(Measurements<Long> measurements) {
 		addGraph(measurements, null, false);
 	}
@@ -97,6 +141,8 @@ public class GraphPanel extends JPanel {
 
 	public void addGraph(Measurements<Long> measurements, Measurements<TopList> topLists, boolean isDashed) {
 		this.graphs.add(new Graph(measurements, topLists, isDashed));
+		// Older tiered values change as they are aggregated, so they can't be scrolled
+		canScroll &= !(SharedMeasurements.unwrap(measurements) instanceof TieredMeasurements);
 		setDataIndexInterval((int) (measurements.size() - 1 - 60 * Config.getFloat(Config.KEY_UPDATE_RATE)), measurements.size() - 1);
 	}
 
@@ -115,36 +161,169 @@ public class GraphPanel extends JPanel {
 		Graphics2D g2d = (Graphics2D) g;
 		g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
+		int stepSize = computeIndicesPerPixel();
 		for (Graph graph : graphs) {
-			int stepSize = computeIndicesPerPixel();
 			graph.measurementAverager.setInterval(dataStartIndex, dataEndIndex, stepSize);
 			if (graph.topListAverager != null) {
 				graph.topListAverager.setInterval(dataStartIndex, dataEndIndex, stepSize);
 			}
 		}
+		curveColumn = gridOffset / stepSize;
 
-		drawCurve(g2d);
-		drawGrid(g);
+		int scale = integralScaleOf(g2d);
+		if (scale > 0 && getWidth() > 0 && getHeight() > 0 && Config.getBoolean(Config.KEY_GRAPH_RENDER_CACHE, true)) {
+			updateCurveLayer(stepSize, scale);
+			g2d.drawImage(curveLayer, 0, 0, getWidth(), getHeight(), null);
+			drawGrid(g2d, scale);
+		} else {
+			curveLayer = null;
+			gridLayer = null;
+			drawCurve(g2d, 0);
+			drawGrid(g2d, 0);
+		}
 
 		if (mouseX >= 0 && renderValueMarker) {
 			drawSelection(g2d);
 		}
 	}
 
+	/**
+	 * @return The scale of the device pixels, or 0 if it isn't a whole number (the layers can't be scrolled by whole
+	 * pixels then).
+	 */
+	private static int integralScaleOf(Graphics2D g2d) {
+		AffineTransform transform = g2d.getTransform();
+		double scale = transform.getScaleX();
+		if (transform.getShearX() != 0 || transform.getShearY() != 0 || transform.getScaleY() != scale ||
+				scale < 1 || scale != Math.rint(scale)) {
+			return 0;
+		}
+		return (int) scale;
+	}
+
+	private void updateCurveLayer(int stepSize, int scale) {
+		int width = getWidth();
+		int height = getHeight();
+		boolean isSameView = curveLayer != null && layerScale == scale &&
+				curveLayer.getWidth() == width * scale && curveLayer.getHeight() == height * scale &&
+				layerStartIndex == dataStartIndex && layerEndIndex == dataEndIndex && layerStepSize == stepSize &&
+				layerMaximumValue == measurementMaximumValue && layerLogarithmic == isLogarithmic &&
+				layerDecimation.equals(decimation);
+
+		if (isSameView && layerColumn == curveColumn) {
+			return;
+		}
+
+		if (isSameView && canScroll && moveDataWindow && curveColumn > layerColumn && decimation.equals(DECIMATION_AVERAGE)) {
+			int numColumns = numColumns();
+			int dx = (numColumns > 0) ? (int) (curveColumn * width / numColumns - layerColumn * width / numColumns) : width;
+			if (dx < width - SCROLL_MARGIN) {
+				Graphics2D g2d = curveLayer.createGraphics();
+				g2d.copyArea(dx * scale, 0, (width - dx) * scale, height * scale, -dx * scale, 0);
+				g2d.scale(scale, scale);
+
+				int fromX = width - dx - SCROLL_MARGIN;
+				g2d.setClip(fromX, 0, width - fromX, height);
+				g2d.setColor(getBackground());
+				g2d.fillRect(fromX, 0, width - fromX, height);
+				g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+				drawCurve(g2d, fromX);
+				g2d.dispose();
+
+				layerColumn = curveColumn;
+				return;
+			}
+		}
+
+		if (curveLayer == null || curveLayer.getWidth() != width * scale || curveLayer.getHeight() != height * scale) {
+			curveLayer = createLayer(width * scale, height * scale, Transparency.OPAQUE);
+		}
+		Graphics2D g2d = curveLayer.createGraphics();
+		g2d.scale(scale, scale);
+		g2d.setColor(getBackground());
+		g2d.fillRect(0, 0, width, height);
+		g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		drawCurve(g2d, 0);
+		g2d.dispose();
+
+		layerScale = scale;
+		layerStartIndex = dataStartIndex;
+		layerEndIndex = dataEndIndex;
+		layerStepSize = stepSize;
+		layerMaximumValue = measurementMaximumValue;
+		layerLogarithmic = isLogarithmic;
+		layerDecimation = decimation;
+		layerColumn = curveColumn;
+	}
+
+	private BufferedImage createLayer(int width, int height, int transparency) {
+		if (getGraphicsConfiguration() != null) {
+			return getGraphicsConfiguration().createCompatibleImage(width, height, transparency);
+		}
+		return new BufferedImage(width, height, transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+	}
+
+	private int numColumns() {
+		if (graphs.isEmpty()) {
+			return 0;
+		}
+		MeasurementAverager<Long> averager = graphs.get(0).measurementAverager;
+		averager.reset();
+		return averager.numPoints();
+	}
+
+	/**
+	 * @return The x-coordinate of the start of a column relative to the first visible one.
+	 */
+	private int columnX(int column, int numColumns) {
+		return (int) ((curveColumn + column) * getWidth() / numColumns - curveColumn * getWidth() / numColumns);
+	}
+
 	protected int computeIndicesPerPixel() {
 		return (int) Math.ceil((dataEndIndex - dataStartIndex) /
 				(float) (getWidth() / Config.getInt(Config.KEY_GRAPH_MAX_PIXELS_PER_SEGMENT)));
 	}
 
-	private void drawGrid(Graphics g) {
+	/**
+	 * @param scale The scale to cache the horizontal lines at, 0 draws them directly.
+	 */
+	private void drawGrid(Graphics2D g, int scale) {
 		final int datapointsPerVerticalSection = computeDatapointsPerVerticalSection();
 
-		final int numHorizontalSections = 10;
 		final int numVerticalSections = (dataEndIndex - dataStartIndex) / datapointsPerVerticalSection;
 		final int verticalOffset = 0;
 
+		if (scale > 0) {
+			if (gridLayer == null || gridLayer.getWidth() != getWidth() * scale || gridLayer.getHeight() != getHeight() * scale ||
+					gridLogarithmic != isLogarithmic) {
+				gridLayer = createLayer(getWidth() * scale, getHeight() * scale, Transparency.TRANSLUCENT);
+				gridLogarithmic = isLogarithmic;
+				Graphics2D gridGraphics = gridLayer.createGraphics();
+				gridGraphics.scale(scale, scale);
+				drawHorizontalGrid(gridGraphics);
+				gridGraphics.dispose();
+			}
+			g.drawImage(gridLayer, 0, 0, getWidth(), getHeight(), null);
+		} else {
+			drawHorizontalGrid(g);
+		}
+
+		g.setColor(GRID_COLOR);
+		final int indicesPerPixel = computeIndicesPerPixel();
+
+		for (int i = 0; i < numVerticalSections; i++) {
+			int alignedPoints = (gridOffset - gridOffset % indicesPerPixel) % datapointsPerVerticalSection;
+			float offset = alignedPoints / (float) datapointsPerVerticalSection;
+			int x = (int) (getWidth() * (i + 1 - offset) / numVerticalSections + verticalOffset);
+			g.drawLine(x, 0, x, getHeight());
+		}
+	}
+
+	private void drawHorizontalGrid(Graphics g) {
+		final int numHorizontalSections = 10;
+
 //		g.setColor(new Color(227, 239, 247));
-		g.setColor(new Color(127, 139, 147, 50));
+		g.setColor(GRID_COLOR);
 		if (isLogarithmic) {
 			double lower = 0;
 			double upper = logarithm(numHorizontalSections);
@@ -159,15 +338,6 @@ public class GraphPanel extends JPanel {
 				g.drawLine(0, y, getWidth(), y);
 			}
 		}
-
-		final int indicesPerPixel = computeIndicesPerPixel();
-
-		for (int i = 0; i < numVerticalSections; i++) {
-			int alignedPoints = (gridOffset - gridOffset % indicesPerPixel) % datapointsPerVerticalSection;
-			float offset = alignedPoints / (float) datapointsPerVerticalSection;
-			int x = (int) (getWidth() * (i + 1 - offset) / numVerticalSections + verticalOffset);
-			g.drawLine(x, 0, x, getHeight());
-		}
 	}
 
 	private double logarithm(double value) {
@@ -189,35 +359,60 @@ public class GraphPanel extends JPanel {
 		return size;
 	}
 
-	private void drawCurve(Graphics2D g2d) {
+	/**
+	 * @param fromX Segments that end before this x-coordinate are skipped (the M4 decimation always draws everything).
+	 */
+	private void drawCurve(Graphics2D g2d, int fromX) {
+		boolean useM4 = decimation.equals(DECIMATION_M4);
 		int alpha = 25;
 		for (Graph graph : graphs) {
-			drawCurvePart(g2d, graph, false, alpha);
+			if (useM4) {
+				drawCurvePartM4(g2d, graph, false, alpha);
+			} else {
+				drawCurvePart(g2d, graph, false, alpha, fromX);
+			}
 			alpha += 25;
 		}
 		for (Graph graph : graphs) {
-			drawCurvePart(g2d, graph, true, 255);
+			if (useM4) {
+				drawCurvePartM4(g2d, graph, true, 255);
+			} else {
+				drawCurvePart(g2d, graph, true, 255, fromX);
+			}
 		}
 	}
 
-	private void drawCurvePart(Graphics2D g2d, Graph graph, boolean drawLine, int alpha) {
+	private void drawCurvePart(Graphics2D g2d, Graph graph, boolean drawLine, int alpha, int fromX) {
+		MeasurementAverager<Long> itr = graph.measurementAverager;
+		itr.reset();
+		int numPoints = itr.numPoints();
+		if (numPoints <= 0) {
+			return;
+		}
+
+		// Antialiasing reaches about a pixel past the end of a segment
+		int idx = 0;
+		while (idx < numPoints - 1 && columnX(idx + 1, numPoints) < fromX - 1) {
+			idx++;
+		}
+		if (idx > 0) {
+			itr.reset(idx);
+		}
+
 		Stroke oldStroke = g2d.getStroke();
 		if (graph.isDashed) {
 			g2d.setStroke(new BasicStroke(1.5f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10f, new float[]{3f}, 0f));
 		}
 
-		MeasurementAverager<Long> itr = graph.measurementAverager;
-		itr.reset();
 		long previous = itr.next();
-		int idx = 0;
 		while (itr.hasNext()) {
 			long current = itr.next();
 
 			int yPrev = (int) (getHeight() * Math.min(1, computeHeightFraction(previous, measurementMaximumValue)));
 			int yCurr = (int) (getHeight() * Math.min(1, computeHeightFraction(current, measurementMaximumValue)));
 
-			int x = getWidth() * (idx) / itr.numPoints();
-			int xNext = getWidth() * (idx + 1) / itr.numPoints();
+			int x = columnX(idx, numPoints);
+			int xNext = columnX(idx + 1, numPoints);
 
 			Color color = graphType.color;
 			if (drawLine) {
@@ -236,6 +431,83 @@ public class GraphPanel extends JPanel {
 		g2d.setStroke(oldStroke);
 	}
 
+	private void drawCurvePartM4(Graphics2D g2d, Graph graph, boolean drawLine, int alpha) {
+		int start = Math.max(0, dataStartIndex);
+		int end = dataEndIndex;
+		int count = end - start + 1;
+		if (count < 2 || getWidth() <= 0) {
+			return;
+		}
+
+		// Whole samples per column, aligned to the samples so that the columns don't change as the graph scrolls
+		int indicesPerColumn = Math.max(1, (int) Math.ceil(count / (float) getWidth()));
+		int maxPoints = 4 * (count / indicesPerColumn + 2) + 2;
+		if (graph.xPoints.length < maxPoints) {
+			graph.xPoints = new int[maxPoints];
+			graph.yPoints = new int[maxPoints];
+		}
+		int[] xs = graph.xPoints;
+		int[] ys = graph.yPoints;
+
+		int numPoints = 0;
+		if (!drawLine) {
+			xs[numPoints] = 0;
+			ys[numPoints++] = getHeight();
+		}
+
+		int columnStart = start;
+		while (columnStart <= end) {
+			int columnEnd = Math.min(end, columnStart + indicesPerColumn - 1 - (columnStart + gridOffset) % indicesPerColumn);
+			int x = (int) ((long) getWidth() * (columnStart - start) / (count - 1));
+			int xLast = (int) ((long) getWidth() * (columnEnd - start) / (count - 1));
+
+			long max = extremeOf(graph.measurements, columnStart, columnEnd, true);
+			xs[numPoints] = x;
+			ys[numPoints++] = heightOf(extremeOf(graph.measurements, columnStart, columnStart, true));
+			if (drawLine) {
+				xs[numPoints] = x;
+				ys[numPoints++] = heightOf(extremeOf(graph.measurements, columnStart, columnEnd, false));
+			}
+			xs[numPoints] = x;
+			ys[numPoints++] = heightOf(max);
+			xs[numPoints] = xLast;
+			ys[numPoints++] = heightOf(extremeOf(graph.measurements, columnEnd, columnEnd, true));
+
+			columnStart = columnEnd + 1;
+		}
+
+		if (drawLine) {
+			Stroke oldStroke = g2d.getStroke();
+			if (graph.isDashed) {
+				g2d.setStroke(new BasicStroke(1.5f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10f, new float[]{3f}, 0f));
+			}
+			g2d.setColor(graphType.color);
+			g2d.drawPolyline(xs, ys, numPoints);
+			g2d.setStroke(oldStroke);
+		} else {
+			xs[numPoints] = getWidth();
+			ys[numPoints++] = getHeight();
+			// The outline is drawn antialiased on top, the fill alone doesn't need it
+			Object antialiasing = g2d.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+			g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+			g2d.setColor(ColorUtils.blend(graphType.color, Color.WHITE, alpha/255f));
+			g2d.fillPolygon(xs, ys, numPoints);
+			g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialiasing);
+		}
+	}
+
+	private int heightOf(long value) {
+		return getHeight() - (int) (getHeight() * Math.min(1, computeHeightFraction(value, measurementMaximumValue)));
+	}
+
+	private static long extremeOf(Measurements<Long> measurements, int startIndex, int endIndex, boolean max) {
+		if (measurements instanceof PrimitiveMeasurements) {
+			PrimitiveMeasurements primitiveMeasurements = (PrimitiveMeasurements) measurements;
+			return max ? primitiveMeasurements.maxAsLong(startIndex, endIndex) : primitiveMeasurements.minAsLong(startIndex, endIndex);
+		}
+		return max ? measurements.max(startIndex, endIndex) : measurements.min(startIndex, endIndex);
+	}
+
 	private double computeHeightFraction(long value, long maximum) {
 		if (isLogarithmic) {
 			return logarithm(value < 1 ? 1 : value) / logarithm(maximum);
@@ -420,6 +692,14 @@ public class GraphPanel extends JPanel {
 		return (int) (metrics.getHeight() * lines);
 	}
 
+	public int getDataStartIndex() {
+		return Math.max(0, dataStartIndex);
+	}
+
+	public int getDataEndIndex() {
+		return dataEndIndex;
+	}
+
 	protected void setDataIndexInterval(int start, int end) {
 		dataStartIndex = start;
 		dataEndIndex = end;
@@ -430,12 +710,24 @@ public class GraphPanel extends JPanel {
 	}
 
 	public void newDatapoint() {
+		newDatapoints(1);
+	}
+
+	/**
+	 * Moves the graph forward by a number of measurements at once, used to catch up after not being updated for a while.
+	 */
+	public void newDatapoints(int count) {
+		if (count <= 0) {
+			return;
+		}
+
 		moveDataWindow = dataEndIndex == graphs.get(0).measurements.size() - 1;
 		if (!moveDataWindow && dataStartIndex > 0) {
-			dataStartIndex -= 1;
-			dataEndIndex -= 1;
+			int shift = Math.min(count, dataStartIndex);
+			dataStartIndex -= shift;
+			dataEndIndex -= shift;
 		} else {
-			gridOffset += 1;
+			gridOffset += count;
 			for (Graph graph : graphs) {
 				graph.measurementAverager.shift(gridOffset);
 				if (graph.topListAverager != null) {
@@ -472,8 +764,14 @@ public class GraphPanel extends JPanel {
 		private final MeasurementAverager<TopList> topListAverager;
 		private final boolean isDashed;
 
+		// Reused between repaints when drawing with the M4 decimation
+		private int[] xPoints;
+		private int[] yPoints;
+
 		public Graph(Measurements<Long> measurements, Measurements<TopList> topLists, boolean isDashed) {
 			this.measurements = measurements;
+			this.xPoints = new int[0];
+			this.yPoints = new int[0];
 			this.measurementAverager = new MeasurementAveragerForLong(measurements);
 			if (topLists != null) {
 				this.topListAverager = new MeasurementAveragerForTopList(topLists);
@@ -537,6 +835,16 @@ public class GraphPanel extends JPanel {
 			return (long) (iterable.max() * Config.DOUBLE_TO_LONG);
 		}
 
+		@Override
+		public Long min(int startIndex, int endIndex) {
+			return (long) (iterable.min(startIndex, endIndex) * Config.DOUBLE_TO_LONG);
+		}
+
+		@Override
+		public Long max(int startIndex, int endIndex) {
+			return (long) (iterable.max(startIndex, endIndex) * Config.DOUBLE_TO_LONG);
+		}
+
 		@Override
 		public Iterator<Long> getRangeIterator(int startIndex, int endIndex) {
 			return new ConversionIterator(iterable.getRangeIterator(startIndex, endIndex));
@@ -562,7 +870,7 @@ public class GraphPanel extends JPanel {
 	}
 
 
-	public static class ShortToLong implements Measurements<Long> {
+	public static class ShortToLong implements Measurements<Long>, RangeSums {
 		private final Measurements<Short> iterable;
 
 		public ShortToLong(Measurements<Short> iterable) {
@@ -596,26 +904,58 @@ public class GraphPanel extends JPanel {
 
 		@Override
 		public Long newest() {
+			if (iterable instanceof PrimitiveMeasurements) {
+				return ((PrimitiveMeasurements) iterable).newestAsLong();
+			}
 			return (long) iterable.newest();
 		}
 
 		@Override
 		public Long oldest() {
-			return (long) (iterable.oldest() * Config.DOUBLE_TO_LONG);
+			return (long) iterable.oldest();
 		}
 
 		@Override
 		public Long min() {
-			return (long) (iterable.min() * Config.DOUBLE_TO_LONG);
+			return (long) iterable.min();
 		}
 
 		@Override
 		public Long max() {
-			return (long) (iterable.max() * Config.DOUBLE_TO_LONG);
+			return (long) iterable.max();
+		}
+
+		@Override
+		public Long min(int startIndex, int endIndex) {
+			if (iterable instanceof PrimitiveMeasurements) {
+				return ((PrimitiveMeasurements) iterable).minAsLong(startIndex, endIndex);
+			}
+			return (long) iterable.min(startIndex, endIndex);
+		}
+
+		@Override
+		public Long max(int startIndex, int endIndex) {
+			if (iterable instanceof PrimitiveMeasurements) {
+				return ((PrimitiveMeasurements) iterable).maxAsLong(startIndex, endIndex);
+			}
+			return (long) iterable.max(startIndex, endIndex);
+		}
+
+		@Override
+		public long sumAsLong(int startIndex, int endIndex) {
+			return ((RangeSums) iterable).sumAsLong(startIndex, endIndex);
+		}
+
+		@Override
+		public boolean hasRangeSums() {
+			return iterable instanceof RangeSums && ((RangeSums) iterable).hasRangeSums();
 		}
 
 		@Override
 		public Iterator<Long> getRangeIterator(int startIndex, int endIndex) {
+			if (iterable instanceof PrimitiveMeasurements) {
+				return ((PrimitiveMeasurements) iterable).getLongRangeIterator(startIndex, endIndex);
+			}
 			return new ConversionIterator(iterable.getRangeIterator(startIndex, endIndex));
 		}
 
@@ -75,7 +75,7 @@ public class GraphTypeButton extends JButton {
 		graph.setMaxDatapointValue(maxValue);
 	}
 
-	public void newDatapoint(long... currentValues) {
+	public void newDatapoints(int count, long... currentValues) {
 		if (type == GraphType.Cpu) {
 			valueLabel.setText(TextUtils.valueToString(currentValues[0], ValueType.Percentage));
 		} else if (type == GraphType.Memory) {
@@ -91,7 +91,15 @@ public class GraphTypeButton extends JButton {
 		} else if (type == GraphType.Gpu) {
 			valueLabel.setText(TextUtils.valueToString(currentValues[0], ValueType.Percentage));
 		}
-		graph.newDatapoint();
+		graph.newDatapoints(count);
+	}
+
+	public int getDataStartIndex() {
+		return graph.getDataStartIndex();
+	}
+
+	public int getDataEndIndex() {
+		return graph.getDataEndIndex();
 	}
 
 	public void select() {
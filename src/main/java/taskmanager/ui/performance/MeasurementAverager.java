@@ -48,7 +48,7 @@ public abstract class MeasurementAverager<T> {
 		int start = this.start - offset + idx * stepSize;
 		int end = this.end - offset;
 
-		iterator = measurements.getRangeIterator(start, end - 1);
+		iterator = createIterator(measurements, start, end - 1, stepSize);
 		numPoints = (end - start) / stepSize - 1;
 	}
 
@@ -56,6 +56,10 @@ public abstract class MeasurementAverager<T> {
 		return computeAverage(iterator, stepSize);
 	}
 
+	protected Iterator<T> createIterator(Measurements<T> measurements, int start, int end, int stepSize) {
+		return measurements.getRangeIterator(start, end);
+	}
+
 	protected abstract T computeAverage(Iterator<T> iterator, int stepSize);
 
 	public boolean hasNext() {
@@ -12,17 +12,45 @@
 package taskmanager.ui.performance;
 
 import taskmanager.Measurements;
+import taskmanager.RangeSums;
+import taskmanager.SharedMeasurements;
+import taskmanager.TieredMeasurements;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 
 public class MeasurementAveragerForLong extends MeasurementAverager<Long> {
 	public MeasurementAveragerForLong(Measurements<Long> measurements) {
 		super(measurements);
 	}
 
+	@Override
+	protected Iterator<Long> createIterator(Measurements<Long> measurements, int start, int end, int stepSize) {
+		Measurements<Long> storage = SharedMeasurements.unwrap(measurements);
+		if (storage instanceof TieredMeasurements && stepSize > 1) {
+			return ((TieredMeasurements) storage).getAveragingIterator(start, end, stepSize);
+		} else if (measurements instanceof RangeSums && ((RangeSums) measurements).hasRangeSums() && stepSize > 1) {
+			return new RangeSumIterator((RangeSums) measurements, start, end, stepSize);
+		}
+		return super.createIterator(measurements, start, end, stepSize);
+	}
+
 	@Override
 	protected Long computeAverage(Iterator<Long> iterator, int stepSize) {
-		if (iterator != null && iterator.hasNext()) {
+		if (iterator instanceof TieredMeasurements.AveragingIterator && iterator.hasNext()) {
+			// Already averaged over the step, possibly from a lower resolution tier
+			return ((TieredMeasurements.AveragingIterator) iterator).nextLong();
+		} else if (iterator instanceof RangeSumIterator && iterator.hasNext()) {
+			return ((RangeSumIterator) iterator).nextLong();
+		} else if (iterator instanceof PrimitiveIterator.OfLong && iterator.hasNext()) {
+			PrimitiveIterator.OfLong primitiveIterator = (PrimitiveIterator.OfLong) iterator;
+			long total = 0;
+			for (int i = 0; i < stepSize; i++) {
+				total += primitiveIterator.nextLong();
+			}
+			return total / stepSize;
+		} else if (iterator != null && iterator.hasNext()) {
 			long total = 0;
 			for (int i = 0; i < stepSize; i++) {
 				total += iterator.next();
@@ -31,4 +59,37 @@ public class MeasurementAveragerForLong extends MeasurementAverager<Long> {
 		}
 		return 0L;
 	}
-}
\ No newline at end of file
+
+
+	/**
+	 * Averages every `stepSize` values with one range sum each instead of visiting every value.
+	 */
+	private static class RangeSumIterator implements PrimitiveIterator.OfLong {
+		private final RangeSums sums;
+		private final int end;
+		private final int stepSize;
+		private int index;
+
+		RangeSumIterator(RangeSums sums, int start, int end, int stepSize) {
+			this.sums = sums;
+			this.end = end;
+			this.stepSize = stepSize;
+			this.index = start;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index + stepSize - 1 <= end;
+		}
+
+		@Override
+		public long nextLong() {
+			if (!hasNext())
+				throw new NoSuchElementException("The iterator is empty!");
+
+			long total = sums.sumAsLong(index, index + stepSize - 1);
+			index += stepSize;
+			return total / stepSize;
+		}
+	}
+}
@@ -19,12 +19,23 @@ import taskmanager.ui.performance.gpus.GpuPanel;
 import taskmanager.ui.performance.memory.MemoryPanel;
 import taskmanager.ui.performance.network.NetworkPanel;
 
+import javax.swing.JComponent;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
+import java.awt.event.HierarchyEvent;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
 
+/**
+ * Only the selected panel is updated, and only while it is showing. The buttons are cheap and updated whenever the
+ * performance panel is showing. Everything that has not been updated catches up in one step when it is shown again,
+ * by moving its graphs forward by the number of generations it missed.
+ */
 public class PerformancePanel extends JSplitPane implements PerformanceButtonListener {
+	private final SystemInformation systemInformation;
 	private final GraphSelectionPanel graphSelectionPanel;
 
 	private final JScrollPane selectedPanelContainer;
@@ -36,8 +47,19 @@ public class PerformancePanel extends JSplitPane implements PerformanceButtonLis
 	private final NetworkPanel[] networkPanels;
 	private final GpuPanel[] gpuPanels;
 
+	private JComponent selectedPanel;
+	private IntConsumer selectedPanelUpdater;
+	// The generation each panel was last updated with, and the generation of the buttons
+	private final long initialGeneration;
+	private final Map<JComponent, Long> panelGenerations;
+	private long buttonGeneration;
+
 	public PerformancePanel(SystemInformation systemInformation, ShowProcessCallback showProcessCallback) {
 		super(JSplitPane.HORIZONTAL_SPLIT);
+		this.systemInformation = systemInformation;
+		initialGeneration = systemInformation.generation;
+		panelGenerations = new HashMap<>();
+		buttonGeneration = initialGeneration;
 
 		selectedPanelContainer = new JScrollPane();
 		selectedPanelContainer.setBorder(null);
@@ -84,7 +106,12 @@ public class PerformancePanel extends JSplitPane implements PerformanceButtonLis
 		add(selectionPanelContainer);
 		add(selectedPanelContainer);
 
-		selectedPanelContainer.setViewportView(cpuPanel);
+		select(cpuPanel, n -> cpuPanel.update(systemInformation, n));
+		addHierarchyListener(e -> {
+			if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && isShowing()) {
+				update(systemInformation);
+			}
+		});
 
 		int dividerLocation = Config.getInt(Config.KEY_LAST_PERFORMANCE_PANEL_SPLIT_LOCATION, -1);
 		if (dividerLocation != -1) {
@@ -99,36 +126,56 @@ public class PerformancePanel extends JSplitPane implements PerformanceButtonLis
 	}
 
 	public void update(SystemInformation systemInformation) {
-		memoryPanel.update(systemInformation);
-		cpuPanel.update(systemInformation);
+		if (!isShowing()) {
+			return;
+		}
 
+		int newDatapoints = (int) (systemInformation.generation - buttonGeneration);
+		buttonGeneration = systemInformation.generation;
+		memoryPanel.updateButton(systemInformation, newDatapoints);
+		cpuPanel.updateButton(newDatapoints);
 		for (DiskPanel diskPanel : diskPanels) {
-			diskPanel.update();
+			diskPanel.updateButton(newDatapoints);
 		}
 		for (NetworkPanel networkPanel : networkPanels) {
-			networkPanel.update();
+			networkPanel.updateButton(newDatapoints);
 		}
 		for (GpuPanel gpuPanel : gpuPanels) {
-			gpuPanel.update();
+			gpuPanel.updateButton(newDatapoints);
 		}
+
+		updateSelectedPanel();
+	}
+
+	private void updateSelectedPanel() {
+		long generation = panelGenerations.getOrDefault(selectedPanel, initialGeneration);
+		panelGenerations.put(selectedPanel, systemInformation.generation);
+		selectedPanelUpdater.accept((int) (systemInformation.generation - generation));
 	}
 
 	@Override
 	public void swapTo(GraphType type, int index) {
 		graphSelectionPanel.deselectAll();
 		if (type == GraphType.Cpu) {
-			selectedPanelContainer.setViewportView(cpuPanel);
+			select(cpuPanel, n -> cpuPanel.update(systemInformation, n));
 		} else if (type == GraphType.Memory) {
-			selectedPanelContainer.setViewportView(memoryPanel);
+			select(memoryPanel, n -> memoryPanel.update(systemInformation, n));
 		} else if (type == GraphType.Disk) {
-			selectedPanelContainer.setViewportView(diskPanels[index]);
+			select(diskPanels[index], diskPanels[index]::update);
 		} else if (type == GraphType.Network) {
-			selectedPanelContainer.setViewportView(networkPanels[index]);
+			select(networkPanels[index], networkPanels[index]::update);
 		} else if (type == GraphType.Gpu) {
-			selectedPanelContainer.setViewportView(gpuPanels[index]);
+			select(gpuPanels[index], gpuPanels[index]::update);
 		}
 
 		revalidate();
 		repaint();
 	}
+
+	private void select(JComponent panel, IntConsumer panelUpdater) {
+		selectedPanel = panel;
+		selectedPanelUpdater = panelUpdater;
+		selectedPanelContainer.setViewportView(panel);
+		updateSelectedPanel();
+	}
 }
\ No newline at end of file
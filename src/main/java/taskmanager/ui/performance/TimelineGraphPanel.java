@@ -88,7 +88,9 @@ public class TimelineGraphPanel extends GraphPanel {
 		int diff = endIndex - startIndex;
 		int seconds = (int) (diff / Config.getFloat(Config.KEY_UPDATE_RATE));
 		
-		if (seconds > 60*3-1) {
+		if (seconds > 3600*3-1) {
+			timeLabel.setText("Displaying " + Math.round(seconds/(float)3600) + " hours");
+		} else if (seconds > 60*3-1) {
 			timeLabel.setText("Displaying " + Math.round(seconds/(float)60) + " minutes");
 		} else {
 			timeLabel.setText("Displaying " + seconds + " seconds");
@@ -141,8 +143,8 @@ public class TimelineGraphPanel extends GraphPanel {
 	}
 	
 	@Override
-	public void newDatapoint() {
-		super.newDatapoint();
+	public void newDatapoints(int count) {
+		super.newDatapoints(count);
 
 		startIndex = connectedGraphs.get(0).dataStartIndex;
 		endIndex = connectedGraphs.get(0).dataEndIndex;
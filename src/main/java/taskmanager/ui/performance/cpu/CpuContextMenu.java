@@ -25,15 +25,21 @@ public class CpuContextMenu extends JPopupMenu {
 	public CpuContextMenu(CpuPanel panel, Measurements<TopList> cpuTopList, ShowProcessCallback callback) {
 		ShowTotalCpuMenuItem totalCpu = new ShowTotalCpuMenuItem(panel);
 		ShowCoresCpuMenuItem coresCpu = new ShowCoresCpuMenuItem(panel);
+		ShowCoresHeatmapMenuItem coresHeatmap = new ShowCoresHeatmapMenuItem(panel);
 		
 		ButtonGroup group = new ButtonGroup();
 		group.add(totalCpu);
 		group.add(coresCpu);
+		group.add(coresHeatmap);
 		totalCpu.setSelected(true);
 		
 		JMenu changeGraphMenu = new JMenu("Change graph to ");
 		changeGraphMenu.add(totalCpu);
-		changeGraphMenu.add(coresCpu);
+		// With many cores the separate graphs get too small, only the heatmap is offered then
+		if (panel.hasCoreGraphs()) {
+			changeGraphMenu.add(coresCpu);
+		}
+		changeGraphMenu.add(coresHeatmap);
 
 		add(changeGraphMenu);
 		add(new TopListMenu(this, cpuTopList, ValueType.Percentage, callback));
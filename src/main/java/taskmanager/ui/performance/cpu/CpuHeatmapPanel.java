@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.ui.performance.cpu;
+
+import config.Config;
+import taskmanager.MeasurementFactory;
+import taskmanager.Measurements;
+import taskmanager.RangeSums;
+import taskmanager.data.SystemInformation;
+import taskmanager.ui.ColorUtils;
+import taskmanager.ui.TextUtils;
+import taskmanager.ui.TextUtils.ValueType;
+import taskmanager.ui.performance.GraphPanel;
+import taskmanager.ui.performance.GraphPanel.ShortToLong;
+import taskmanager.ui.performance.GraphType;
+
+import java.awt.Color;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Iterator;
+
+/**
+ * Shows the usage of all logical processors in one image, with one row per core and time on the x-axis. Each column
+ * is the average of a fixed number of measurements, counted from the first measurement, so that the image can be
+ * scrolled by whole columns and only the new columns have to be computed.
+ */
+public class CpuHeatmapPanel extends GraphPanel {
+	private static final int PALETTE_SIZE = 256;
+
+	private final Measurements<Long>[] measurements;
+	private final int[] palette;
+
+	private long measurementCount;
+
+	private BufferedImage image;
+	private int[] pixels;
+	private int imageStepSize;
+	private long imageFirstColumn;
+
+	private int mouseX;
+	private int mouseY;
+
+	public CpuHeatmapPanel(SystemInformation systemInformation) {
+		super(GraphType.Cpu, ValueType.Percentage, false);
+
+		int numCores = systemInformation.logicalProcessorCount;
+		measurements = MeasurementFactory.createArray(numCores);
+		for (int i = 0; i < numCores; i++) {
+			measurements[i] = new ShortToLong(systemInformation.cpuUsagePerCore[i]);
+		}
+		// Only used for the data window, the graph itself is never drawn
+		addGraph(measurements[0]);
+
+		palette = new int[PALETTE_SIZE];
+		for (int i = 0; i < PALETTE_SIZE; i++) {
+			palette[i] = ColorUtils.blend(graphType.color, Color.WHITE, i / (float) (PALETTE_SIZE - 1)).getRGB();
+		}
+
+		mouseX = -1;
+		MouseAdapter mouseListener = new MouseAdapter() {
+			@Override
+			public void mouseMoved(MouseEvent e) {
+				mouseX = e.getX();
+				mouseY = e.getY();
+				repaint();
+			}
+
+			@Override
+			public void mouseExited(MouseEvent e) {
+				mouseX = -1;
+				repaint();
+			}
+		};
+		addMouseListener(mouseListener);
+		addMouseMotionListener(mouseListener);
+	}
+
+	@Override
+	public void newDatapoints(int count) {
+		if (count > 0) {
+			measurementCount += count;
+		}
+		super.newDatapoints(count);
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		Graphics2D g2d = (Graphics2D) g;
+		g2d.setColor(getBackground());
+		g2d.fillRect(0, 0, getWidth(), getHeight());
+		if (getWidth() <= 0 || getHeight() <= 0) {
+			return;
+		}
+
+		updateImage();
+		if (image != null) {
+			g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+			g2d.drawImage(image, 0, 0, getWidth(), getHeight(), null);
+		}
+
+		if (mouseX >= 0) {
+			g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			drawSelectionLabel(g2d);
+		}
+	}
+
+	/**
+	 * Brings the image up to date with the data window, scrolling it when the window only moved forward.
+	 */
+	private void updateImage() {
+		int length = dataEndIndex - dataStartIndex + 1;
+		int stepSize = Math.max(1, (length + getWidth() - 1) / getWidth());
+		// Always as many columns as fit in the window, so that the image keeps its width while the window moves
+		int numColumns = length / stepSize;
+		long lastColumn = Math.floorDiv(toAbsoluteIndex(dataEndIndex) + 1, stepSize) - 1;
+		long firstColumn = lastColumn - numColumns + 1;
+		if (numColumns <= 0) {
+			image = null;
+			return;
+		}
+
+		long shift = firstColumn - imageFirstColumn;
+		if (image == null || image.getWidth() != numColumns || imageStepSize != stepSize || shift < 0 || shift >= numColumns) {
+			image = new BufferedImage(numColumns, measurements.length, BufferedImage.TYPE_INT_RGB);
+			pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+			imageStepSize = stepSize;
+			imageFirstColumn = firstColumn;
+			drawColumns(0, numColumns);
+		} else if (shift > 0) {
+			for (int core = 0; core < measurements.length; core++) {
+				int row = core * numColumns;
+				System.arraycopy(pixels, row + (int) shift, pixels, row, numColumns - (int) shift);
+			}
+			imageFirstColumn = firstColumn;
+			drawColumns(numColumns - (int) shift, numColumns);
+		}
+	}
+
+	private void drawColumns(int from, int to) {
+		int numColumns = image.getWidth();
+		for (int core = 0; core < measurements.length; core++) {
+			int row = core * numColumns;
+			for (int column = from; column < to; column++) {
+				long value = columnValue(core, imageFirstColumn + column);
+				int index = (int) Math.min(PALETTE_SIZE - 1, Math.max(0, value * (PALETTE_SIZE - 1) / Config.DOUBLE_TO_LONG));
+				pixels[row + column] = palette[index];
+			}
+		}
+	}
+
+	/**
+	 * @return The average usage of a core in the measurements belonging to an absolute column.
+	 */
+	private long columnValue(int core, long column) {
+		Measurements<Long> coreMeasurements = measurements[core];
+		int start = Math.max(0, toBufferIndex(column * imageStepSize));
+		int end = Math.min(coreMeasurements.size() - 1, toBufferIndex((column + 1) * imageStepSize - 1));
+		if (start > end) {
+			return 0;
+		}
+
+		if (coreMeasurements instanceof RangeSums && ((RangeSums) coreMeasurements).hasRangeSums()) {
+			return ((RangeSums) coreMeasurements).sumAsLong(start, end) / (end - start + 1);
+		}
+		long sum = 0;
+		Iterator<Long> iterator = coreMeasurements.getRangeIterator(start, end);
+		while (iterator.hasNext()) {
+			sum += iterator.next();
+		}
+		return sum / (end - start + 1);
+	}
+
+	private long toAbsoluteIndex(int bufferIndex) {
+		return measurementCount - (measurements[0].size() - 1 - bufferIndex);
+	}
+
+	private int toBufferIndex(long absoluteIndex) {
+		return (int) (absoluteIndex - measurementCount + measurements[0].size() - 1);
+	}
+
+	private void drawSelectionLabel(Graphics2D g2d) {
+		if (image == null || mouseX >= getWidth() || mouseY < 0 || mouseY >= getHeight()) {
+			return;
+		}
+
+		int core = mouseY * measurements.length / getHeight();
+		long column = imageFirstColumn + (long) mouseX * image.getWidth() / getWidth();
+		String label = "CPU " + core + ": " + TextUtils.valueToString(columnValue(core, column), ValueType.Percentage);
+
+		g2d.setFont(getFont());
+		FontMetrics metrics = g2d.getFontMetrics();
+		final int padding = 2;
+		final int insets = 8;
+		int width = metrics.stringWidth(label) + insets * 2;
+		int height = metrics.getHeight() + insets;
+
+		int x = mouseX + padding;
+		int y = Math.max(padding, mouseY - height);
+		if (x + width + padding * 2 > getWidth()) {
+			x = Math.max(0, mouseX - width - padding * 2) + padding;
+		}
+		g2d.setColor(Color.WHITE);
+		g2d.fillRoundRect(x, y, width, height, 6, 6);
+		g2d.setColor(new Color(150, 150, 150));
+		g2d.drawRoundRect(x, y, width, height, 6, 6);
+		g2d.setColor(Color.BLACK);
+		g2d.drawString(label, x + insets, y + insets / 2 + metrics.getHeight() - metrics.getDescent());
+	}
+}
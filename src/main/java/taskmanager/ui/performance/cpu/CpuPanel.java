@@ -39,7 +39,8 @@ public class CpuPanel extends JPanel {
 	private final JPanel containerPanel;
 
 	private final GraphPanel singleCpuPanel;
-	private final MultiCpuPanel multiCpuPanel;
+	private final MultiCpuPanel multiCpuPanel; // null when there are too many cores, see KEY_CPU_HEATMAP_CORES
+	private final CpuHeatmapPanel heatmapPanel;
 	private final TimelineGraphPanel timelineGraph;
 
 	private final InformationItemPanel utilizationLabel;
@@ -52,6 +53,9 @@ public class CpuPanel extends JPanel {
 
 	// Linux specific
 	private final RatioItemPanel fileDescriptorsLabel;
+	private final InformationItemPanel contextSwitchesLabel;
+	private final InformationItemPanel processesCreatedLabel;
+	private final InformationItemPanel processesRunningLabel;
 
 	private GraphTypeButton connectedButton;
 
@@ -69,10 +73,15 @@ public class CpuPanel extends JPanel {
 
 		singleCpuPanel = new GraphPanel(GraphType.Cpu, ValueType.Percentage);
 		timelineGraph = new TimelineGraphPanel(GraphType.Cpu, labelMaxTime);
-		multiCpuPanel = new MultiCpuPanel(timelineGraph, systemInformation);
+		if (systemInformation.logicalProcessorCount < Config.getInt(Config.KEY_CPU_HEATMAP_CORES)) {
+			multiCpuPanel = new MultiCpuPanel(timelineGraph, systemInformation);
+		} else {
+			multiCpuPanel = null;
+		}
+		heatmapPanel = new CpuHeatmapPanel(systemInformation);
 
 		singleCpuPanel.addGraph(cpuUsage, systemInformation.cpuTopList);
-		timelineGraph.connectGraphPanels(singleCpuPanel);
+		timelineGraph.connectGraphPanels(singleCpuPanel, heatmapPanel);
 		timelineGraph.addGraph(cpuUsage);
 		timelineGroup.add(timelineGraph);
 
@@ -87,6 +96,9 @@ public class CpuPanel extends JPanel {
 		uptimeLabel = new InformationItemPanel("Uptime", ValueType.TimeFull);
 		handlesLabel = new InformationItemPanel("Handles", ValueType.Raw);
 		fileDescriptorsLabel = new RatioItemPanel("Open file descriptors", ValueType.Raw);
+		contextSwitchesLabel = new InformationItemPanel("Context switches/s", ValueType.Raw);
+		processesCreatedLabel = new InformationItemPanel("Processes created/s", ValueType.Raw);
+		processesRunningLabel = new InformationItemPanel("Runnable threads", ValueType.Raw);
 
 		SimpleGridBagLayout realTimeLayout = new SimpleGridBagLayout(realTimePanel);
 		realTimeLayout.addToGrid(utilizationLabel, 0, 0, 1, 1, GridBagConstraints.HORIZONTAL, 1, 0);
@@ -97,6 +109,9 @@ public class CpuPanel extends JPanel {
 			realTimeLayout.addToGrid(handlesLabel, 1, 1, 1, 1, GridBagConstraints.HORIZONTAL, 1, 0);
 		} else if (systemInformation.extraInformation instanceof LinuxExtraInformation) {
 			realTimeLayout.addToGrid(fileDescriptorsLabel, 1, 1, 1, 1, GridBagConstraints.HORIZONTAL, 1, 0);
+			realTimeLayout.addToGrid(contextSwitchesLabel, 1, 2, 1, 1, GridBagConstraints.HORIZONTAL, 1, 0);
+			realTimeLayout.addToGrid(processesRunningLabel, 0, 3, 1, 1, GridBagConstraints.HORIZONTAL, 1, 0);
+			realTimeLayout.addToGrid(processesCreatedLabel, 1, 3, 1, 1, GridBagConstraints.HORIZONTAL, 1, 0);
 		}
 
 		SimpleGridBagLayout layout = new SimpleGridBagLayout(this);
@@ -116,23 +131,33 @@ public class CpuPanel extends JPanel {
 		CpuContextMenu contextMenu = new CpuContextMenu(this, systemInformation.cpuTopList, showProcessCallback);
 		setComponentPopupMenu(contextMenu);
 		singleCpuPanel.setComponentPopupMenu(contextMenu);
-		multiCpuPanel.setComponentPopupMenu(contextMenu);
+		if (multiCpuPanel != null) {
+			multiCpuPanel.setComponentPopupMenu(contextMenu);
+		}
+		heatmapPanel.setComponentPopupMenu(contextMenu);
 		timelineGraph.setComponentPopupMenu(contextMenu);
 	}
 
 
-	public void update(SystemInformation systemInformation) {
+	public void updateButton(int newDatapoints) {
+		connectedButton.setMaxDatapointValue(Config.DOUBLE_TO_LONG);
+		connectedButton.newDatapoints(newDatapoints, cpuUsage.newest());
+	}
+
+	public void update(SystemInformation systemInformation, int newDatapoints) {
 		final int total = Config.DOUBLE_TO_LONG;
 
 		singleCpuPanel.setMaxDatapointValue(total);
-		singleCpuPanel.newDatapoint();
+		singleCpuPanel.newDatapoints(newDatapoints);
 
-		multiCpuPanel.update();
+		if (multiCpuPanel != null) {
+			multiCpuPanel.update(newDatapoints);
+		}
+		heatmapPanel.setMaxDatapointValue(total);
+		heatmapPanel.newDatapoints(newDatapoints);
 
 		timelineGraph.setMaxDatapointValue(total);
-		connectedButton.setMaxDatapointValue(total);
-		timelineGraph.newDatapoint();
-		connectedButton.newDatapoint(cpuUsage.newest());
+		timelineGraph.newDatapoints(newDatapoints);
 
 		utilizationLabel.updateValue(cpuUsage.newest());
 		processesLabel.updateValue(systemInformation.totalProcesses);
@@ -146,6 +171,11 @@ public class CpuPanel extends JPanel {
 			LinuxExtraInformation extraInformation = (LinuxExtraInformation) systemInformation.extraInformation;
 			fileDescriptorsLabel.setMaximum(extraInformation.openFileDescriptorsLimit);
 			fileDescriptorsLabel.updateValue(extraInformation.openFileDescriptors);
+
+			float updateRate = Config.getFloat(Config.KEY_UPDATE_RATE);
+			contextSwitchesLabel.updateValue(Math.round(extraInformation.contextSwitches.newest() * updateRate));
+			processesCreatedLabel.updateValue(Math.round(extraInformation.processesCreated.newest() * updateRate));
+			processesRunningLabel.updateValue(extraInformation.processesRunning.newest());
 		}
 	}
 
@@ -164,6 +194,17 @@ public class CpuPanel extends JPanel {
 		containerPanel.repaint();
 	}
 
+	public void showCoresHeatmap() {
+		containerPanel.removeAll();
+		containerPanel.add(heatmapPanel);
+		containerPanel.revalidate();
+		containerPanel.repaint();
+	}
+
+	public boolean hasCoreGraphs() {
+		return multiCpuPanel != null;
+	}
+
 
 	public GraphTypeButton createGraphButton() {
 		connectedButton = new GraphTypeButton(GraphType.Cpu, ValueType.Percentage, "CPU");
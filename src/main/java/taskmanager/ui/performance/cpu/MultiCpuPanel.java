@@ -60,11 +60,11 @@ public class MultiCpuPanel extends JPanel {
 		}
 	}
 
-	public void update() {
+	public void update(int newDatapoints) {
 		final int total = Config.DOUBLE_TO_LONG;
 		for (GraphPanel graph : graphs) {
 			graph.setMaxDatapointValue(total);
-			graph.newDatapoint();
+			graph.newDatapoints(newDatapoints);
 		}
 	}
 }
\ No newline at end of file
@@ -130,15 +130,20 @@ public class DiskPanel extends JPanel {
 	}
 
 	
-	public void update() {
-		long max = Math.max(100 * 1024, Math.max(disk.writeRate.max(), disk.readRate.max()));
+	public void updateButton(int newDatapoints) {
+		connectedButton.newDatapoints(newDatapoints, (long)(disk.activeFraction.newest() * Config.DOUBLE_TO_LONG));
+	}
+
+	public void update(int newDatapoints) {
+		int start = transferGraph.getDataStartIndex();
+		int end = transferGraph.getDataEndIndex();
+		long max = Math.max(100 * 1024, Math.max(disk.writeRate.max(start, end), disk.readRate.max(start, end)));
 		labelTransferMax.setText(TextUtils.valueToString(max, ValueType.BytesPerSecond));
 		transferGraph.setMaxDatapointValue(max);
 
-		activeTimeGraph.newDatapoint();
-		transferGraph.newDatapoint();
-		timelineGraph.newDatapoint();
-		connectedButton.newDatapoint((long)(disk.activeFraction.newest() * Config.DOUBLE_TO_LONG));
+		activeTimeGraph.newDatapoints(newDatapoints);
+		transferGraph.newDatapoints(newDatapoints);
+		timelineGraph.newDatapoints(newDatapoints);
 		
 		activeTimePanel.updateValue((long)(disk.activeFraction.newest() * Config.DOUBLE_TO_LONG));
 		ioQueueLengthPanel.updateValue(disk.ioQueueLength.newest());
@@ -200,17 +200,20 @@ public class GpuPanel extends JPanel {
 	}
 
 
-	public void update() {
+	public void updateButton(int newDatapoints) {
+		connectedButton.newDatapoints(newDatapoints, gpu.utilization.newest());
+	}
+
+	public void update(int newDatapoints) {
 		labelMemoryMax.setText(TextUtils.valueToString(gpu.totalMemory, ValueType.Bytes));
 		memoryPanel.setMaximum(gpu.totalMemory);
 		memoryGraph.setMaxDatapointValue(gpu.totalMemory);
 
-		utilizationGraph.newDatapoint();
-		encodeDecodeGraph.newDatapoint();
-		memoryGraph.newDatapoint();
-		temperatureGraph.newDatapoint();
-		timelineGraph.newDatapoint();
-		connectedButton.newDatapoint(gpu.utilization.newest());
+		utilizationGraph.newDatapoints(newDatapoints);
+		encodeDecodeGraph.newDatapoints(newDatapoints);
+		memoryGraph.newDatapoints(newDatapoints);
+		temperatureGraph.newDatapoints(newDatapoints);
+		timelineGraph.newDatapoints(newDatapoints);
 
 		utilizationPanel.updateValue(gpu.utilization.newest());
 		memoryPanel.updateValue(gpu.usedMemory.newest());
@@ -135,17 +135,20 @@ public class MemoryPanel extends JPanel {
 	}
 
 
-	public void update(SystemInformation systemInformation) {
+	public void updateButton(SystemInformation systemInformation, int newDatapoints) {
+		connectedButton.setMaxDatapointValue(systemInformation.physicalMemoryTotal);
+		connectedButton.newDatapoints(newDatapoints, systemInformation.memoryUsed.newest());
+	}
+
+	public void update(SystemInformation systemInformation, int newDatapoints) {
 		labelMaxMemory.setText(TextUtils.valueToString(systemInformation.physicalMemoryTotal, ValueType.Bytes));
 
 		long memoryUsed = systemInformation.memoryUsed.newest();
 
 		memoryGraph.setMaxDatapointValue(systemInformation.physicalMemoryTotal);
 		timelineGraph.setMaxDatapointValue(systemInformation.physicalMemoryTotal);
-		connectedButton.setMaxDatapointValue(systemInformation.physicalMemoryTotal);
-		memoryGraph.newDatapoint();
-		timelineGraph.newDatapoint();
-		connectedButton.newDatapoint(memoryUsed);
+		memoryGraph.newDatapoints(newDatapoints);
+		timelineGraph.newDatapoints(newDatapoints);
 
 		memoryComposition.update(systemInformation);
 
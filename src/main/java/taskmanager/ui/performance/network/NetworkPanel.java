@@ -121,18 +121,22 @@ public class NetworkPanel extends JPanel {
 	}
 
 
-	public void update() {
-		long max = Math.max(100 * 1024, 8 * Math.max(network.outRate.max(), network.inRate.max())) / 8;
+	public void updateButton(int newDatapoints) {
+		connectedButton.newDatapoints(newDatapoints, network.outRate.newest(), network.inRate.newest());
+		connectedButton.setMaxDatapointValue(maxRate(connectedButton.getDataStartIndex(), connectedButton.getDataEndIndex()));
+	}
+
+	public void update(int newDatapoints) {
+		transferGraph.newDatapoints(newDatapoints);
+		timelineGraph.newDatapoints(newDatapoints);
+
+		long max = maxRate(transferGraph.getDataStartIndex(), transferGraph.getDataEndIndex());
+		long timelineMax = Math.max(100 * 1024, 8 * Math.max(network.outRate.max(), network.inRate.max())) / 8;
 
 		labelMaxTransfer.setText(TextUtils.bitsToString(max, 0) + "ps");
 
 		transferGraph.setMaxDatapointValue(max);
-		timelineGraph.setMaxDatapointValue(max);
-		connectedButton.setMaxDatapointValue(max);
-
-		transferGraph.newDatapoint();
-		timelineGraph.newDatapoint();
-		connectedButton.newDatapoint(network.outRate.newest(), network.inRate.newest());
+		timelineGraph.setMaxDatapointValue(timelineMax);
 
 		sendRatePanel.updateValue(network.outRate.newest());
 		receiveRatePanel.updateValue(network.inRate.newest());
@@ -143,6 +147,11 @@ public class NetworkPanel extends JPanel {
 	}
 
 
+	private long maxRate(int start, int end) {
+		return Math.max(100 * 1024, 8 * Math.max(network.outRate.max(start, end), network.inRate.max(start, end))) / 8;
+	}
+
+
 	public GraphTypeButton createGraphButton(int index) {
 		connectedButton = new GraphTypeButton(GraphType.Network, ValueType.BitsPerSecond, "Network", index);
 		connectedButton.setIsLogarithmic(transferGraph.isLogarithmic());
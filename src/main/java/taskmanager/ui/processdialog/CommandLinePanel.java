@@ -20,11 +20,15 @@ import javax.swing.border.TitledBorder;
 import java.awt.BorderLayout;
 
 public class CommandLinePanel extends JPanel {
+	private final Process process;
+	private final JTextArea text;
+
 	public CommandLinePanel(Process process) {
+		this.process = process;
 		setBorder(new TitledBorder("Command line"));
 		setLayout(new BorderLayout());
 
-		JTextArea text = new JTextArea(process.commandLine, 10, 30);
+		text = new JTextArea(process.commandLine, 10, 30);
 		text.setEditable(false);
 		text.setLineWrap(true);
 
@@ -33,4 +37,11 @@ public class CommandLinePanel extends JPanel {
 				JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
 		add(scrollPane, BorderLayout.CENTER);
 	}
-}
\ No newline at end of file
+
+	public void update() {
+		// The command line is loaded on demand and may arrive after the dialog was opened
+		if (!text.getText().equals(process.commandLine)) {
+			text.setText(process.commandLine);
+		}
+	}
+}
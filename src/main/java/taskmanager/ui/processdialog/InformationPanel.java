@@ -27,6 +27,7 @@ public class InformationPanel extends JPanel {
 	private final Process process;
 	private final JLabel statusLabel;
 	private final JLabel durationLabel;
+	private final JLabel userLabel;
 
 	public InformationPanel(Process process) {
 		this.process = process;
@@ -34,6 +35,8 @@ public class InformationPanel extends JPanel {
 
 		statusLabel = new JLabel();
 		durationLabel = new JLabel();
+		userLabel = new JLabel();
+		updateUserLabel();
 		updateStatusLabelText();
 		updateDurationLabel();
 
@@ -44,7 +47,7 @@ public class InformationPanel extends JPanel {
 		gbl.addToGrid(new JLabel("Name: " + process.fileName), 1, 0, 1, 1, GridBagConstraints.HORIZONTAL, 1, 0);
 
 		gbl.setInsets(5, 5, 5, 15);
-		gbl.addToGrid(new JLabel("User: " + process.userName), 0, 1, 1, 1, GridBagConstraints.WEST);
+		gbl.addToGrid(userLabel, 0, 1, 1, 1, GridBagConstraints.WEST);
 		gbl.setInsets(5, 5, 5, 5);
 		gbl.addToGrid(statusLabel, 1, 1, 1, 1, GridBagConstraints.HORIZONTAL, 1, 0);
 
@@ -63,6 +66,12 @@ public class InformationPanel extends JPanel {
 	public void update() {
 		updateStatusLabelText();
 		updateDurationLabel();
+		updateUserLabel();
+	}
+
+	private void updateUserLabel() {
+		// The user name is loaded on demand and may arrive after the dialog was opened
+		userLabel.setText("User: " + process.userName);
 	}
 
 	private void updateStatusLabelText() {
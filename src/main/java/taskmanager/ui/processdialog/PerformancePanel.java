@@ -115,13 +115,13 @@ public class PerformancePanel extends JPanel {
 
 	public void update() {
 		// TODO Make Memory/CPU max computation more intelligent?
-		long memoryMax = (long) (Math.max(128, process.privateWorkingSet.max()) * 1.1f);
+		long memoryMax = memoryMax(process.privateWorkingSet.max(memoryGraph.getDataStartIndex(), memoryGraph.getDataEndIndex()));
 		memoryGraph.setMaxDatapointValue(memoryMax);
-		memoryTimeline.setMaxDatapointValue(memoryMax);
+		memoryTimeline.setMaxDatapointValue(memoryMax(process.privateWorkingSet.max()));
 
-		long cpuMax = (long) Math.min(Config.DOUBLE_TO_LONG, Math.max(Config.DOUBLE_TO_LONG / 100f, process.cpuUsage.max()* 1.1f));
+		long cpuMax = cpuMax(process.cpuUsage.max(cpuGraph.getDataStartIndex(), cpuGraph.getDataEndIndex()));
 		cpuGraph.setMaxDatapointValue(cpuMax);
-		cpuTimeline.setMaxDatapointValue(cpuMax);
+		cpuTimeline.setMaxDatapointValue(cpuMax(process.cpuUsage.max()));
 
 		labelMemoryCurrent.setText(TextUtils.valueToString(process.privateWorkingSet.newest(), ValueType.Bytes));
 		labelCpuCurrent.setText(TextUtils.valueToString(process.cpuUsage.newest(), ValueType.Percentage));
@@ -133,6 +133,14 @@ public class PerformancePanel extends JPanel {
 		memoryTimeline.newDatapoint();
 	}
 
+	private long memoryMax(long max) {
+		return (long) (Math.max(128, max) * 1.1f);
+	}
+
+	private long cpuMax(long max) {
+		return (long) Math.min(Config.DOUBLE_TO_LONG, Math.max(Config.DOUBLE_TO_LONG / 100f, max * 1.1f));
+	}
+
 	private final MouseListener mouseListener = new MouseAdapter() {
 		@Override
 		public void mousePressed(MouseEvent e) {
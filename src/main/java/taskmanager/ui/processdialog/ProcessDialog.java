@@ -11,17 +11,21 @@
 
 package taskmanager.ui.processdialog;
 
+import taskmanager.AttributeDemand;
 import taskmanager.data.Process;
+import taskmanager.data.ProcessAttribute;
 import taskmanager.data.Status;
 import taskmanager.ui.SimpleGridBagLayout;
 
 import javax.swing.JDialog;
 import javax.swing.JFrame;
 import java.awt.GridBagConstraints;
+import java.util.EnumSet;
 
 public class ProcessDialog extends JDialog {
 	private final PerformancePanel performancePanel;
 	private final InformationPanel informationPanel;
+	private final CommandLinePanel commandLinePanel;
 
 	public ProcessDialog(JFrame parent, Process process) {
 		super(parent);
@@ -33,7 +37,8 @@ public class ProcessDialog extends JDialog {
 
 		performancePanel = new PerformancePanel(process);
 		informationPanel = new InformationPanel(process);
-		CommandLinePanel commandLinePanel = new CommandLinePanel(process);
+		commandLinePanel = new CommandLinePanel(process);
+		AttributeDemand.set(this, EnumSet.allOf(ProcessAttribute.class));
 
 		if (process.status == Status.Dead) {
 			processEnded();
@@ -53,6 +58,13 @@ public class ProcessDialog extends JDialog {
 	public void update() {
 		performancePanel.update();
 		informationPanel.update();
+		commandLinePanel.update();
+	}
+
+	@Override
+	public void dispose() {
+		AttributeDemand.remove(this);
+		super.dispose();
 	}
 
 	public void processEnded() {
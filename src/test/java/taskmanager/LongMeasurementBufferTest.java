@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks that the primitive buffer, the default storage, keeps the same values as the linked container, also when it
+ * is copied to snapshots, that it only grows as far as its history and that adding to a full buffer does not allocate,
+ * for both noisy (busy process) and constant (idle process) measurements.
+ */
+public class LongMeasurementBufferTest {
+	private static final int SIZE = 3600;
+	private static final int TICKS = 10_000;
+
+	@Test
+	public void keepsTheSameValuesAsTheContainer() {
+		Random random = new Random(1);
+		LongMeasurementBuffer buffer = new LongMeasurementBuffer(SIZE, 0L);
+		MeasurementContainer<Long> container = new MeasurementContainer<>(SIZE, 0L);
+		for (int tick = 0; tick < SIZE + 500; tick++) {
+			long value = random.nextBoolean() ? 4096L : 1000L + random.nextInt(100_000);
+			buffer.addValue(value);
+			container.addValue(value);
+		}
+
+		assertEquals(container.size(), buffer.size());
+		Iterator<Long> expected = container.getRangeIterator(0, SIZE - 1);
+		Iterator<Long> actual = buffer.getRangeIterator(0, SIZE - 1);
+		while (expected.hasNext()) {
+			assertTrue(actual.hasNext());
+			assertEquals(expected.next(), actual.next());
+		}
+		assertFalse(actual.hasNext());
+
+		for (int i = 0; i < 100; i++) {
+			int start = random.nextInt(SIZE);
+			int end = start + random.nextInt(SIZE - start);
+			assertEquals(container.max(start, end), buffer.max(start, end));
+			assertEquals(container.min(start, end), buffer.min(start, end));
+		}
+	}
+
+	@Test
+	public void snapshotCopiesKeepTheSameValuesAsTheContainer() {
+		Random random = new Random(1);
+		LongMeasurementBuffer buffer = new LongMeasurementBuffer(SIZE, 0L);
+		LongMeasurementBuffer snapshot = new LongMeasurementBuffer(SIZE, 0L);
+		MeasurementContainer<Long> container = new MeasurementContainer<>(SIZE, 0L);
+		for (int tick = 0; tick < SIZE + 500; tick++) {
+			long value = 1000L + random.nextInt(100_000);
+			buffer.addValue(value);
+			container.addValue(value);
+			if (random.nextInt(10) == 0) {
+				snapshot.copyDelta(buffer);
+				assertEquals(container.newest(), snapshot.newest());
+				assertEquals(container.max(), snapshot.max());
+				assertEquals(container.min(), snapshot.min());
+			}
+		}
+	}
+
+	@Test
+	public void shortLivedBuffersOnlyKeepWhatTheyHaveSeen() {
+		LongMeasurementBuffer buffer = new LongMeasurementBuffer(SIZE, 0L);
+		for (int tick = 0; tick < 100; tick++) {
+			buffer.addValue(4096L);
+		}
+		assertTrue(buffer.capacity() < 2 * 100);
+	}
+
+	@Test
+	public void addingToAFullBufferDoesNotAllocate() {
+		assertEquals(0, allocatedBytesPerTick(true), 0.01);
+		assertEquals(0, allocatedBytesPerTick(false), 0.01);
+	}
+
+	private static double allocatedBytesPerTick(boolean noisy) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+
+		// Box the values up front so that only the buffer is measured
+		Random random = new Random(1);
+		Long[] values = new Long[TICKS];
+		for (int i = 0; i < TICKS; i++) {
+			values[i] = noisy ? 1000L + random.nextInt(100_000) : 4096L;
+		}
+
+		LongMeasurementBuffer buffer = new LongMeasurementBuffer(SIZE, 0L);
+		for (Long value : values) {
+			buffer.addValue(value);
+		}
+
+		long threadId = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(threadId);
+		for (Long value : values) {
+			buffer.addValue(value);
+		}
+		long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+		return allocated / (double) TICKS;
+	}
+}
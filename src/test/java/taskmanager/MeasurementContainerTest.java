@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the range queries of the container against the values added to it, over random sequences of additions and
+ * copies. Runs of equal values are common so that the points cover several measurements.
+ */
+public class MeasurementContainerTest {
+	private static final int TRIALS = 500;
+
+	@Test
+	public void rangeQueriesMatchTheAddedValues() {
+		Random seeds = new Random(1);
+		for (int trial = 0; trial < TRIALS; trial++) {
+			runTrial(new Random(seeds.nextLong()));
+		}
+	}
+
+	private static void runTrial(Random random) {
+		int size = 1 + random.nextInt(random.nextBoolean() ? 20 : 300);
+		long defaultValue = random.nextInt(5);
+
+		MeasurementContainer<Long> source = new MeasurementContainer<>(size, defaultValue);
+		MeasurementContainer<Long> copy = new MeasurementContainer<>(size, defaultValue);
+		List<Long> values = new ArrayList<>();
+
+		int operations = random.nextInt(4 * size + 10);
+		long value = defaultValue;
+		for (int i = 0; i < operations; i++) {
+			if (random.nextInt(3) == 0) {
+				value = random.nextInt(random.nextBoolean() ? 5 : 10000);
+			}
+			source.addValue(value);
+			values.add(value);
+
+			int choice = random.nextInt(10);
+			if (choice == 0) {
+				copy.copyFrom(source);
+			} else if (choice < 6) {
+				copy.copyDelta(source);
+			}
+
+			if (random.nextInt(4) == 0) {
+				// Query in between so that the range index is also maintained incrementally
+				checkRandomRange(random, source, values, defaultValue);
+				if (choice < 6) {
+					checkRandomRange(random, copy, values, defaultValue);
+				}
+			}
+		}
+		copy.copyDelta(source);
+
+		for (int i = 0; i < 20; i++) {
+			checkRandomRange(random, source, values, defaultValue);
+			checkRandomRange(random, copy, values, defaultValue);
+		}
+	}
+
+	private static void checkRandomRange(Random random, MeasurementContainer<Long> container, List<Long> values,
+										 long defaultValue) {
+		int size = container.size();
+		int start = random.nextInt(size);
+		int end = start + random.nextInt(size - start);
+
+		long sum = 0;
+		long max = Long.MIN_VALUE;
+		long min = Long.MAX_VALUE;
+		Iterator<Long> iterator = container.getRangeIterator(start, end);
+		for (int index = start; index <= end; index++) {
+			int t = values.size() - size + index;
+			long expected = (t < 0) ? defaultValue : values.get(t);
+			assertEquals("Value at " + index, expected, (long) iterator.next());
+			sum += expected;
+			max = Math.max(max, expected);
+			min = Math.min(min, expected);
+		}
+
+		String range = "[" + start + ", " + end + "]";
+		assertEquals("Sum of " + range, sum, container.sumAsLong(start, end));
+		assertEquals("Max of " + range, max, (long) container.max(start, end));
+		assertEquals("Min of " + range, min, (long) container.min(start, end));
+	}
+}
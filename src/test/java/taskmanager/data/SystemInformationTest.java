@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.data;
+
+import org.junit.Test;
+import taskmanager.Measurements;
+import taskmanager.SharedMeasurements;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks the process lookups against a linear search over random collector ticks, where processes die, dead processes
+ * expire and PIDs are reused. The lookups of the copied snapshot are checked as well, and that a view reads the
+ * measurements of the snapshots without copying them.
+ */
+public class SystemInformationTest {
+	private static final int TICKS = 300;
+	private static final int MAX_PID = 200;
+
+	@Test
+	public void lookupsMatchTheProcessLists() {
+		Random random = new Random(1);
+		SystemInformation collected = new SystemInformation();
+		SystemInformation snapshot = new SystemInformation();
+		long nextUniqueId = 0;
+
+		for (int tick = 0; tick < TICKS; tick++) {
+			// Start new processes on random free PIDs, the dead ones keep theirs so that they get reused
+			int starts = random.nextInt(10);
+			for (int i = 0; i < starts; i++) {
+				long pid = random.nextInt(MAX_PID);
+				if (collected.getProcessById(pid) == null) {
+					collected.addProcess(new Process(nextUniqueId++, pid));
+				}
+			}
+
+			for (Process process : new ArrayList<>(collected.processes)) {
+				if (process.status != Status.Dead && random.nextInt(20) == 0) {
+					process.status = Status.Dead;
+					collected.addDeadProcess(process);
+					collected.removeProcessesIf(p -> p == process);
+				}
+			}
+			if (random.nextInt(3) == 0) {
+				collected.removeDeadProcessesIf(p -> random.nextInt(4) == 0);
+			}
+
+			snapshot.copyFrom(collected);
+			checkLookups(collected);
+			checkLookups(snapshot);
+		}
+	}
+
+	@Test
+	public void viewSharesTheMeasurementsOfTheSnapshots() {
+		SystemInformation collected = new SystemInformation();
+		SystemInformation[] snapshots = {new SystemInformation(), new SystemInformation()};
+		SystemInformation view = SystemInformation.createView();
+		collected.addProcess(new Process(0, 10));
+		view.copyFrom(collected);
+		Process viewProcess = view.getProcessByUniqueId(0);
+		Measurements<Long> viewCpuUsage = viewProcess.cpuUsage;
+
+		for (int tick = 0; tick < 10; tick++) {
+			collected.memoryUsed.addValue((long) tick);
+			collected.getProcessByUniqueId(0).cpuUsage.addValue((long) tick);
+			collected.generation++;
+			SystemInformation snapshot = snapshots[tick % snapshots.length];
+			snapshot.copyFrom(collected);
+			view.copyFrom(snapshot);
+
+			// The objects of the view stay the same while the values are read from the snapshot, not copied
+			assertSame(viewProcess, view.getProcessByUniqueId(0));
+			assertSame(viewCpuUsage, viewProcess.cpuUsage);
+			assertSame(snapshot.getProcessByUniqueId(0).cpuUsage, SharedMeasurements.unwrap(viewProcess.cpuUsage));
+			assertSame(snapshot.memoryUsed, SharedMeasurements.unwrap(view.memoryUsed));
+			assertEquals(tick, (long) viewProcess.cpuUsage.newest());
+			assertEquals(tick, (long) view.memoryUsed.newest());
+		}
+	}
+
+	private static void checkLookups(SystemInformation systemInformation) {
+		for (long pid = 0; pid < MAX_PID; pid++) {
+			assertSame(findLast(systemInformation.processes, pid), systemInformation.getProcessById(pid));
+			assertSame(findLast(systemInformation.deadProcesses, pid), systemInformation.getDeadProcessById(pid));
+		}
+		for (Process process : systemInformation.processes) {
+			assertSame(process, systemInformation.getProcessByUniqueId(process.uniqueId));
+		}
+		for (Process process : systemInformation.deadProcesses) {
+			assertSame(process, systemInformation.getDeadProcessByUniqueId(process.uniqueId));
+		}
+		assertNull(systemInformation.getProcessByUniqueId(-1));
+	}
+
+	// The most recently added process with the PID, i.e. the last one in the list
+	private static Process findLast(List<Process> processes, long pid) {
+		Process result = null;
+		for (Process process : processes) {
+			if (process.id == pid) {
+				result = process;
+			}
+		}
+		return result;
+	}
+}
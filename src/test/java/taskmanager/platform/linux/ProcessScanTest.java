@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.platform.linux;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import taskmanager.data.SystemInformation;
+import taskmanager.platform.linux.LinuxInformationLoader.ProcessScan;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Runs the process scan of the Linux loader against a small generated proc tree: the scans between two listings of
+ * /proc must not allocate, and processes that are created or exit must be picked up by the next scan.
+ */
+public class ProcessScanTest {
+	private static final int PROCESSES = 50;
+	private static final int WARM_UP_SCANS = 5000;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path root;
+	private long processesCreated;
+	private long scannedProcessesCreated;
+	private long threads;
+	private LinuxInformationLoader loader;
+
+	@Before
+	public void setUp() throws IOException {
+		root = folder.getRoot().toPath();
+		Files.createDirectories(root.resolve("sys/fs"));
+		write(root.resolve("sys/fs/file-nr"), "2048\t0\t65536\n");
+		for (int pid = 1; pid <= PROCESSES; pid++) {
+			spawn(pid);
+		}
+		writeLoadAvg();
+		loader = new LinuxInformationLoader(root.toString(), 1);
+		loader.init(new SystemInformation());
+	}
+
+	@After
+	public void tearDown() {
+		loader.close();
+	}
+
+	@Test
+	public void scansBetweenListingsDoNotAllocate() {
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+
+		for (int i = 0; i < WARM_UP_SCANS; i++) {
+			scan();
+		}
+		// Starts right after the periodic listing
+		long listing = scan().samples.get(0).listing;
+		while (scan().samples.get(0).listing == listing) {
+			// Scans until /proc is listed again
+		}
+
+		int scans = LinuxInformationLoader.MAX_SCANS_BETWEEN_LISTINGS - 1;
+		long threadId = Thread.currentThread().getId();
+		long before = threadBean.getThreadAllocatedBytes(threadId);
+		long threadCount = 0;
+		for (int i = 0; i < scans; i++) {
+			threadCount += scan().totalThreads;
+		}
+		long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+		assertEquals(scans * PROCESSES * 2L, threadCount);
+		assertEquals("Bytes allocated per scan", 0, allocated / (double) scans, 1);
+	}
+
+	@Test
+	public void newAndDeadProcessesAreFound() throws IOException {
+		ProcessScan scan = scan();
+		assertEquals(PROCESSES, scan.samples.size());
+		assertEquals(2048, scan.openFileDescriptors);
+		assertEquals(65536, scan.openFileDescriptorsLimit);
+
+		spawn(PROCESSES + 1);
+		writeLoadAvg();
+		scan = scan();
+		assertEquals(PROCESSES + 1, scan.samples.size());
+		assertTrue(scan.samples.stream().anyMatch(sample -> sample.pid == PROCESSES + 1 && sample.hasStat));
+
+		// An exit only changes the number of threads, not the fork counter
+		kill(1);
+		writeLoadAvg();
+		scan = scan();
+		assertEquals(PROCESSES, scan.samples.size());
+		assertFalse(scan.samples.stream().anyMatch(sample -> sample.pid == 1));
+		assertTrue(scan.samples.stream().allMatch(sample -> sample.hasStat));
+	}
+
+	/**
+	 * Scans like the collector thread would, passing on the processes created since the previous scan.
+	 */
+	private ProcessScan scan() {
+		long processesCreatedDelta = processesCreated - scannedProcessesCreated;
+		scannedProcessesCreated = processesCreated;
+		return loader.scanProcesses(0, 4096, 100, processesCreatedDelta);
+	}
+
+	private void spawn(long pid) throws IOException {
+		Path directory = Files.createDirectories(root.resolve(Long.toString(pid)));
+		write(directory.resolve("comm"), "test\n");
+		write(directory.resolve("cmdline"), "/usr/bin/test\0--id\0" + pid + "\0");
+		StringBuilder stat = new StringBuilder();
+		stat.append(pid).append(" (test) S 1 ").append(pid).append(' ').append(pid)
+				.append(" 0 -1 4194560 100 0 0 0 10 5 0 0 20 0 2 0 100 409600 100");
+		for (int i = 25; i <= 52; i++) {
+			stat.append(" 0");
+		}
+		write(directory.resolve("stat"), stat.append('\n').toString());
+		write(directory.resolve("statm"), "400 100 10 10 0 100 0\n");
+		processesCreated++;
+		threads += 2;
+	}
+
+	private void kill(long pid) throws IOException {
+		Path directory = root.resolve(Long.toString(pid));
+		// Open handles to /proc files fail once the process is gone, while deleted regular files stay readable
+		write(directory.resolve("stat"), "");
+		write(directory.resolve("statm"), "");
+		for (String file : new String[]{"comm", "cmdline", "stat", "statm"}) {
+			Files.delete(directory.resolve(file));
+		}
+		Files.delete(directory);
+		threads -= 2;
+	}
+
+	private void writeLoadAvg() throws IOException {
+		write(root.resolve("loadavg"), "0.20 0.18 0.12 1/" + threads + " " + processesCreated + "\n");
+	}
+
+	private static void write(Path file, String content) throws IOException {
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.recording;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import taskmanager.MeasurementFactory;
+import taskmanager.data.Disk;
+import taskmanager.data.Network;
+import taskmanager.data.Process;
+import taskmanager.data.Status;
+import taskmanager.data.SystemInformation;
+import taskmanager.platform.linux.LinuxExtraInformation;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Records random ticks where processes start, exit and change their attributes, replays the recording and checks that
+ * every replayed tick has the recorded values. Also checks that devices appearing during a recording are refused.
+ */
+public class SessionRecorderTest {
+	private static final int TICKS = 50;
+	private static final int PROCESSES = 40;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void replayHasTheRecordedValues() throws IOException {
+		Random random = new Random(1);
+		Path file = folder.getRoot().toPath().resolve("session.rec");
+		SystemInformation recorded = createSystemInformation();
+		long nextUniqueId = 0;
+		for (; nextUniqueId < PROCESSES; nextUniqueId++) {
+			recorded.addProcess(createProcess(nextUniqueId));
+		}
+
+		List<SystemInformation> expectedTicks = new ArrayList<>();
+		SessionRecorder recorder = new SessionRecorder(file);
+		for (int tick = 0; tick < TICKS; tick++) {
+			recorded.uptime = tick;
+			recorded.memoryUsed.addValue((long) random.nextInt(1 << 30));
+			recorded.cpuUsageTotal.addValue((short) random.nextInt(10000));
+			for (int i = 0; i < recorded.cpuUsagePerCore.length; i++) {
+				recorded.cpuUsagePerCore[i].addValue((short) random.nextInt(10000));
+			}
+			recorded.disks[0].readRate.addValue((long) random.nextInt(1 << 20));
+			recorded.disks[0].activeFraction.addValue(random.nextDouble());
+			recorded.networks[0].inRate.addValue((long) random.nextInt(1 << 20));
+			recorded.networks[0].isEnabled = random.nextBoolean();
+			((LinuxExtraInformation) recorded.extraInformation).contextSwitches.addValue((long) random.nextInt(100_000));
+
+			for (Process process : recorded.processes) {
+				process.cpuUsage.addValue((long) random.nextInt(10000));
+				process.cpuTime.addValue((long) random.nextInt(100));
+				process.privateWorkingSet.addValue((long) random.nextInt(1 << 30));
+				if (random.nextInt(10) == 0) {
+					process.commandLine = "/usr/bin/process" + process.uniqueId + " --tick " + tick;
+				}
+				if (random.nextInt(20) == 0) {
+					process.status = (process.status == Status.Running) ? Status.Sleeping : Status.Running;
+				}
+			}
+			recorded.totalProcesses = recorded.processes.size();
+			recorder.record(recorded);
+
+			SystemInformation expected = new SystemInformation();
+			expected.copyFrom(recorded);
+			expectedTicks.add(expected);
+
+			// Processes exit and new ones start, the PIDs are not reused
+			recorded.removeProcessesIf(process -> random.nextInt(10) == 0);
+			int starts = random.nextInt(5);
+			for (int i = 0; i < starts; i++, nextUniqueId++) {
+				recorded.addProcess(createProcess(nextUniqueId));
+			}
+		}
+		recorder.close();
+
+		ReplayInformationLoader loader = new ReplayInformationLoader(file, 0);
+		SystemInformation replayed = new SystemInformation();
+		loader.init(replayed);
+		for (SystemInformation expected : expectedTicks) {
+			assertFalse(loader.isFinished());
+			loader.update(replayed);
+			checkTick(expected, replayed);
+		}
+		assertTrue(loader.isFinished());
+		loader.close();
+	}
+
+	@Test
+	public void changedDevicesAreRefused() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("session.rec");
+		SystemInformation recorded = createSystemInformation();
+		SessionRecorder recorder = new SessionRecorder(file);
+		recorder.record(recorded);
+
+		recorded.disks = new Disk[] {recorded.disks[0], new Disk()};
+		try {
+			recorder.record(recorded);
+			fail("A disk was added during the recording");
+		} catch (IOException expected) {
+		}
+		recorder.close();
+
+		ReplayInformationLoader loader = new ReplayInformationLoader(file, 0);
+		SystemInformation replayed = new SystemInformation();
+		loader.init(replayed);
+		loader.update(replayed);
+		assertTrue(loader.isFinished());
+		assertEquals(1, replayed.disks.length);
+		loader.close();
+	}
+
+	private static void checkTick(SystemInformation expected, SystemInformation replayed) {
+		assertEquals(expected.uptime, replayed.uptime);
+		assertEquals(expected.memoryUsed.newest(), replayed.memoryUsed.newest());
+		assertEquals(expected.cpuUsageTotal.newest(), replayed.cpuUsageTotal.newest());
+		for (int i = 0; i < expected.cpuUsagePerCore.length; i++) {
+			assertEquals(expected.cpuUsagePerCore[i].newest(), replayed.cpuUsagePerCore[i].newest());
+		}
+		assertEquals(expected.totalProcesses, replayed.totalProcesses);
+		assertEquals(expected.disks[0].name, replayed.disks[0].name);
+		assertEquals(expected.disks[0].readRate.newest(), replayed.disks[0].readRate.newest());
+		assertEquals(expected.disks[0].activeFraction.newest(), replayed.disks[0].activeFraction.newest());
+		assertEquals(expected.networks[0].inRate.newest(), replayed.networks[0].inRate.newest());
+		assertEquals(expected.networks[0].isEnabled, replayed.networks[0].isEnabled);
+		assertEquals(((LinuxExtraInformation) expected.extraInformation).contextSwitches.newest(),
+				((LinuxExtraInformation) replayed.extraInformation).contextSwitches.newest());
+
+		int alive = 0;
+		for (Process process : replayed.processes) {
+			if (process.status != Status.Dead) {
+				alive++;
+			}
+		}
+		assertEquals(expected.processes.size(), alive);
+		for (Process expectedProcess : expected.processes) {
+			Process process = replayed.getProcessByUniqueId(expectedProcess.uniqueId);
+			assertNotNull(process);
+			assertEquals(expectedProcess.id, process.id);
+			assertEquals(expectedProcess.status, process.status);
+			assertEquals(expectedProcess.fileName, process.fileName);
+			assertEquals(expectedProcess.commandLine, process.commandLine);
+			assertEquals(expectedProcess.cpuUsage.newest(), process.cpuUsage.newest());
+			assertEquals(expectedProcess.cpuTime.newest(), process.cpuTime.newest());
+			assertEquals(expectedProcess.privateWorkingSet.newest(), process.privateWorkingSet.newest());
+		}
+	}
+
+	private static SystemInformation createSystemInformation() {
+		SystemInformation systemInformation = new SystemInformation();
+		systemInformation.physicalMemoryTotal = 16L << 30;
+		systemInformation.logicalProcessorCount = 4;
+		systemInformation.cpuUsagePerCore = MeasurementFactory.createArray(systemInformation.logicalProcessorCount);
+		for (int i = 0; i < systemInformation.cpuUsagePerCore.length; i++) {
+			systemInformation.cpuUsagePerCore[i] = MeasurementFactory.createShort((short) 0);
+		}
+		systemInformation.disks = new Disk[] {new Disk()};
+		systemInformation.disks[0].name = "/";
+		systemInformation.networks = new Network[] {new Network()};
+		systemInformation.networks[0].name = "eth0";
+		systemInformation.extraInformation = new LinuxExtraInformation();
+		return systemInformation;
+	}
+
+	private static Process createProcess(long uniqueId) {
+		Process process = new Process(uniqueId, uniqueId + 1);
+		process.fileName = "process" + uniqueId;
+		process.commandLine = "/usr/bin/process" + uniqueId;
+		process.status = Status.Running;
+		return process;
+	}
+}
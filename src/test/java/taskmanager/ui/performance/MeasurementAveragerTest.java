@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2020. Sebastian Hjelm
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * See LICENSE for further details.
+ */
+
+package taskmanager.ui.performance;
+
+import org.junit.Test;
+import taskmanager.LongMeasurementBuffer;
+import taskmanager.MeasurementBuffer;
+import taskmanager.Measurements;
+import taskmanager.ShortMeasurementBuffer;
+import taskmanager.ui.performance.GraphPanel.ShortToLong;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the range sums of the measurement buffers and the averages computed from them against summing the values one
+ * by one, over random sequences of additions and copies.
+ */
+public class MeasurementAveragerTest {
+	private static final int TRIALS = 2000;
+
+	@Test
+	public void rangeSumsAndAveragesMatchTheValues() {
+		Random seeds = new Random(1);
+		for (int trial = 0; trial < TRIALS; trial++) {
+			runTrial(new Random(seeds.nextLong()));
+		}
+	}
+
+	private static void runTrial(Random random) {
+		int size = 1 + random.nextInt(random.nextBoolean() ? 20 : 300);
+		long defaultValue = random.nextInt(5);
+
+		LongMeasurementBuffer source = new LongMeasurementBuffer(size, defaultValue);
+		LongMeasurementBuffer copy = new LongMeasurementBuffer(size, defaultValue);
+		ShortMeasurementBuffer shorts = new ShortMeasurementBuffer(size, (short) defaultValue);
+		List<MeasurementBuffer<?>> buffers = new ArrayList<>();
+		buffers.add(source);
+		buffers.add(copy);
+		buffers.add(shorts);
+
+		int operations = random.nextInt(3 * size + 10);
+		for (int i = 0; i < operations; i++) {
+			long value = random.nextBoolean() ? random.nextInt(100) : random.nextInt(Short.MAX_VALUE);
+			source.addValue(value);
+			shorts.addValue((short) value);
+
+			int choice = random.nextInt(10);
+			if (choice == 0) {
+				copy.copyFrom(source);
+			} else if (choice < 6) {
+				copy.copyDelta(source);
+			}
+
+			if (random.nextInt(4) == 0) {
+				// Query in between so that the cumulative sums are also maintained incrementally
+				checkRandomRange(random, buffers.get(random.nextInt(buffers.size())));
+			}
+		}
+		copy.copyDelta(source);
+
+		for (int i = 0; i < 20; i++) {
+			for (MeasurementBuffer<?> buffer : buffers) {
+				checkRandomRange(random, buffer);
+			}
+		}
+
+		// Intervals as the graphs use them, ending at the newest value and spanning at least two steps
+		int stepSize = 1 + random.nextInt(Math.min(size, 30));
+		int start = random.nextInt(size);
+		int end = size - 1;
+		if (end - Math.max(start, stepSize) >= 2 * stepSize) {
+			checkAverages(source, start, end, stepSize);
+			checkAverages(new ShortToLong(shorts), start, end, stepSize);
+		}
+	}
+
+	private static void checkRandomRange(Random random, MeasurementBuffer<?> buffer) {
+		int start = random.nextInt(buffer.size());
+		int end = start + random.nextInt(buffer.size() - start);
+
+		long expected = 0;
+		PrimitiveIterator.OfLong iterator = buffer.getLongRangeIterator(start, end);
+		while (iterator.hasNext()) {
+			expected += iterator.nextLong();
+		}
+
+		assertEquals("Sum of [" + start + ", " + end + "]", expected, buffer.sumAsLong(start, end));
+	}
+
+	private static void checkAverages(Measurements<Long> measurements, int start, int end, int stepSize) {
+		List<Long> expected = averages(new IteratorOnly(measurements), start, end, stepSize);
+		List<Long> actual = averages(measurements, start, end, stepSize);
+		assertEquals("Averages of [" + start + ", " + end + ") in steps of " + stepSize, expected, actual);
+	}
+
+	private static List<Long> averages(Measurements<Long> measurements, int start, int end, int stepSize) {
+		MeasurementAverager<Long> averager = new MeasurementAveragerForLong(measurements);
+		averager.setInterval(start, end, stepSize);
+		averager.reset();
+
+		List<Long> averages = new ArrayList<>();
+		while (averager.hasNext()) {
+			averages.add(averager.next());
+		}
+		return averages;
+	}
+
+
+	/**
+	 * Hides everything but the boxed range iterator, which makes the averager fall back to summing every value.
+	 */
+	private static class IteratorOnly implements Measurements<Long> {
+		private final Measurements<Long> measurements;
+
+		IteratorOnly(Measurements<Long> measurements) {
+			this.measurements = measurements;
+		}
+
+		@Override
+		public Iterator<Long> getRangeIterator(int startIndex, int endIndex) {
+			Iterator<Long> iterator = measurements.getRangeIterator(startIndex, endIndex);
+			return new Iterator<Long>() {
+				@Override
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+
+				@Override
+				public Long next() {
+					return iterator.next();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return measurements.size();
+		}
+
+		@Override
+		public int realSize() {
+			return measurements.realSize();
+		}
+
+		@Override
+		public void copyFrom(Measurements<Long> other) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void copyDelta(Measurements<Long> other) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void addValue(Long value) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Long newest() {
+			return measurements.newest();
+		}
+
+		@Override
+		public Long oldest() {
+			return measurements.oldest();
+		}
+
+		@Override
+		public Long max() {
+			return measurements.max();
+		}
+
+		@Override
+		public Long min() {
+			return measurements.min();
+		}
+
+		@Override
+		public Long max(int startIndex, int endIndex) {
+			return measurements.max(startIndex, endIndex);
+		}
+
+		@Override
+		public Long min(int startIndex, int endIndex) {
+			return measurements.min(startIndex, endIndex);
+		}
+	}
+}